@@ -0,0 +1,111 @@
+package ai;
+
+import model.Card;
+import model.CardSet;
+import model.GameView;
+
+/**
+ * Exact chance that a play matches its declared rank, from what one seat has seen
+ * The cards a seat cannot place (all but its hand, the cards it put on the pile
+ * and the cards it saw picked up after challenges) are spread over the other
+ * hands, the rest of the pile and the last play. With every placement that fits
+ * the counts equally likely, the last play is a uniformly random set of its size
+ * from those cards, so the chance that it is honest is
+ *   C(m, k) / C(n, k)
+ * for n cards the seat cannot place, m of them of the declared rank, and k cards
+ * played. There are only 25 * 5 * 5 such (n, m, k), so every answer is counted
+ * once, in whole numbers, when the class loads, and a query is a table lookup
+ */
+public class BluffOdds {
+
+    // Most cards of one rank (one per suit)
+    private static final int SUITS = Card.Suit.values().length;
+
+    // Chance of an honest play, by key(n, m, k)
+    private static final double[] HONEST = new double[key(Card.COUNT, SUITS, SUITS) + 1];
+
+    static {
+        for (int n = 0; n <= Card.COUNT; n++) {
+            for (int m = 0; m <= Math.min(n, SUITS); m++) {
+                for (int k = 1; k <= Math.min(n, SUITS); k++) {
+                    HONEST[key(n, m, k)] = count(n, m, k);
+                }
+            }
+        }
+    }
+
+    /**
+     * Pack the counts into a table index
+     * @param unplaced Cards the seat cannot place (0-24)
+     * @param ofRank How many of them have the declared rank (0-4)
+     * @param played Cards in the play (1-4)
+     */
+    static int key(int unplaced, int ofRank, int played) {
+        return (unplaced * (SUITS + 1) + ofRank) * (SUITS + 1) + played;
+    }
+
+    /**
+     * Work out C(m, k) / C(n, k) from whole numbers, as the table is filled
+     * (honestChance() looks the same answer up)
+     * @param unplaced Cards the seat cannot place (n)
+     * @param ofRank How many of them have the declared rank (m)
+     * @param played Cards in the play (k)
+     */
+    public static double count(int unplaced, int ofRank, int played) {
+        return (double) choose(ofRank, played) / choose(unplaced, played);
+    }
+
+    /**
+     * Count the ways to choose k things from n
+     */
+    static long choose(int n, int k) {
+        if (k < 0 || k > n) {
+            return 0;
+        }
+        long ways = 1;
+        for (int i = 1; i <= k; i++) {
+            // Exact at every step: the product of i consecutive numbers is divisible by i!
+            ways = ways * (n - k + i) / i;
+        }
+        return ways;
+    }
+
+    /**
+     * Get the chance that a play matches its declared rank
+     * @param unplacedMask Cards the viewing seat cannot place (including the play's own cards)
+     * @param declaredRank The rank declared
+     * @param played Number of cards played (1-4)
+     * @return The chance, from 0 (certainly a bluff) to 1 (certainly honest)
+     */
+    public static double honestChance(int unplacedMask, Card.Rank declaredRank, int played) {
+        int unplaced = Integer.bitCount(unplacedMask);
+        if (played < 1 || played > SUITS || played > unplaced) {
+            throw new IllegalArgumentException("Play of " + played + " cards cannot come from "
+                    + unplaced + " unplaced cards!");
+        }
+        int ofRank = Integer.bitCount(unplacedMask & CardSet.rankMask(declaredRank));
+        return HONEST[key(unplaced, ofRank, played)];
+    }
+
+    /**
+     * Get the cards a seat cannot place
+     */
+    public static int unplacedMask(GameView view) {
+        return CardSet.ALL_MASK & ~view.getHand().getMask() & ~view.getOwnPileCards() & ~view.getSeenInOtherHands();
+    }
+
+    /**
+     * Get the chance, as a seat sees it, that the last play matches its declared rank
+     * @return The chance (exactly 0 or 1 if the seat made the play itself)
+     */
+    public static double lastPlayHonestChance(GameView view) {
+        if (!view.hasLastPlay()) {
+            throw new IllegalStateException("There is no play to judge!");
+        }
+        int ownPlay = view.getOwnLastPlayMask();
+        if (ownPlay != 0) {
+            return (ownPlay & ~CardSet.rankMask(view.getLastDeclaredRank())) == 0 ? 1 : 0;
+        }
+        return honestChance(unplacedMask(view), view.getLastDeclaredRank(), view.getLastPlayCardCount());
+    }
+}
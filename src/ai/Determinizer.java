@@ -0,0 +1,168 @@
+package ai;
+
+import model.Card;
+import model.CardSet;
+import model.GameState;
+import model.GameView;
+
+import java.util.SplittableRandom;
+
+/**
+ * Samples complete positions that agree with what one seat knows
+ * The seat knows its own hand, the cards it put on the pile, the cards it has
+ * seen go into other hands (see GameView.getSeenInHand), and how many cards
+ * every other hand, the pile and the last play hold; every other card is placed at random.
+ * Placing the last play's cards uniformly would make almost every claim look like a lie,
+ * so the last play is made honest with a prior probability whenever enough cards allow it
+ */
+public class Determinizer {
+
+    private int viewerSeat;       // Seat whose knowledge is used
+    private int ownHand;          // Viewer's hand
+    private int ownPileCards;     // Cards the viewer put on the pile
+    private int[] seenHands;      // Cards the viewer knows are in each other hand
+    private int[] handCounts;     // Number of cards in each hand
+    private int pileCardCount;    // Number of cards in the pile
+    private int pilePlayCount;    // Number of plays in the pile
+    private int lastPlayCount;    // Number of cards in the last play (0 if none)
+    private int lastPlaySeat;     // Seat that made the last play (-1 if none)
+    private Card.Rank lastDeclaredRank; // Rank declared by the last play (null if none)
+    private int ownLastPlayMask;  // Cards of the last play if the viewer made it
+    private int currentSeat;      // Seat to move
+    private int roundNumber;      // Current round number
+    private double honestyPrior;  // Chance a sampled last play matches its declaration
+
+    /**
+     * Create a determinizer from what a seat knows
+     */
+    public Determinizer(int viewerSeat, int ownHand, int ownPileCards, int[] seenHands, int[] handCounts,
+                        int pileCardCount, int pilePlayCount, int lastPlayCount, int lastPlaySeat,
+                        Card.Rank lastDeclaredRank, int ownLastPlayMask, int currentSeat, int roundNumber) {
+        this.viewerSeat = viewerSeat;
+        this.ownHand = ownHand;
+        this.ownPileCards = ownPileCards;
+        this.seenHands = seenHands.clone();
+        this.handCounts = handCounts.clone();
+        this.pileCardCount = pileCardCount;
+        this.pilePlayCount = pilePlayCount;
+        this.lastPlayCount = lastPlayCount;
+        this.lastPlaySeat = lastPlaySeat;
+        this.lastDeclaredRank = lastDeclaredRank;
+        this.ownLastPlayMask = ownLastPlayMask;
+        this.currentSeat = currentSeat;
+        this.roundNumber = roundNumber;
+        this.honestyPrior = 0.85;
+    }
+
+    /**
+     * Create a determinizer from what a seat can see of a game
+     */
+    public static Determinizer fromView(GameView view) {
+        int[] seenHands = new int[view.getPlayerCount()];
+        int[] handCounts = new int[view.getPlayerCount()];
+        for (int i = 0; i < handCounts.length; i++) {
+            seenHands[i] = view.getSeenInHand(i);
+            handCounts[i] = view.getCardCount(i);
+        }
+
+        return new Determinizer(view.getSeat(), view.getHand().getMask(), view.getOwnPileCards(), seenHands,
+                handCounts, view.getPileCardCount(), view.getPilePlayCount(), view.getLastPlayCardCount(),
+                view.getLastPlaySeat(), view.getLastDeclaredRank(), view.getOwnLastPlayMask(),
+                view.getCurrentSeat(), view.getRoundNumber());
+    }
+
+    /**
+     * Get the seat whose knowledge is used
+     */
+    public int getViewerSeat() {
+        return viewerSeat;
+    }
+
+    /**
+     * Set the chance that a sampled last play by another seat matches its declaration
+     */
+    public void setHonestyPrior(double honestyPrior) {
+        this.honestyPrior = honestyPrior;
+    }
+
+    /**
+     * Sample one complete position that agrees with the viewer's knowledge
+     */
+    public GameState sample(SplittableRandom random) {
+        // List the cards the viewer cannot place
+        int unknown = CardSet.ALL_MASK & ~ownHand & ~ownPileCards;
+        for (int seat = 0; seat < seenHands.length; seat++) {
+            unknown &= ~seenHands[seat];
+        }
+
+        // Decide whether the other seat's last play was honest
+        int lastPlayMask = ownLastPlayMask;
+        boolean otherLastPlay = lastPlaySeat >= 0 && lastPlaySeat != viewerSeat;
+        if (otherLastPlay) {
+            int candidates = unknown & CardSet.rankMask(lastDeclaredRank);
+            if (Integer.bitCount(candidates) >= lastPlayCount && random.nextDouble() < honestyPrior) {
+                // Take random cards of the declared rank
+                for (int i = 0; i < lastPlayCount; i++) {
+                    int skip = random.nextInt(Integer.bitCount(candidates));
+                    int bits = candidates;
+                    for (int j = 0; j < skip; j++) {
+                        bits &= bits - 1;
+                    }
+                    int bit = Integer.lowestOneBit(bits);
+                    lastPlayMask |= bit;
+                    candidates &= ~bit;
+                }
+                unknown &= ~lastPlayMask;
+            }
+        }
+        int[] cards = new int[Integer.bitCount(unknown)];
+        int cardCount = 0;
+        while (unknown != 0) {
+            cards[cardCount] = Integer.numberOfTrailingZeros(unknown);
+            cardCount++;
+            unknown &= unknown - 1;
+        }
+
+        // Shuffle them (Fisher-Yates)
+        for (int i = cardCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = cards[i];
+            cards[i] = cards[j];
+            cards[j] = temp;
+        }
+
+        // Deal the shuffled cards out in order
+        int next = 0;
+
+        int otherPileCards = pileCardCount - Integer.bitCount(ownPileCards);
+        if (otherLastPlay) {
+            // Fill the last play from the shuffled cards unless it was already chosen
+            if (lastPlayMask == 0) {
+                for (int i = 0; i < lastPlayCount; i++) {
+                    lastPlayMask |= 1 << cards[next++];
+                }
+            }
+            otherPileCards -= lastPlayCount;
+        }
+
+        int pileMask = ownPileCards | lastPlayMask;
+        for (int i = 0; i < otherPileCards; i++) {
+            pileMask |= 1 << cards[next++];
+        }
+
+        int[] hands = new int[handCounts.length];
+        for (int seat = 0; seat < hands.length; seat++) {
+            if (seat == viewerSeat) {
+                hands[seat] = ownHand;
+            } else {
+                hands[seat] = seenHands[seat];
+                for (int i = Integer.bitCount(seenHands[seat]); i < handCounts[seat]; i++) {
+                    hands[seat] |= 1 << cards[next++];
+                }
+            }
+        }
+
+        return new GameState(hands, pileMask, pilePlayCount, lastPlayMask, lastPlaySeat,
+                lastDeclaredRank, currentSeat, roundNumber);
+    }
+}
@@ -0,0 +1,120 @@
+package ai;
+
+import model.Move;
+
+/**
+ * Outcome of an EndgameSolver search, from the view of the seat to move
+ */
+public class EndgameResult {
+
+    private int seat;      // Seat to move
+    private int score;     // Score for that seat (see EndgameSolver)
+    private Move bestMove; // Best move found
+    private int depth;     // Deepest search completed, in moves
+    private long nodes;    // Positions visited in every iteration
+    private long nanos;    // Time spent
+
+    EndgameResult(int seat, int score, Move bestMove, int depth, long nodes, long nanos) {
+        this.seat = seat;
+        this.score = score;
+        this.bestMove = bestMove;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Get the seat to move
+     */
+    public int getSeat() {
+        return seat;
+    }
+
+    /**
+     * Get the score for the seat to move
+     * Proven wins and losses are beyond +-EndgameSolver.PROVEN; other scores are
+     * an estimate from card counts at the search horizon
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Get the best move for the seat to move
+     */
+    public Move getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * Get the deepest search completed, in moves
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Check if the result is proven (the winner cannot be stopped whatever the loser does)
+     */
+    public boolean isProven() {
+        return Math.abs(score) >= EndgameSolver.PROVEN;
+    }
+
+    /**
+     * Get the seat that wins with best play
+     * @return The winning seat, or -1 if not proven within the depth searched
+     */
+    public int getWinnerSeat() {
+        if (score >= EndgameSolver.PROVEN) {
+            return seat;
+        } else if (score <= -EndgameSolver.PROVEN) {
+            return 1 - seat;
+        }
+        return -1;
+    }
+
+    /**
+     * Get the number of moves in which the proven winner can empty their hand
+     * (results from the table can prove a longer win than the shortest)
+     * @return The number of moves, or -1 if not proven
+     */
+    public int getMovesToEnd() {
+        if (!isProven()) {
+            return -1;
+        }
+        return EndgameSolver.WIN - Math.abs(score);
+    }
+
+    /**
+     * Get the number of positions visited
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Get the time spent in nanoseconds
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Get the number of positions visited per second
+     */
+    public double getNodesPerSecond() {
+        return nanos == 0 ? 0 : nodes * 1e9 / nanos;
+    }
+
+    // Get a string representation of the result
+    public String toString() {
+        String outcome;
+        if (isProven()) {
+            outcome = "seat " + getWinnerSeat() + " wins in " + getMovesToEnd() + " moves";
+        } else {
+            outcome = "score " + score;
+        }
+        return String.format("Depth %d: %s, best %s (%d nodes in %.1f ms, %.0f nodes/s)",
+                depth, outcome, bestMove, nodes, nanos / 1e6, getNodesPerSecond());
+    }
+}
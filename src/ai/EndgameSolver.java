@@ -0,0 +1,380 @@
+package ai;
+
+import model.Card;
+import model.CardSet;
+import model.GameState;
+import model.SuitSymmetry;
+
+import java.util.SplittableRandom;
+
+/**
+ * Searches a fully known 2-seat position for the best move and, when the game can
+ * be forced, for its winner
+ * Uses negamax with alpha-beta pruning and iterative deepening: depth 1, 2, ...
+ * until a result is proven, the depth limit is reached or time runs out, with each
+ * iteration ordering moves by the best moves the last one stored in the
+ * transposition table. With every card known, only ranks matter, so each rank
+ * count of 1-4 cards is played once, either honestly (if it is all one rank) or
+ * as a bluff. Positions are stored by their rank counts (SuitSymmetry), so
+ * positions that differ only by suits share one table entry. A solver is used by
+ * one thread at a time; solvers on other threads may share one TranspositionTable
+ * Scores are for the seat to move: WIN - n when it empties its hand n moves from
+ * now whatever the other seat does, -(WIN - n) when it cannot stop the other seat
+ * from doing so, and otherwise CARD_SCORE times how many more cards the other
+ * seat holds at the search horizon
+ */
+public class EndgameSolver {
+
+    // Score of an immediate win
+    public static final int WIN = 30000;
+
+    // Deepest search, in moves
+    public static final int MAX_DEPTH = 100;
+
+    // Scores at least this far from 0 are proven wins or losses
+    public static final int PROVEN = WIN - MAX_DEPTH;
+
+    // Score of holding one card fewer than the other seat at the horizon
+    private static final int CARD_SCORE = 10;
+
+    // More than the moves of any hand: 209 rank counts of 1-4 cards, 24 of them also honest, and a challenge
+    private static final int MAX_MOVES = 256;
+
+    // Nodes between checks of the clock
+    private static final int CLOCK_INTERVAL = 4096;
+
+    private static final int INFINITY = WIN + 1;
+    private static final Card.Rank[] RANKS = Card.Rank.values();
+    private static final int[] RANK_MASKS = new int[RANKS.length];
+
+    // Zobrist keys: for each place and byte of a card mask, the XOR of the keys of the cards in it
+    private static final int MINE = 0;
+    private static final int THEIRS = 1;
+    private static final int PILE = 2;
+    private static final int LAST = 3;
+    private static final long[] KEYS = new long[4 * 3 * 256];
+    private static final long HONEST_KEY;
+
+    static {
+        for (int r = 0; r < RANKS.length; r++) {
+            RANK_MASKS[r] = CardSet.rankMask(RANKS[r]);
+        }
+
+        // Fixed seed, so keys are the same in every run
+        SplittableRandom random = new SplittableRandom(0x2C9277B5L);
+        for (int place = 0; place < 4; place++) {
+            long[] cardKeys = new long[Card.COUNT];
+            for (int card = 0; card < Card.COUNT; card++) {
+                cardKeys[card] = random.nextLong();
+            }
+            for (int chunk = 0; chunk < 3; chunk++) {
+                for (int bits = 0; bits < 256; bits++) {
+                    long key = 0;
+                    for (int bit = 0; bit < 8; bit++) {
+                        if ((bits & (1 << bit)) != 0) {
+                            key ^= cardKeys[chunk * 8 + bit];
+                        }
+                    }
+                    KEYS[(place * 3 + chunk) * 256 + bits] = key;
+                }
+            }
+        }
+        HONEST_KEY = random.nextLong();
+    }
+
+    private TranspositionTable table; // Results of positions already searched
+    private int[][] moves;            // Reused move list of each ply
+    private long nodes;               // Positions visited in this solve
+    private boolean timed;            // Whether the deadline applies yet
+    private long deadlineNanos;       // System.nanoTime() value at which to stop
+    private boolean aborted;          // Whether the current iteration ran out of time
+    private int rootBest;             // Best move found at the root in the current iteration
+    private int[] places;             // Reused masks of a position, put in rank-count form to key it
+
+    /**
+     * Create a solver with its own table of 2^20 entries (16 MB)
+     */
+    public EndgameSolver() {
+        this(new TranspositionTable(20));
+    }
+
+    /**
+     * Create a solver that uses a table, which may be shared with solvers on other threads
+     */
+    public EndgameSolver(TranspositionTable table) {
+        this.table = table;
+        this.moves = new int[MAX_DEPTH + 1][MAX_MOVES];
+        this.places = new int[4];
+    }
+
+    /**
+     * Get the table of the solver
+     */
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Search a position
+     * @param state A 2-seat game that is not over
+     * @param maxDepth Deepest search, in moves (1-MAX_DEPTH)
+     * @param timeLimitMillis Time after which no new iteration is finished (depth 1 always is)
+     * @return The result of the deepest iteration completed
+     */
+    public EndgameResult solve(GameState state, int maxDepth, long timeLimitMillis) {
+        if (state.getPlayerCount() != 2) {
+            throw new IllegalArgumentException("The endgame solver needs a 2-seat game!");
+        }
+        if (state.isGameOver()) {
+            throw new IllegalArgumentException("The game is already over!");
+        }
+        if (maxDepth < 1 || maxDepth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Search depth must be 1-" + MAX_DEPTH + "!");
+        }
+
+        long start = System.nanoTime();
+        int seat = state.getCurrentSeat();
+        int mine = state.getHand(seat);
+        int theirs = state.getHand(1 - seat);
+        int last = state.hasLastPlay() && state.getLastPlaySeat() != seat ? state.getLastPlayMask() : 0;
+        boolean honest = state.lastPlayMatchesDeclaration();
+
+        nodes = 0;
+        timed = false;
+        deadlineNanos = start + timeLimitMillis * 1000000L;
+        aborted = false;
+
+        int bestScore = 0;
+        int bestMove = 0;
+        int completed = 0;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            rootBest = 0;
+            int score = search(mine, theirs, state.getPileMask(), last, honest, depth, 0, -INFINITY, INFINITY);
+            if (aborted) {
+                break;
+            }
+            bestScore = score;
+            bestMove = rootBest;
+            completed = depth;
+            timed = true;
+
+            // Nothing deeper can change a proven result
+            if (Math.abs(score) >= PROVEN) {
+                break;
+            }
+        }
+
+        return new EndgameResult(seat, bestScore, MoveCodes.toMove(bestMove), completed, nodes,
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Search a position to a depth
+     * @param mine Hand of the seat to move
+     * @param theirs Hand of the other seat
+     * @param pile Every card in the pile
+     * @param last Cards of the other seat's play that can be challenged (0 if none)
+     * @param honest Whether that play matches its declared rank
+     * @return The score for the seat to move, within alpha and beta unless it is outside them
+     */
+    private int search(int mine, int theirs, int pile, int last, boolean honest,
+                       int depth, int ply, int alpha, int beta) {
+        nodes++;
+        if (timed && (nodes & (CLOCK_INTERVAL - 1)) == 0 && System.nanoTime() - deadlineNanos >= 0) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+
+        // The other seat's play emptied its hand
+        if (theirs == 0) {
+            return -(WIN - ply);
+        }
+        if (depth == 0) {
+            return (Integer.bitCount(theirs) - Integer.bitCount(mine)) * CARD_SCORE;
+        }
+
+        // Use what the table knows (the root always searches, to find its best move)
+        places[0] = mine;
+        places[1] = theirs;
+        places[2] = pile & ~last;
+        places[3] = last;
+        SuitSymmetry.canonicalizeByRank(places);
+        long key = keyOf(MINE, places[0]) ^ keyOf(THEIRS, places[1]) ^ keyOf(PILE, places[2])
+                ^ keyOf(LAST, places[3]) ^ (last != 0 && honest ? HONEST_KEY : 0);
+        long entry = table.probe(key);
+        int tableMove = 0;
+        if (entry != 0) {
+            tableMove = TranspositionTable.moveOf(entry);
+            if (!MoveCodes.isChallenge(tableMove)) {
+                // The entry may be from a position with other suits: play the same ranks from this hand
+                tableMove = MoveCodes.play(SuitSymmetry.regroup(MoveCodes.cardMask(tableMove), mine),
+                        MoveCodes.declaredRank(tableMove));
+            }
+            if (ply > 0 && TranspositionTable.depthOf(entry) >= depth) {
+                int score = fromTable(TranspositionTable.scoreOf(entry), ply);
+                int bound = TranspositionTable.boundOf(entry);
+                if (bound == TranspositionTable.EXACT
+                        || bound == TranspositionTable.LOWER && score >= beta
+                        || bound == TranspositionTable.UPPER && score <= alpha) {
+                    return score;
+                }
+            }
+        }
+
+        int[] list = moves[ply];
+        int count = generate(mine, last, honest, list);
+
+        // Try the table's best move first
+        if (tableMove != 0) {
+            for (int i = 1; i < count; i++) {
+                if (list[i] == tableMove) {
+                    list[i] = list[0];
+                    list[0] = tableMove;
+                    break;
+                }
+            }
+        }
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = 0;
+        for (int i = 0; i < count; i++) {
+            int code = list[i];
+            int score;
+            if (MoveCodes.isChallenge(code)) {
+                if (honest) {
+                    // The challenger takes the pile and moves again
+                    score = search(mine | pile, theirs, 0, 0, false, depth - 1, ply + 1, alpha, beta);
+                } else {
+                    // The bluffer takes the pile and moves next
+                    score = -search(theirs | pile, mine, 0, 0, false, depth - 1, ply + 1, -beta, -alpha);
+                }
+            } else {
+                int group = MoveCodes.cardMask(code);
+                boolean playHonest = (group & ~RANK_MASKS[(code >>> 24) & 7]) == 0;
+                score = -search(theirs, mine & ~group, pile | group, group, playHonest,
+                        depth - 1, ply + 1, -beta, -alpha);
+            }
+            if (aborted) {
+                return 0;
+            }
+
+            if (score > best) {
+                best = score;
+                bestMove = code;
+                if (score > alpha) {
+                    alpha = score;
+                    if (ply == 0) {
+                        rootBest = code;
+                    }
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound;
+        if (best <= originalAlpha) {
+            bound = TranspositionTable.UPPER;
+        } else if (best >= beta) {
+            bound = TranspositionTable.LOWER;
+        } else {
+            bound = TranspositionTable.EXACT;
+        }
+        table.store(key, bestMove, toTable(best, ply), depth, bound);
+        return best;
+    }
+
+    /**
+     * Write the moves of the seat to move into a list, most promising first
+     * @return Number of moves written
+     */
+    private static int generate(int hand, int last, boolean honest, int[] list) {
+        int count = 0;
+
+        // A challenge of a bluff is tried first, of an honest play last
+        if (last != 0 && !honest) {
+            list[count++] = MoveCodes.CHALLENGE;
+        }
+        count = addGroups(hand, 0, 0, 0, list, count);
+        if (last != 0 && honest) {
+            list[count++] = MoveCodes.CHALLENGE;
+        }
+        return count;
+    }
+
+    /**
+     * Add a play for every way to choose how many cards of each rank from this one on
+     * @param group Cards chosen from the ranks before
+     * @param size Number of cards in the group
+     */
+    private static int addGroups(int hand, int rank, int group, int size, int[] list, int count) {
+        if (rank == RANKS.length) {
+            if (size == 0) {
+                return count;
+            }
+            // Declare the lowest rank in the group, so the same ranks give the same move whatever their suits
+            int lowestRank = 0;
+            while ((group & RANK_MASKS[lowestRank]) == 0) {
+                lowestRank++;
+            }
+            list[count++] = MoveCodes.play(group, RANKS[lowestRank]);
+            if ((group & ~RANK_MASKS[lowestRank]) == 0) {
+                // All one rank, so the play above was honest: also declare it as another rank
+                list[count++] = MoveCodes.play(group, RANKS[(lowestRank + 1) % RANKS.length]);
+            }
+            return count;
+        }
+
+        // Larger groups first, as they empty the hand sooner
+        int cards = hand & RANK_MASKS[rank];
+        int most = Math.min(Integer.bitCount(cards), GameState.MAX_PLAY_SIZE - size);
+        for (int take = most; take >= 0; take--) {
+            int taken = 0;
+            int rest = cards;
+            for (int i = 0; i < take; i++) {
+                taken |= Integer.lowestOneBit(rest);
+                rest &= rest - 1;
+            }
+            count = addGroups(hand, rank + 1, group | taken, size + take, list, count);
+        }
+        return count;
+    }
+
+    /**
+     * Get the Zobrist key of a card mask for one place of a position
+     */
+    private static long keyOf(int place, int mask) {
+        int base = place * 3 * 256;
+        return KEYS[base + (mask & 255)]
+                ^ KEYS[base + 256 + ((mask >>> 8) & 255)]
+                ^ KEYS[base + 512 + ((mask >>> 16) & 255)];
+    }
+
+    /**
+     * Make a proven score count moves from the stored position rather than from the root
+     */
+    private static int toTable(int score, int ply) {
+        if (score >= PROVEN) {
+            return score + ply;
+        } else if (score <= -PROVEN) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Make a proven score from the table count moves from the root again
+     */
+    private static int fromTable(int score, int ply) {
+        if (score >= PROVEN) {
+            return score - ply;
+        } else if (score <= -PROVEN) {
+            return score + ply;
+        }
+        return score;
+    }
+}
@@ -0,0 +1,79 @@
+package ai;
+
+/**
+ * Node of a search tree; its children are the moves of the searching seat
+ */
+class MctsNode {
+
+    private int[] moveCodes;      // Move leading to each child
+    private MctsNode[] children;  // Child nodes
+    private int childCount;       // Number of children
+
+    int visits;          // Times this node was selected
+    double totalReward;  // Sum of rewards seen through this node
+    int availability;    // Times this node's move was legal when its parent was visited
+
+    /**
+     * Create a node with no children
+     */
+    MctsNode() {
+        this.moveCodes = new int[4];
+        this.children = new MctsNode[4];
+        this.childCount = 0;
+    }
+
+    /**
+     * Find the child reached by a move
+     * @return The child, or null if the move has not been tried
+     */
+    MctsNode findChild(int moveCode) {
+        for (int i = 0; i < childCount; i++) {
+            if (moveCodes[i] == moveCode) {
+                return children[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Add a child for a move
+     */
+    MctsNode addChild(int moveCode) {
+        // Make room if the arrays are full
+        if (childCount == children.length) {
+            int[] biggerCodes = new int[childCount * 2];
+            MctsNode[] biggerChildren = new MctsNode[childCount * 2];
+            System.arraycopy(moveCodes, 0, biggerCodes, 0, childCount);
+            System.arraycopy(children, 0, biggerChildren, 0, childCount);
+            moveCodes = biggerCodes;
+            children = biggerChildren;
+        }
+
+        MctsNode child = new MctsNode();
+        moveCodes[childCount] = moveCode;
+        children[childCount] = child;
+        childCount++;
+        return child;
+    }
+
+    /**
+     * Get the number of children
+     */
+    int getChildCount() {
+        return childCount;
+    }
+
+    /**
+     * Get the move leading to a child
+     */
+    int getMoveCode(int index) {
+        return moveCodes[index];
+    }
+
+    /**
+     * Get a child by position
+     */
+    MctsNode getChild(int index) {
+        return children[index];
+    }
+}
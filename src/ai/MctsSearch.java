@@ -0,0 +1,170 @@
+package ai;
+
+import model.GameState;
+
+import java.util.SplittableRandom;
+
+/**
+ * One information-set Monte Carlo tree search, run by a single thread
+ * Every iteration samples a new position from the searching seat's knowledge,
+ * walks the tree of that seat's moves (other seats move by the rollout policy),
+ * adds one node, finishes the game with the rollout policy and records the result
+ */
+class MctsSearch {
+
+    private Determinizer determinizer; // Samples positions the seat cannot tell apart
+    private RolloutPolicy policy;      // Moves for other seats and for rollouts
+    private double exploration;        // UCB exploration constant
+    private int maxRolloutMoves;       // Moves after which a rollout is scored by card counts
+    private SplittableRandom random;   // Random source owned by this search
+    private int rootSeat;              // Seat doing the search
+    private MctsNode root;             // Root of the tree
+    private int[] moveBuffer;          // Reused list of candidate moves
+    private MctsNode[] path;           // Reused list of nodes visited in one iteration
+    private int iterations;            // Iterations completed
+
+    MctsSearch(Determinizer determinizer, RolloutPolicy policy, double exploration,
+               int maxRolloutMoves, SplittableRandom random) {
+        this.determinizer = determinizer;
+        this.policy = policy;
+        this.exploration = exploration;
+        this.maxRolloutMoves = maxRolloutMoves;
+        this.random = random;
+        this.rootSeat = determinizer.getViewerSeat();
+        this.root = new MctsNode();
+        this.moveBuffer = new int[MoveGenerator.MAX_MOVES];
+        this.path = new MctsNode[64];
+        this.iterations = 0;
+    }
+
+    /**
+     * Run iterations until the iteration limit or the deadline is reached
+     * @param maxIterations Iterations to run at most
+     * @param deadlineNanos System.nanoTime() value at which to stop
+     * @return The root of the tree
+     */
+    MctsNode run(int maxIterations, long deadlineNanos) {
+        while (iterations < maxIterations) {
+            // Checking the clock every few iterations keeps it off the hot path
+            if ((iterations & 15) == 0 && System.nanoTime() >= deadlineNanos) {
+                break;
+            }
+            iterate();
+            iterations++;
+        }
+        return root;
+    }
+
+    /**
+     * Get the number of iterations completed
+     */
+    int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Run one iteration
+     */
+    private void iterate() {
+        GameState state = determinizer.sample(random);
+        MctsNode node = root;
+        int pathLength = 0;
+        path[pathLength++] = root;
+        int moves = 0;
+
+        // Selection and expansion
+        while (!state.isGameOver() && moves < maxRolloutMoves) {
+            if (state.getCurrentSeat() != rootSeat) {
+                state = MoveCodes.apply(state, policy.chooseMove(state, random));
+                moves++;
+                continue;
+            }
+
+            // Stop growing the tree once the path is full
+            if (pathLength == path.length) {
+                break;
+            }
+
+            int moveCount = MoveGenerator.generate(state, moveBuffer);
+
+            // Count availability and look for an untried move
+            int untriedCode = 0;
+            int untriedSeen = 0;
+            for (int i = 0; i < moveCount; i++) {
+                MctsNode child = node.findChild(moveBuffer[i]);
+                if (child == null) {
+                    // Pick one untried move uniformly (reservoir sampling)
+                    untriedSeen++;
+                    if (random.nextInt(untriedSeen) == 0) {
+                        untriedCode = moveBuffer[i];
+                    }
+                } else {
+                    child.availability++;
+                }
+            }
+
+            if (untriedSeen > 0) {
+                // Expand one new node and stop descending
+                node = node.addChild(untriedCode);
+                node.availability++;
+                state = MoveCodes.apply(state, untriedCode);
+                moves++;
+                path[pathLength++] = node;
+                break;
+            }
+
+            // Every move has been tried: pick the best by UCB
+            int bestCode = moveBuffer[0];
+            MctsNode bestChild = null;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < moveCount; i++) {
+                MctsNode child = node.findChild(moveBuffer[i]);
+                double score = child.totalReward / child.visits
+                        + exploration * Math.sqrt(Math.log(child.availability) / child.visits);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestChild = child;
+                    bestCode = moveBuffer[i];
+                }
+            }
+
+            node = bestChild;
+            state = MoveCodes.apply(state, bestCode);
+            moves++;
+            path[pathLength++] = node;
+        }
+
+        // Rollout
+        while (!state.isGameOver() && moves < maxRolloutMoves) {
+            state = MoveCodes.apply(state, policy.chooseMove(state, random));
+            moves++;
+        }
+
+        // Backpropagation
+        double reward = score(state);
+        for (int i = 0; i < pathLength; i++) {
+            path[i].visits++;
+            path[i].totalReward += reward;
+        }
+    }
+
+    /**
+     * Score a position for the searching seat (1 for a win, 0 for a loss)
+     * Unfinished games score by how close the seat is to emptying its hand first
+     */
+    private double score(GameState state) {
+        int winner = state.getWinnerSeat();
+        if (winner >= 0) {
+            return winner == rootSeat ? 1.0 : 0.0;
+        }
+
+        int ownCards = state.getCardCount(rootSeat);
+        int fewestOther = Integer.MAX_VALUE;
+        for (int seat = 0; seat < state.getPlayerCount(); seat++) {
+            if (seat != rootSeat) {
+                fewestOther = Math.min(fewestOther, state.getCardCount(seat));
+            }
+        }
+        return (double) fewestOther / (ownCards + fewestOther);
+    }
+}
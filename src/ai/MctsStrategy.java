@@ -0,0 +1,150 @@
+package ai;
+
+import model.GameState;
+import model.GameView;
+import model.Move;
+import simulation.Strategy;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Automated player using information-set Monte Carlo tree search
+ * Each move runs several independent searches in parallel on a fork-join pool
+ * (root parallelisation) and plays the move the searches visited most in total
+ */
+public class MctsStrategy implements Strategy {
+
+    private ForkJoinPool pool;      // Pool the searches run on
+    private int workers;            // Number of independent searches per move
+    private int iterationsPerMove;  // Iterations per move, shared between the searches
+    private long timeLimitNanos;    // Time allowed per move
+    private double exploration;     // UCB exploration constant
+    private int maxRolloutMoves;    // Moves after which a rollout is scored by card counts
+    private RolloutPolicy policy;   // Moves for other seats and rollouts
+
+    /**
+     * Create a search player on the common pool, one search per core
+     * @param iterationsPerMove Iterations allowed per move
+     * @param timeLimitMillis Time allowed per move in milliseconds
+     */
+    public MctsStrategy(int iterationsPerMove, long timeLimitMillis) {
+        this(ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors(),
+                iterationsPerMove, timeLimitMillis);
+    }
+
+    /**
+     * Create a search player
+     * @param pool Pool the searches run on
+     * @param workers Number of independent searches per move
+     * @param iterationsPerMove Iterations allowed per move (shared between the searches)
+     * @param timeLimitMillis Time allowed per move in milliseconds
+     */
+    public MctsStrategy(ForkJoinPool pool, int workers, int iterationsPerMove, long timeLimitMillis) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("At least one search is needed!");
+        }
+
+        this.pool = pool;
+        this.workers = workers;
+        this.iterationsPerMove = iterationsPerMove;
+        this.timeLimitNanos = timeLimitMillis * 1000000L;
+        this.exploration = 0.7;
+        this.maxRolloutMoves = 300;
+        this.policy = new RolloutPolicy(0.1, 0.15);
+    }
+
+    public Move chooseMove(GameView view, SplittableRandom random) {
+        Determinizer determinizer = Determinizer.fromView(view);
+        return MoveCodes.toMove(search(determinizer, random));
+    }
+
+    /**
+     * Search for the best move
+     * @param determinizer What the searching seat knows
+     * @param random Random source the searches' own sources are split from
+     * @return The code of the chosen move
+     */
+    public int search(Determinizer determinizer, SplittableRandom random) {
+        // No need to search if there is only one move
+        GameState sample = determinizer.sample(random);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int moveCount = MoveGenerator.generate(sample, moves);
+        if (moveCount == 1) {
+            return moves[0];
+        }
+
+        // Give each search its own random source and share of the iterations
+        long deadline = System.nanoTime() + timeLimitNanos;
+        int perWorker = (iterationsPerMove + workers - 1) / workers;
+        SearchTask[] tasks = new SearchTask[workers];
+        for (int i = 0; i < workers; i++) {
+            MctsSearch search = new MctsSearch(determinizer, policy, exploration, maxRolloutMoves, random.split());
+            tasks[i] = new SearchTask(search, perWorker, deadline);
+        }
+        pool.invoke(new RootParallelTask(tasks));
+
+        // Add up the visits of each root move across the searches
+        int[] visits = new int[moveCount];
+        for (int t = 0; t < tasks.length; t++) {
+            MctsNode root = tasks[t].getRawResult();
+            for (int c = 0; c < root.getChildCount(); c++) {
+                int code = root.getMoveCode(c);
+                for (int m = 0; m < moveCount; m++) {
+                    if (moves[m] == code) {
+                        visits[m] += root.getChild(c).visits;
+                        break;
+                    }
+                }
+            }
+        }
+
+        int best = 0;
+        for (int m = 1; m < moveCount; m++) {
+            if (visits[m] > visits[best]) {
+                best = m;
+            }
+        }
+        return moves[best];
+    }
+
+    public String getName() {
+        return "MCTS";
+    }
+
+    /**
+     * Task that runs one search
+     */
+    private static class SearchTask extends RecursiveTask<MctsNode> {
+        private MctsSearch search;
+        private int iterations;
+        private long deadline;
+
+        SearchTask(MctsSearch search, int iterations, long deadline) {
+            this.search = search;
+            this.iterations = iterations;
+            this.deadline = deadline;
+        }
+
+        protected MctsNode compute() {
+            return search.run(iterations, deadline);
+        }
+    }
+
+    /**
+     * Task that runs all searches at once and waits for them
+     */
+    private static class RootParallelTask extends RecursiveTask<Void> {
+        private SearchTask[] tasks;
+
+        RootParallelTask(SearchTask[] tasks) {
+            this.tasks = tasks;
+        }
+
+        protected Void compute() {
+            invokeAll(tasks);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ai;
+
+import model.Card;
+import model.GameState;
+import model.Move;
+
+/**
+ * Packs moves into ints so search code can store and compare them without allocating
+ * Bits 0-23 hold the card mask, bits 24-26 the declared rank and bit 27 marks a challenge
+ */
+public class MoveCodes {
+
+    // Code of the challenge move
+    public static final int CHALLENGE = 1 << 27;
+
+    private static final int MASK_BITS = 0xFFFFFF;
+    private static final Card.Rank[] RANKS = Card.Rank.values();
+
+    /**
+     * Get the code of a play
+     */
+    public static int play(int cardMask, Card.Rank declaredRank) {
+        return cardMask | (declaredRank.ordinal() << 24);
+    }
+
+    /**
+     * Check if a code is the challenge move
+     */
+    public static boolean isChallenge(int code) {
+        return code == CHALLENGE;
+    }
+
+    /**
+     * Get the cards of a play code
+     */
+    public static int cardMask(int code) {
+        return code & MASK_BITS;
+    }
+
+    /**
+     * Get the declared rank of a play code
+     */
+    public static Card.Rank declaredRank(int code) {
+        return RANKS[(code >>> 24) & 7];
+    }
+
+    /**
+     * Get the state after the current seat makes a move
+     */
+    public static GameState apply(GameState state, int code) {
+        if (isChallenge(code)) {
+            return state.challenge();
+        } else {
+            return state.play(cardMask(code), declaredRank(code));
+        }
+    }
+
+    /**
+     * Turn a code back into a Move
+     */
+    public static Move toMove(int code) {
+        if (isChallenge(code)) {
+            return Move.challenge();
+        } else {
+            return Move.play(cardMask(code), declaredRank(code));
+        }
+    }
+
+    /**
+     * Get the code of a Move
+     */
+    public static int fromMove(Move move) {
+        if (move.isChallenge()) {
+            return CHALLENGE;
+        } else {
+            return play(move.getCardMask(), move.getDeclaredRank());
+        }
+    }
+}
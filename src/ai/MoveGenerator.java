@@ -0,0 +1,66 @@
+package ai;
+
+import model.Card;
+import model.CardSet;
+import model.GameState;
+
+/**
+ * Lists the moves a search considers for the seat to move
+ * Suits never matter, so for each rank and size only one group of cards is tried.
+ * Every group may be played honestly; groups of up to MAX_BLUFF_SIZE cards may also be
+ * declared as another rank the seat holds (claims of ranks it holds are harder to disprove)
+ */
+public class MoveGenerator {
+
+    // Largest number of cards in a bluff the search considers
+    private static final int MAX_BLUFF_SIZE = 2;
+
+    // Largest number of moves generate() can return
+    public static final int MAX_MOVES = 1 + 6 * GameState.MAX_PLAY_SIZE + 6 * MAX_BLUFF_SIZE * 5;
+
+    private static final Card.Rank[] RANKS = Card.Rank.values();
+
+    /**
+     * Write the candidate moves for the current seat into an array
+     * @param state The position
+     * @param moves Array with room for MAX_MOVES codes
+     * @return Number of moves written
+     */
+    public static int generate(GameState state, int[] moves) {
+        int count = 0;
+
+        if (state.hasLastPlay()) {
+            moves[count] = MoveCodes.CHALLENGE;
+            count++;
+        }
+
+        int hand = state.getHand(state.getCurrentSeat());
+        for (int r = 0; r < RANKS.length; r++) {
+            int rankCards = hand & CardSet.rankMask(RANKS[r]);
+
+            // Grow the group one card at a time (lowest index first)
+            int group = 0;
+            for (int size = 1; size <= GameState.MAX_PLAY_SIZE && rankCards != 0; size++) {
+                group |= Integer.lowestOneBit(rankCards);
+                rankCards &= rankCards - 1;
+
+                // Honest play
+                moves[count] = MoveCodes.play(group, RANKS[r]);
+                count++;
+
+                // Bluffs
+                if (size > MAX_BLUFF_SIZE) {
+                    continue;
+                }
+                for (int declared = 0; declared < RANKS.length; declared++) {
+                    if (declared != r && (hand & CardSet.rankMask(RANKS[declared])) != 0) {
+                        moves[count] = MoveCodes.play(group, RANKS[declared]);
+                        count++;
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+}
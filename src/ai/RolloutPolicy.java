@@ -0,0 +1,70 @@
+package ai;
+
+import model.Card;
+import model.CardSet;
+import model.GameState;
+
+import java.util.SplittableRandom;
+
+/**
+ * Fast move choice used to finish games during search
+ * It sees the whole (sampled) position, plays mostly honestly and challenges
+ * impossible claims, with some randomness so rollouts differ
+ */
+public class RolloutPolicy {
+
+    // Number of cards of each rank in the deck (one per suit)
+    private static final int CARDS_PER_RANK = 4;
+
+    private static final Card.Rank[] RANKS = Card.Rank.values();
+
+    private double challengeChance; // Chance of challenging a claim that could be true
+    private double bluffChance;     // Chance of bluffing instead of playing honestly
+
+    /**
+     * Create a rollout policy
+     */
+    public RolloutPolicy(double challengeChance, double bluffChance) {
+        this.challengeChance = challengeChance;
+        this.bluffChance = bluffChance;
+    }
+
+    /**
+     * Choose a move for the current seat
+     * @return The move code
+     */
+    public int chooseMove(GameState state, SplittableRandom random) {
+        int hand = state.getHand(state.getCurrentSeat());
+
+        // Challenge claims that cannot be true, and some others at random
+        if (state.hasLastPlay()) {
+            int claimed = Integer.bitCount(state.getLastPlayMask());
+            int held = Integer.bitCount(hand & CardSet.rankMask(state.getLastDeclaredRank()));
+            if (held + claimed > CARDS_PER_RANK || random.nextDouble() < challengeChance) {
+                return MoveCodes.CHALLENGE;
+            }
+        }
+
+        // Sometimes bluff with one random card
+        if (random.nextDouble() < bluffChance) {
+            int skip = random.nextInt(Integer.bitCount(hand));
+            int bits = hand;
+            for (int i = 0; i < skip; i++) {
+                bits &= bits - 1;
+            }
+            return MoveCodes.play(Integer.lowestOneBit(bits), RANKS[random.nextInt(RANKS.length)]);
+        }
+
+        // Otherwise play every card of the rank held most, honestly
+        int bestRank = 0;
+        int bestCount = -1;
+        for (int r = 0; r < RANKS.length; r++) {
+            int count = Integer.bitCount(hand & CardSet.rankMask(RANKS[r]));
+            if (count > bestCount) {
+                bestRank = r;
+                bestCount = count;
+            }
+        }
+        return MoveCodes.play(hand & CardSet.rankMask(RANKS[bestRank]), RANKS[bestRank]);
+    }
+}
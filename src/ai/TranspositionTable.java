@@ -0,0 +1,118 @@
+package ai;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size table of search results, keyed by 64-bit position hashes, that any
+ * number of searching threads can share without locks
+ * Each entry is two longs: the data and the key XOR the data. Two threads
+ * writing one entry at once can leave halves of different writes, but then the
+ * XOR no longer gives the key back and the entry is treated as missing, so a
+ * reader never sees data that belongs to another position
+ * Data packs the best move code (bits 0-27), the score (bits 28-43), the depth
+ * searched (bits 44-51) and the kind of bound (bits 52-53, never 0 in a stored entry)
+ */
+public class TranspositionTable {
+
+    // Kinds of bound stored with a score
+    public static final int EXACT = 1;
+    public static final int LOWER = 2;
+    public static final int UPPER = 3;
+
+    // Scores are stored with this added so that they fit 16 unsigned bits
+    private static final int SCORE_OFFSET = 32768;
+
+    private AtomicLongArray slots; // Key XOR data, then data, for each entry
+    private int mask;              // Entries - 1 (the entry count is a power of two)
+
+    /**
+     * Create an empty table
+     * @param sizeBits The table holds 2^sizeBits entries of 16 bytes (4-28)
+     */
+    public TranspositionTable(int sizeBits) {
+        if (sizeBits < 4 || sizeBits > 28) {
+            throw new IllegalArgumentException("Table size must be 2^4-2^28 entries!");
+        }
+        this.slots = new AtomicLongArray(2 << sizeBits);
+        this.mask = (1 << sizeBits) - 1;
+    }
+
+    /**
+     * Get the number of entries
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Look up a position
+     * @return The packed data, or 0 if the position is not stored
+     */
+    public long probe(long key) {
+        int index = ((int) key & mask) << 1;
+        long data = slots.get(index + 1);
+        if (data != 0 && (slots.get(index) ^ data) == key) {
+            return data;
+        }
+        return 0;
+    }
+
+    /**
+     * Store a search result, unless the entry holds a deeper result for the same position
+     * @param key Hash of the position
+     * @param moveCode Best move found (a MoveCodes code, 0 if none)
+     * @param score Score of the position (-32768 to 32767)
+     * @param depth Depth searched (0-255)
+     * @param bound EXACT, LOWER or UPPER
+     */
+    public void store(long key, int moveCode, int score, int depth, int bound) {
+        int index = ((int) key & mask) << 1;
+        long old = slots.get(index + 1);
+        if (old != 0 && (slots.get(index) ^ old) == key && depthOf(old) > depth) {
+            return;
+        }
+        long data = (moveCode & 0xFFFFFFFL)
+                | ((long) (score + SCORE_OFFSET) << 28)
+                | ((long) depth << 44)
+                | ((long) bound << 52);
+        slots.lazySet(index, key ^ data);
+        slots.lazySet(index + 1, data);
+    }
+
+    /**
+     * Empty the table (not while another thread is using it)
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.lazySet(i, 0);
+        }
+    }
+
+    /**
+     * Get the best move code of packed data
+     */
+    public static int moveOf(long data) {
+        return (int) (data & 0xFFFFFFF);
+    }
+
+    /**
+     * Get the score of packed data
+     */
+    public static int scoreOf(long data) {
+        return (int) ((data >>> 28) & 0xFFFF) - SCORE_OFFSET;
+    }
+
+    /**
+     * Get the depth of packed data
+     */
+    public static int depthOf(long data) {
+        return (int) ((data >>> 44) & 0xFF);
+    }
+
+    /**
+     * Get the kind of bound of packed data
+     */
+    public static int boundOf(long data) {
+        return (int) ((data >>> 52) & 3);
+    }
+}
@@ -0,0 +1,36 @@
+package benchmark;
+
+/**
+ * One measured operation
+ * The runner calls setUp() once, then operation() many times on the same thread
+ */
+public abstract class Benchmark {
+
+    private String name; // Name shown in the results
+
+    /**
+     * Create a benchmark
+     */
+    protected Benchmark(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get the name shown in the results
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Prepare the state the operation works on
+     */
+    public void setUp() {
+    }
+
+    /**
+     * Run the measured operation once
+     * @return Any value computed by the operation (summed by the runner so it cannot be optimised away)
+     */
+    public abstract long operation();
+}
@@ -0,0 +1,55 @@
+package benchmark;
+
+/**
+ * Measurements of one benchmark
+ */
+public class BenchmarkResult {
+    private String name;               // Benchmark name
+    private double opsPerSecond;       // Mean throughput over the measured iterations
+    private double opsPerSecondError;  // Standard deviation of the throughput
+    private double bytesPerOp;         // Heap allocated per operation (-1 if unavailable)
+
+    /**
+     * Create a benchmark result
+     */
+    public BenchmarkResult(String name, double opsPerSecond, double opsPerSecondError, double bytesPerOp) {
+        this.name = name;
+        this.opsPerSecond = opsPerSecond;
+        this.opsPerSecondError = opsPerSecondError;
+        this.bytesPerOp = bytesPerOp;
+    }
+
+    /**
+     * Get the benchmark name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the mean operations per second
+     */
+    public double getOpsPerSecond() {
+        return opsPerSecond;
+    }
+
+    /**
+     * Get the standard deviation of operations per second across iterations
+     */
+    public double getOpsPerSecondError() {
+        return opsPerSecondError;
+    }
+
+    /**
+     * Get the heap bytes allocated per operation (-1 if the JVM cannot report it)
+     */
+    public double getBytesPerOp() {
+        return bytesPerOp;
+    }
+
+    // Get a printable row of the results table
+    public String toString() {
+        String bytes = bytesPerOp < 0 ? "n/a" : String.format("%.1f", bytesPerOp);
+        return String.format("%-34s %14.0f +- %-12.0f %12s", name, opsPerSecond, opsPerSecondError, bytes);
+    }
+}
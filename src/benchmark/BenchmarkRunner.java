@@ -0,0 +1,246 @@
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs benchmarks with warm-up, then measures throughput and allocation per operation
+ * Allocation is read from the HotSpot per-thread allocation counter, which gives the
+ * same bytes/op figure a gc profiler would report for single-threaded code
+ * Benchmarks run in one JVM share the runner's call of operation(): once three or
+ * more have run, that call is no longer inlined and later results include a virtual
+ * call. runAll(Class) avoids this by running each benchmark in a new JVM (with the
+ * same JVM options), unless -Dbenchmark.fork=false is given
+ */
+public class BenchmarkRunner {
+
+    // Whether runAll(Class) starts a JVM for each benchmark
+    private static final boolean FORK = !"false".equals(System.getProperty("benchmark.fork"));
+
+    // Start of the line on which a forked JVM reports its result
+    private static final String RESULT_PREFIX = "#result ";
+
+    private int warmupIterations;      // Iterations run before measuring
+    private int measurementIterations; // Iterations measured
+    private long iterationNanos;       // Target length of one iteration
+    private long blackhole;            // Sum of operation results (keeps them from being optimised away)
+
+    /**
+     * Create a benchmark runner
+     * @param warmupIterations Iterations run before measuring
+     * @param measurementIterations Iterations measured
+     * @param iterationMillis Target length of one iteration in milliseconds
+     */
+    public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1000000L;
+    }
+
+    /**
+     * Run one benchmark
+     */
+    public BenchmarkResult run(Benchmark benchmark) {
+        benchmark.setUp();
+
+        // Find a batch size that takes about a millisecond, so the clock is read rarely
+        int batch = 1;
+        while (true) {
+            long start = System.nanoTime();
+            runBatch(benchmark, batch);
+            if (System.nanoTime() - start > 1000000L || batch >= (1 << 24)) {
+                break;
+            }
+            batch *= 2;
+        }
+
+        for (int i = 0; i < warmupIterations; i++) {
+            runIteration(benchmark, batch);
+        }
+
+        double[] throughput = new double[measurementIterations];
+        long totalOps = 0;
+        long bytesBefore = allocatedBytes();
+        for (int i = 0; i < measurementIterations; i++) {
+            long[] opsAndNanos = runIteration(benchmark, batch);
+            throughput[i] = opsAndNanos[0] / (opsAndNanos[1] / 1e9);
+            totalOps += opsAndNanos[0];
+        }
+        long bytesAfter = allocatedBytes();
+
+        // Mean and standard deviation of the throughput
+        double mean = 0;
+        for (int i = 0; i < throughput.length; i++) {
+            mean += throughput[i];
+        }
+        mean /= throughput.length;
+        double variance = 0;
+        for (int i = 0; i < throughput.length; i++) {
+            variance += (throughput[i] - mean) * (throughput[i] - mean);
+        }
+        double error = throughput.length > 1 ? Math.sqrt(variance / (throughput.length - 1)) : 0;
+
+        double bytesPerOp = -1;
+        if (bytesBefore >= 0 && bytesAfter >= 0) {
+            bytesPerOp = (double) (bytesAfter - bytesBefore) / totalOps;
+        }
+
+        return new BenchmarkResult(benchmark.getName(), mean, error, bytesPerOp);
+    }
+
+    /**
+     * Run every benchmark of a suite, each in its own JVM unless -Dbenchmark.fork=false,
+     * and print a results table
+     * @param suite Class with a static all() method that returns the benchmarks
+     */
+    public List<BenchmarkResult> runAll(Class<?> suite) {
+        List<Benchmark> benchmarks = benchmarksOf(suite);
+        if (!FORK) {
+            return runAll(benchmarks);
+        }
+
+        List<BenchmarkResult> results = new ArrayList<BenchmarkResult>();
+        System.out.println(String.format("%-34s %30s %12s", "Benchmark", "ops/s", "B/op"));
+        for (int i = 0; i < benchmarks.size(); i++) {
+            BenchmarkResult result = runForked(suite, i, benchmarks.get(i).getName());
+            results.add(result);
+            System.out.println(result);
+        }
+        return results;
+    }
+
+    /**
+     * Run several benchmarks in this JVM and print a results table
+     */
+    public List<BenchmarkResult> runAll(List<Benchmark> benchmarks) {
+        List<BenchmarkResult> results = new ArrayList<BenchmarkResult>();
+        System.out.println(String.format("%-34s %30s %12s", "Benchmark", "ops/s", "B/op"));
+        for (int i = 0; i < benchmarks.size(); i++) {
+            BenchmarkResult result = run(benchmarks.get(i));
+            results.add(result);
+            System.out.println(result);
+        }
+        System.out.println("(blackhole " + blackhole + ")");
+        return results;
+    }
+
+    /**
+     * Run one benchmark of a suite in a new JVM
+     * Lines the JVM prints other than its result are passed through
+     */
+    private BenchmarkResult runForked(Class<?> suite, int index, String name) {
+        List<String> command = new ArrayList<String>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(BenchmarkRunner.class.getName());
+        command.add(suite.getName());
+        command.add(String.valueOf(index));
+        command.add(String.valueOf(warmupIterations));
+        command.add(String.valueOf(measurementIterations));
+        command.add(String.valueOf(iterationNanos / 1000000L));
+
+        BenchmarkResult result = null;
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), "UTF-8"));
+            String line;
+            while ((line = output.readLine()) != null) {
+                if (line.startsWith(RESULT_PREFIX)) {
+                    String[] fields = line.substring(RESULT_PREFIX.length()).split("\t");
+                    result = new BenchmarkResult(name, Double.parseDouble(fields[0]), Double.parseDouble(fields[1]),
+                            Double.parseDouble(fields[2]));
+                } else {
+                    System.out.println(line);
+                }
+            }
+            if (process.waitFor() != 0) {
+                result = null;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start a JVM for " + name + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (result == null) {
+            throw new IllegalStateException("Benchmark " + name + " failed in its JVM!");
+        }
+        return result;
+    }
+
+    /**
+     * Get the benchmarks of a suite from its static all() method
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Benchmark> benchmarksOf(Class<?> suite) {
+        try {
+            return (List<Benchmark>) suite.getMethod("all").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(suite.getName() + " has no benchmarks to run!");
+        }
+    }
+
+    /**
+     * Entry point of a forked JVM: run one benchmark of a suite and print its result
+     * Usage: BenchmarkRunner [suite class] [index] [warm-up iterations] [measured iterations] [milliseconds per iteration]
+     */
+    public static void main(String[] args) throws ClassNotFoundException {
+        Class<?> suite = Class.forName(args[0]);
+        int index = Integer.parseInt(args[1]);
+        BenchmarkRunner runner = new BenchmarkRunner(Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                Long.parseLong(args[4]));
+
+        BenchmarkResult result = runner.run(benchmarksOf(suite).get(index));
+        System.out.println(RESULT_PREFIX + result.getOpsPerSecond() + "\t" + result.getOpsPerSecondError()
+                + "\t" + result.getBytesPerOp() + "\t" + runner.blackhole);
+    }
+
+    /**
+     * Run batches until one iteration's time is used up
+     * @return The number of operations run and the nanoseconds taken
+     */
+    private long[] runIteration(Benchmark benchmark, int batch) {
+        long ops = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            runBatch(benchmark, batch);
+            ops += batch;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        return new long[] {ops, elapsed};
+    }
+
+    /**
+     * Run the operation a number of times
+     */
+    private void runBatch(Benchmark benchmark, int count) {
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += benchmark.operation();
+        }
+        blackhole += sum;
+    }
+
+    /**
+     * Get the bytes allocated so far by the current thread
+     * @return The byte count, or -1 if the JVM does not report it
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) bean;
+            if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+                return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
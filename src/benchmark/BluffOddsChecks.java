@@ -0,0 +1,117 @@
+package benchmark;
+
+import ai.BluffOdds;
+import model.Card;
+import model.CardSet;
+
+/**
+ * Checks of the BluffOdds table against a brute-force count, run next to the AI
+ * benchmarks so that the table lookup is also known to give the exact answer
+ * For every number of unplaced cards n (1-24), every number m of them of the
+ * declared rank and every play size k, each set of k cards out of the n is
+ * listed and the honest ones counted; honestChance() and count() must give
+ * exactly honest / total, for every rank and for several choices of the cards
+ * Usage: BluffOddsChecks (prints the number of checks, or throws on the first failure)
+ */
+public class BluffOddsChecks {
+
+    private static final int SUITS = Card.Suit.values().length;
+    private static final int RANKS = Card.Rank.values().length;
+
+    private int checks; // Number of checks passed
+
+    /**
+     * Run every check
+     */
+    public void runAll() {
+        for (int n = 1; n <= Card.COUNT; n++) {
+            for (int m = Math.max(0, n - (Card.COUNT - SUITS)); m <= Math.min(n, SUITS); m++) {
+                for (int k = 1; k <= Math.min(n, SUITS); k++) {
+                    checkCounts(n, m, k);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compare the chance for one (n, m, k) with a brute-force count
+     */
+    private void checkCounts(int n, int m, int k) {
+        // Positions 0 to m - 1 of the n cards have the declared rank
+        int rankPositions = (1 << m) - 1;
+        long honest = 0;
+        long total = 0;
+        for (int subset = (1 << k) - 1; subset < (1 << n); subset = nextSubset(subset)) {
+            total++;
+            if ((subset & ~rankPositions) == 0) {
+                honest++;
+            }
+        }
+        double expected = (double) honest / total;
+        check(BluffOdds.count(n, m, k) == expected, "count(" + n + ", " + m + ", " + k + ") is "
+                + BluffOdds.count(n, m, k) + ", not " + expected);
+
+        // The table must not care which rank is declared or which cards make up the counts
+        for (int rank = 0; rank < RANKS; rank++) {
+            for (int shift = 0; shift < 3; shift++) {
+                int mask = unplacedMask(n, m, Card.Rank.values()[rank], shift);
+                double chance = BluffOdds.honestChance(mask, Card.Rank.values()[rank], k);
+                check(chance == expected, "honestChance(" + n + ", " + m + ", " + k + ") for rank " + rank
+                        + " is " + chance + ", not " + expected);
+            }
+        }
+    }
+
+    /**
+     * Get a mask of n cards, m of them of a rank
+     * @param shift Rotates which suits and which other cards are taken
+     */
+    private static int unplacedMask(int n, int m, Card.Rank rank, int shift) {
+        int rankMask = CardSet.rankMask(rank);
+        int mask = 0;
+        int taken = 0;
+        for (int i = 0; taken < m; i++) {
+            int bit = 1 << ((i + shift * RANKS) % Card.COUNT);
+            if ((rankMask & bit) != 0 && (mask & bit) == 0) {
+                mask |= bit;
+                taken++;
+            }
+        }
+        for (int i = 0; taken < n; i++) {
+            int bit = 1 << ((i * 5 + shift) % Card.COUNT);
+            if ((rankMask & bit) == 0 && (mask & bit) == 0) {
+                mask |= bit;
+                taken++;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Get the next larger number with the same number of bits set (Gosper's hack)
+     */
+    private static int nextSubset(int subset) {
+        int lowest = subset & -subset;
+        int ripple = subset + lowest;
+        return ripple | (((subset ^ ripple) >>> 2) / lowest);
+    }
+
+    /**
+     * Count a passed check, or fail with a message
+     */
+    private void check(boolean passed, String message) {
+        if (!passed) {
+            throw new IllegalStateException(message);
+        }
+        checks++;
+    }
+
+    /**
+     * Command line entry point
+     */
+    public static void main(String[] args) {
+        BluffOddsChecks bluffOddsChecks = new BluffOddsChecks();
+        bluffOddsChecks.runAll();
+        System.out.println("All " + bluffOddsChecks.checks + " bluff odds checks passed");
+    }
+}
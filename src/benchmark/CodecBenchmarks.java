@@ -0,0 +1,158 @@
+package benchmark;
+
+import model.Card;
+import model.GameState;
+import server.Frame;
+import server.WireCodec;
+import storage.StateCodec;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks for the binary wire codec used by the game server
+ * Usage: CodecBenchmarks [warm-up iterations] [measured iterations] [milliseconds per iteration]
+ */
+public class CodecBenchmarks {
+
+    // Frames written per operation by the streaming benchmark
+    private static final int STREAM_FRAMES = 64;
+
+    /**
+     * MOVE frame written and read back through one reused buffer
+     */
+    static class MoveRoundTripBenchmark extends Benchmark {
+        private ByteBuffer buffer = ByteBuffer.allocate(WireCodec.MAX_FRAME);
+        private Frame request = new Frame();
+        private Frame decoded = new Frame();
+        private int mask;
+
+        MoveRoundTripBenchmark() {
+            super("MOVE encode + decode");
+        }
+
+        public long operation() {
+            mask = (mask + 0x10101) & 0xFFFFFF;
+            request.reset(Frame.MOVE).add(WireCodec.moveCode(mask, Card.Rank.THREE));
+            buffer.clear();
+            WireCodec.encode(request, buffer);
+            buffer.flip();
+            WireCodec.decode(buffer, decoded);
+            return decoded.getLong(0);
+        }
+    }
+
+    /**
+     * TABLE_STATE frame (the largest fixed frame) written and read back
+     */
+    static class TableStateRoundTripBenchmark extends Benchmark {
+        private ByteBuffer buffer = ByteBuffer.allocate(WireCodec.MAX_FRAME);
+        private Frame reply = new Frame();
+        private Frame decoded = new Frame();
+        private int round;
+
+        TableStateRoundTripBenchmark() {
+            super("TABLE_STATE encode + decode");
+        }
+
+        public long operation() {
+            round++;
+            reply.reset(Frame.TABLE_STATE).add(1).add(round).add(7).add(2).add(3).add(-1).add(4)
+                    .add(5).add(6).add(4).add(2);
+            buffer.clear();
+            WireCodec.encode(reply, buffer);
+            buffer.flip();
+            WireCodec.decode(buffer, decoded);
+            return decoded.getLong(Frame.STATE_ROUND);
+        }
+    }
+
+    /**
+     * A stream of MOVE frames read back in 5-byte pieces, as a slow NIO read would deliver them
+     */
+    static class PartialReadBenchmark extends Benchmark {
+        private ByteBuffer stream = ByteBuffer.allocate(STREAM_FRAMES * 8);
+        private ByteBuffer in = ByteBuffer.allocate(2 * WireCodec.MAX_FRAME);
+        private Frame frame = new Frame();
+
+        PartialReadBenchmark() {
+            super("MOVE x64 decode (5-byte reads)");
+        }
+
+        public void setUp() {
+            for (int i = 0; i < STREAM_FRAMES; i++) {
+                frame.reset(Frame.MOVE).add(WireCodec.moveCode(1 << (i % 24), Card.Rank.ONE));
+                WireCodec.encode(frame, stream);
+            }
+            stream.flip();
+        }
+
+        public long operation() {
+            stream.rewind();
+            in.clear();
+            long total = 0;
+            while (stream.hasRemaining()) {
+                // Copy the next piece into the input buffer
+                int piece = Math.min(5, stream.remaining());
+                for (int i = 0; i < piece; i++) {
+                    in.put(stream.get());
+                }
+
+                in.flip();
+                while (WireCodec.decode(in, frame)) {
+                    total += frame.getLong(0);
+                }
+                in.compact();
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Whole GameState written and read back (reading creates the new state)
+     */
+    static class StateRoundTripBenchmark extends Benchmark {
+        private ByteBuffer buffer = ByteBuffer.allocate(StateCodec.size(4));
+        private GameState state;
+
+        StateRoundTripBenchmark() {
+            super("GameState write + read");
+        }
+
+        public void setUp() {
+            state = ModelBenchmarks.newGame(42).exportState();
+        }
+
+        public long operation() {
+            buffer.clear();
+            StateCodec.write(state, buffer);
+            buffer.flip();
+            return StateCodec.read(buffer).getRoundNumber();
+        }
+    }
+
+    /**
+     * Get every codec benchmark
+     */
+    public static List<Benchmark> all() {
+        List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+        benchmarks.add(new MoveRoundTripBenchmark());
+        benchmarks.add(new TableStateRoundTripBenchmark());
+        benchmarks.add(new PartialReadBenchmark());
+        benchmarks.add(new StateRoundTripBenchmark());
+        return benchmarks;
+    }
+
+    /**
+     * Command line entry point
+     */
+    public static void main(String[] args) {
+        int warmup = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int measured = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        long millis = args.length > 2 ? Long.parseLong(args[2]) : 500;
+
+        BenchmarkRunner runner = new BenchmarkRunner(warmup, measured, millis);
+        runner.runAll(CodecBenchmarks.class);
+    }
+}
@@ -0,0 +1,286 @@
+package benchmark;
+
+import model.Card;
+import model.GameState;
+import model.Manager;
+import model.Player;
+import server.Frame;
+import server.WireCodec;
+import storage.StateCodec;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Round-trip checks for the wire and state codecs, run next to the codec benchmarks
+ * so that a faster codec is also known to be a correct one
+ * Every frame type is written and read back whole, one byte at a time and as part
+ * of a stream cut into uneven pieces; game states are written and read back the same way
+ * Usage: CodecChecks (prints the number of checks, or throws on the first failure)
+ */
+public class CodecChecks {
+
+    private int checks; // Number of checks passed
+
+    /**
+     * Get one sample frame of every type, with values at the edges of their widths
+     */
+    static List<Frame> sampleFrames() {
+        List<Frame> frames = new ArrayList<Frame>();
+        frames.add(new Frame().reset(Frame.NEW).add(4));
+        Frame join = new Frame().reset(Frame.JOIN).add(Integer.MAX_VALUE);
+        join.setText("Player 1");
+        frames.add(join);
+        frames.add(new Frame().reset(Frame.HAND));
+        frames.add(new Frame().reset(Frame.MOVE).add(WireCodec.moveCode(0xFFFFFF, Card.Rank.SIX)));
+        frames.add(new Frame().reset(Frame.MOVE).add(WireCodec.CHALLENGE_MOVE));
+        frames.add(new Frame().reset(Frame.STATE));
+        frames.add(new Frame().reset(Frame.STATS));
+        frames.add(new Frame().reset(Frame.WATCH).add(7));
+        frames.add(new Frame().reset(Frame.TABLE).add(123456789));
+        frames.add(new Frame().reset(Frame.SEAT).add(3));
+        frames.add(new Frame().reset(Frame.CARDS).add(0xA5A5A5));
+        frames.add(new Frame().reset(Frame.OK));
+        frames.add(new Frame().reset(Frame.CHALLENGE_RESULT).add(1));
+        frames.add(new Frame().reset(Frame.TABLE_STATE).add(2).add(100000).add(24).add(4).add(-1).add(-1)
+                .add(4).add(6).add(0).add(12).add(1));
+        frames.add(new Frame().reset(Frame.SERVER_STATS).add(-1).add(Long.MAX_VALUE).add(Long.MIN_VALUE)
+                .add(0).add(987654321L));
+        Frame error = new Frame().reset(Frame.ERROR);
+        error.setText("You must play 1-4 cards!");
+        frames.add(error);
+        Frame emptyError = new Frame().reset(Frame.ERROR);
+        emptyError.setText("");
+        frames.add(emptyError);
+        Frame longError = new Frame().reset(Frame.ERROR);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < Frame.MAX_TEXT; i++) {
+            text.append((char) ('a' + i % 26));
+        }
+        longError.setText(text.toString());
+        frames.add(longError);
+        frames.add(new Frame().reset(Frame.TABLE_RESET).add(4).add(-1));
+        frames.add(new Frame().reset(Frame.HAND_DELTA).add(1).add(0).add(3).add(0x800001));
+        frames.add(new Frame().reset(Frame.PLAY_DELTA).add(0).add(4).add(5).add(0));
+        frames.add(new Frame().reset(Frame.PILE_CLEARED));
+        frames.add(new Frame().reset(Frame.TURN).add(2).add(Integer.MIN_VALUE));
+        return frames;
+    }
+
+    /**
+     * Get sample states of 2, 3 and 4 seat games: fresh deals, games with plays on the
+     * pile and games just after a challenge
+     */
+    static List<GameState> sampleStates() {
+        List<GameState> states = new ArrayList<GameState>();
+        for (int seats = 2; seats <= 4; seats++) {
+            Player[] players = new Player[seats];
+            for (int i = 0; i < seats; i++) {
+                players[i] = new Player("Player " + (i + 1));
+            }
+            GameState state = new Manager(players, 42 + seats).exportState();
+            states.add(state);
+
+            for (int i = 0; i < 5; i++) {
+                int hand = state.getHand(state.getCurrentSeat());
+                state = state.play(Integer.lowestOneBit(hand), Card.Rank.values()[i]);
+                states.add(state);
+            }
+            states.add(state.challenge());
+        }
+        return states;
+    }
+
+    /**
+     * Run every check
+     */
+    public void runAll() {
+        List<Frame> frames = sampleFrames();
+        for (int i = 0; i < frames.size(); i++) {
+            checkFrameWhole(frames.get(i));
+            checkFrameByteAtATime(frames.get(i));
+        }
+        checkFrameStream(frames);
+        checkBadFrames();
+
+        List<GameState> states = sampleStates();
+        for (int i = 0; i < states.size(); i++) {
+            checkStateWhole(states.get(i));
+            checkStateByteAtATime(states.get(i));
+        }
+    }
+
+    /**
+     * A frame written to a buffer reads back the same, using exactly its size
+     */
+    private void checkFrameWhole(Frame frame) {
+        ByteBuffer buffer = ByteBuffer.allocate(WireCodec.MAX_FRAME);
+        check(WireCodec.encode(frame, buffer), "Frame did not fit: " + frame);
+        check(buffer.position() == WireCodec.size(frame), "Wrong size written for " + frame);
+
+        // No room for the last byte: nothing is written
+        ByteBuffer small = ByteBuffer.allocate(WireCodec.size(frame) - 1);
+        check(!WireCodec.encode(frame, small) && small.position() == 0, "Partial write of " + frame);
+
+        buffer.flip();
+        Frame decoded = new Frame();
+        check(WireCodec.decode(buffer, decoded), "Frame not read: " + frame);
+        checkSame(frame, decoded);
+        check(!buffer.hasRemaining(), "Bytes left after " + frame);
+    }
+
+    /**
+     * A frame arriving one byte at a time is only read once its last byte is there
+     */
+    private void checkFrameByteAtATime(Frame frame) {
+        ByteBuffer wire = ByteBuffer.allocate(WireCodec.MAX_FRAME);
+        WireCodec.encode(frame, wire);
+        wire.flip();
+
+        ByteBuffer in = ByteBuffer.allocate(WireCodec.MAX_FRAME);
+        Frame decoded = new Frame();
+        while (wire.hasRemaining()) {
+            in.put(wire.get());
+            in.flip();
+            boolean read = WireCodec.decode(in, decoded);
+            check(read == !wire.hasRemaining(), "Frame read at the wrong byte: " + frame);
+            if (!read) {
+                check(in.position() == 0, "Bytes consumed of an incomplete " + frame);
+            }
+            in.compact();
+        }
+        checkSame(frame, decoded);
+        check(in.position() == 0, "Bytes left after " + frame);
+    }
+
+    /**
+     * Frames written back to back and delivered in uneven pieces are all read, in order
+     */
+    private void checkFrameStream(List<Frame> frames) {
+        ByteBuffer wire = ByteBuffer.allocate(frames.size() * WireCodec.MAX_FRAME);
+        for (int i = 0; i < frames.size(); i++) {
+            WireCodec.encode(frames.get(i), wire);
+        }
+        wire.flip();
+
+        // Pieces of 1 to 7 bytes, as a socket read might return them
+        ByteBuffer in = ByteBuffer.allocate(2 * WireCodec.MAX_FRAME);
+        Frame decoded = new Frame();
+        int next = 0;
+        int piece = 1;
+        while (wire.hasRemaining()) {
+            int count = Math.min(piece, wire.remaining());
+            for (int i = 0; i < count; i++) {
+                in.put(wire.get());
+            }
+            piece = piece % 7 + 1;
+
+            in.flip();
+            while (WireCodec.decode(in, decoded)) {
+                check(next < frames.size(), "More frames read than written!");
+                checkSame(frames.get(next), decoded);
+                next++;
+            }
+            in.compact();
+        }
+        check(next == frames.size(), "Only " + next + " of " + frames.size() + " frames read!");
+    }
+
+    /**
+     * Damaged frames are refused rather than read into the next frame
+     */
+    private void checkBadFrames() {
+        // Unknown type
+        checkRefused(new byte[] {1, 31});
+        // Empty frame
+        checkRefused(new byte[] {0});
+        // MOVE one byte short, then one byte long
+        checkRefused(new byte[] {4, (byte) Frame.MOVE, 0, 0, 0});
+        checkRefused(new byte[] {6, (byte) Frame.MOVE, 0, 0, 0, 0, 0});
+        // ERROR whose text runs past the frame
+        checkRefused(new byte[] {4, (byte) Frame.ERROR, 5, 'a', 'b'});
+    }
+
+    /**
+     * Check that decoding some bytes throws IllegalArgumentException
+     */
+    private void checkRefused(byte[] bytes) {
+        try {
+            WireCodec.decode(ByteBuffer.wrap(bytes), new Frame());
+        } catch (IllegalArgumentException e) {
+            checks++;
+            return;
+        }
+        throw new IllegalStateException("Damaged frame was read: " + bytes.length + " bytes, type " + bytes[1]);
+    }
+
+    /**
+     * A state written to a buffer reads back equal, using exactly its size
+     */
+    private void checkStateWhole(GameState state) {
+        int size = StateCodec.size(state.getPlayerCount());
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        check(StateCodec.write(state, buffer), "State did not fit: " + state);
+        check(!buffer.hasRemaining(), "Wrong size written for " + state);
+
+        ByteBuffer small = ByteBuffer.allocate(size - 1);
+        check(!StateCodec.write(state, small) && small.position() == 0, "Partial write of " + state);
+
+        buffer.flip();
+        GameState read = StateCodec.read(buffer);
+        check(state.equals(read), "State read back differs: " + state + " / " + read);
+    }
+
+    /**
+     * A state arriving one byte at a time is only read once its last byte is there
+     */
+    private void checkStateByteAtATime(GameState state) {
+        ByteBuffer wire = ByteBuffer.allocate(StateCodec.size(state.getPlayerCount()));
+        StateCodec.write(state, wire);
+        wire.flip();
+
+        ByteBuffer in = ByteBuffer.allocate(wire.capacity());
+        GameState read = null;
+        while (wire.hasRemaining()) {
+            in.put(wire.get());
+            in.flip();
+            read = StateCodec.read(in);
+            check((read != null) == !wire.hasRemaining(), "State read at the wrong byte: " + state);
+            in.compact();
+        }
+        check(state.equals(read), "State read back differs: " + state + " / " + read);
+    }
+
+    /**
+     * Check that two frames have the same type, values and text
+     */
+    private void checkSame(Frame expected, Frame actual) {
+        boolean same = expected.getType() == actual.getType()
+                && expected.getValueCount() == actual.getValueCount()
+                && expected.getText().equals(actual.getText());
+        for (int i = 0; same && i < expected.getValueCount(); i++) {
+            same = expected.getLong(i) == actual.getLong(i);
+        }
+        check(same, "Frame read back differs: " + expected + " / " + actual);
+    }
+
+    /**
+     * Count a passed check, or fail with a message
+     */
+    private void check(boolean passed, String message) {
+        if (!passed) {
+            throw new IllegalStateException(message);
+        }
+        checks++;
+    }
+
+    /**
+     * Command line entry point
+     */
+    public static void main(String[] args) {
+        CodecChecks codecChecks = new CodecChecks();
+        codecChecks.runAll();
+        System.out.println("All " + codecChecks.checks + " codec checks passed");
+    }
+}
@@ -0,0 +1,353 @@
+package benchmark;
+
+import metrics.EngineMetrics;
+import model.Card;
+import model.CardVisitor;
+import model.GameState;
+import model.Manager;
+import model.Pile;
+import model.Play;
+import model.Player;
+import model.SuitSymmetry;
+import simulation.GameRunner;
+import simulation.RandomStrategy;
+import simulation.Strategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmarks for the hot paths of the game model
+ * Usage: ModelBenchmarks [warm-up iterations] [measured iterations] [milliseconds per iteration] [metrics]
+ * With "metrics", engine metrics are recorded during the run and printed at the
+ * end; the benchmarks then all run in this JVM, so compare against a run with
+ * -Dbenchmark.fork=false
+ */
+public class ModelBenchmarks {
+
+    /**
+     * Create a 4-player game with a fixed deal
+     */
+    static Manager newGame(long seed) {
+        Player[] players = new Player[4];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = new Player("Player " + (i + 1));
+        }
+        return new Manager(players, seed);
+    }
+
+    /**
+     * Dealing: Manager constructor, including dealInitialCards
+     */
+    static class DealBenchmark extends Benchmark {
+        private long seed;
+
+        DealBenchmark() {
+            super("Manager.<init> (deal)");
+        }
+
+        public long operation() {
+            Manager manager = newGame(seed++);
+            return manager.getCurrentPlayer().getCardCount();
+        }
+    }
+
+    /**
+     * Base for benchmarks that keep playing one game, restoring the deal when a hand runs low
+     * (the restore is part of the measured time, spread over many operations)
+     */
+    abstract static class RunningGameBenchmark extends Benchmark {
+        protected Manager manager;
+        protected GameState start;
+        protected Card[] single = new Card[1];
+
+        RunningGameBenchmark(String name) {
+            super(name);
+        }
+
+        public void setUp() {
+            manager = newGame(42);
+            start = manager.exportState();
+        }
+
+        /**
+         * Put the lowest card of the current player in the reused one-card array
+         */
+        protected Card pickCard() {
+            Player current = manager.getCurrentPlayer();
+            if (current.getCardCount() <= 1) {
+                manager.importState(start);
+                current = manager.getCurrentPlayer();
+            }
+            single[0] = Card.get(Integer.numberOfTrailingZeros(current.getHandView().getMask()));
+            return single[0];
+        }
+    }
+
+    /**
+     * Manager.playCards with one honest card
+     */
+    static class PlayCardsBenchmark extends RunningGameBenchmark {
+        PlayCardsBenchmark() {
+            super("Manager.playCards");
+        }
+
+        public long operation() {
+            Card card = pickCard();
+            manager.playCards(manager.getCurrentPlayer(), single, card.getRank());
+            return manager.getCurrentPlayerIndex();
+        }
+    }
+
+    /**
+     * One card played (honest every other time) and then challenged
+     */
+    static class ChallengeBenchmark extends RunningGameBenchmark {
+        private int count;
+
+        ChallengeBenchmark() {
+            super("Manager.challengePlayer (+play)");
+        }
+
+        public long operation() {
+            Card card = pickCard();
+            Card.Rank declared = card.getRank();
+            if ((count++ & 1) == 0) {
+                declared = Card.Rank.values()[(declared.ordinal() + 1) % 6];
+            }
+            manager.playCards(manager.getCurrentPlayer(), single, declared);
+            return manager.challengePlayer(manager.getCurrentPlayer()) ? 1 : 0;
+        }
+    }
+
+    /**
+     * Player.hasAllCards with three cards, alternating a held and a missing card
+     */
+    static class HasAllCardsBenchmark extends Benchmark {
+        private Player player;
+        private Card[] held;
+        private Card[] missing;
+        private int count;
+
+        HasAllCardsBenchmark() {
+            super("Player.hasAllCards");
+        }
+
+        public void setUp() {
+            player = new Player("Player");
+            for (int i = 0; i < 12; i++) {
+                player.receiveCard(Card.get(i * 2));
+            }
+            held = new Card[] {Card.get(0), Card.get(10), Card.get(22)};
+            missing = new Card[] {Card.get(0), Card.get(10), Card.get(23)};
+        }
+
+        public long operation() {
+            Card[] cards = (count++ & 1) == 0 ? held : missing;
+            return player.hasAllCards(cards) ? 1 : 0;
+        }
+    }
+
+    /**
+     * Player.playCard with three cards, then receiving them back
+     */
+    static class PlayCardBenchmark extends Benchmark {
+        private Player player;
+        private Card[] cards;
+
+        PlayCardBenchmark() {
+            super("Player.playCard (+receiveCard)");
+        }
+
+        public void setUp() {
+            player = new Player("Player");
+            for (int i = 0; i < 12; i++) {
+                player.receiveCard(Card.get(i * 2));
+            }
+            cards = new Card[] {Card.get(0), Card.get(10), Card.get(22)};
+        }
+
+        public long operation() {
+            player.playCard(cards);
+            for (int i = 0; i < cards.length; i++) {
+                player.receiveCard(cards[i]);
+            }
+            return player.getCardCount();
+        }
+    }
+
+    /**
+     * Pile with 20 single-card plays
+     */
+    static Pile fullPile() {
+        Player player = new Player("Player");
+        Pile pile = new Pile();
+        for (int i = 0; i < 20; i++) {
+            pile.addPlay(new Play(player, new Card[] {Card.get(i)}, Card.Rank.ONE));
+        }
+        return pile;
+    }
+
+    /**
+     * Pile.getAllCards on a pile of 20 plays
+     */
+    static class GetAllCardsBenchmark extends Benchmark {
+        private Pile pile;
+
+        GetAllCardsBenchmark() {
+            super("Pile.getAllCards");
+        }
+
+        public void setUp() {
+            pile = fullPile();
+        }
+
+        public long operation() {
+            return pile.getAllCards().length;
+        }
+    }
+
+    /**
+     * Pile.forEachCard on a pile of 20 plays (the non-copying alternative)
+     */
+    static class ForEachCardBenchmark extends Benchmark {
+        private Pile pile;
+        private RankCounter counter = new RankCounter();
+
+        ForEachCardBenchmark() {
+            super("Pile.forEachCard");
+        }
+
+        public void setUp() {
+            pile = fullPile();
+        }
+
+        public long operation() {
+            counter.total = 0;
+            pile.forEachCard(counter);
+            return counter.total;
+        }
+    }
+
+    /**
+     * Visitor that adds up card ranks
+     */
+    static class RankCounter implements CardVisitor {
+        long total;
+
+        public void visit(Card card) {
+            total += card.getRank().getValue();
+        }
+    }
+
+    /**
+     * A complete game between four random players
+     */
+    static class FullGameBenchmark extends Benchmark {
+        private GameRunner runner;
+        private long seed;
+
+        FullGameBenchmark() {
+            super("Full random game (4 players)");
+        }
+
+        public void setUp() {
+            Strategy[] strategies = new Strategy[4];
+            for (int i = 0; i < strategies.length; i++) {
+                strategies[i] = new RandomStrategy();
+            }
+            runner = new GameRunner(strategies, 10000);
+        }
+
+        public long operation() {
+            return runner.playGame(new SplittableRandom(seed++)).getTurns();
+        }
+    }
+
+    /**
+     * Base for benchmarks on the state of a game a few plays in
+     */
+    abstract static class MidGameStateBenchmark extends Benchmark {
+        protected GameState state;
+
+        MidGameStateBenchmark(String name) {
+            super(name);
+        }
+
+        public void setUp() {
+            state = newGame(42).exportState();
+            for (int i = 0; i < 6; i++) {
+                int hand = state.getHand(state.getCurrentSeat());
+                state = state.play(Integer.lowestOneBit(hand), Card.Rank.TWO);
+            }
+        }
+    }
+
+    /**
+     * SuitSymmetry.canonical on a state a few plays in
+     */
+    static class CanonicalBenchmark extends MidGameStateBenchmark {
+        CanonicalBenchmark() {
+            super("SuitSymmetry.canonical");
+        }
+
+        public long operation() {
+            return SuitSymmetry.canonical(state).getPileMask();
+        }
+    }
+
+    /**
+     * SuitSymmetry.byRankCounts on a state a few plays in
+     */
+    static class ByRankCountsBenchmark extends MidGameStateBenchmark {
+        ByRankCountsBenchmark() {
+            super("SuitSymmetry.byRankCounts");
+        }
+
+        public long operation() {
+            return SuitSymmetry.byRankCounts(state).getPileMask();
+        }
+    }
+
+    /**
+     * Get every model benchmark
+     */
+    public static List<Benchmark> all() {
+        List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+        benchmarks.add(new DealBenchmark());
+        benchmarks.add(new PlayCardsBenchmark());
+        benchmarks.add(new ChallengeBenchmark());
+        benchmarks.add(new HasAllCardsBenchmark());
+        benchmarks.add(new PlayCardBenchmark());
+        benchmarks.add(new GetAllCardsBenchmark());
+        benchmarks.add(new ForEachCardBenchmark());
+        benchmarks.add(new CanonicalBenchmark());
+        benchmarks.add(new ByRankCountsBenchmark());
+        benchmarks.add(new FullGameBenchmark());
+        return benchmarks;
+    }
+
+    /**
+     * Command line entry point
+     */
+    public static void main(String[] args) {
+        int warmup = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int measured = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        long millis = args.length > 2 ? Long.parseLong(args[2]) : 500;
+        boolean metrics = args.length > 3 && args[3].equals("metrics");
+
+        EngineMetrics.setEnabled(metrics);
+        BenchmarkRunner runner = new BenchmarkRunner(warmup, measured, millis);
+        if (metrics) {
+            // Metrics are collected in this JVM, so every benchmark runs here
+            runner.runAll(all());
+        } else {
+            runner.runAll(ModelBenchmarks.class);
+        }
+        if (metrics) {
+            System.out.println();
+            System.out.print(EngineMetrics.snapshot());
+        }
+    }
+}
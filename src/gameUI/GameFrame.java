@@ -1,6 +1,10 @@
 package gameUI;
 
 import gameUI.components.*;
+import logging.EngineLog;
+import metrics.EngineMetrics;
+import metrics.FlightEvents;
+import metrics.UiRefreshEvent;
 import model.Card;
 import model.Manager;
 import model.Play;
@@ -159,12 +163,11 @@ public class GameFrame extends JFrame {
         String currentPlayerName = currentPlayer.getName();
 
         // Add debug logging
-        System.out.println("Selected cards: " + selectedCards.length);
-        System.out.println("Player hand: " + currentPlayer.getCardCount());
+        EngineLog.log(EngineLog.DEBUG, "Selected cards: {} of {} in hand", selectedCards.length,
+                currentPlayer.getCardCount());
 
         // Verify mappings consistency
-        Card[] playerHand = currentPlayer.getHand();
-        boolean mappingsValid = handPanel.verifyCardMappings(playerHand);
+        boolean mappingsValid = handPanel.verifyCardMappings(currentPlayer.getHandView());
         if (!mappingsValid) {
             JOptionPane.showMessageDialog(this, "UI and game data out of sync. Refreshing display.");
             updatePlayerHand(); // Refresh hand display
@@ -250,8 +253,7 @@ public class GameFrame extends JFrame {
 
         if (challengeSuccessful) {
             // Challenge succeeded - determine actual card ranks
-            Card[] playedCards = lastPlay.getCards();
-            String actualRanks = getCardRanksText(playedCards);
+            String actualRanks = getCardRanksText(lastPlay);
 
             message = "Challenge successful! " + lastPlayer.getName() +
                     " takes all cards.\nThe cards were " + actualRanks +
@@ -292,20 +294,20 @@ public class GameFrame extends JFrame {
     }
 
     /**
-     * Get text showing all card ranks
+     * Get text showing the ranks of all cards in a play
      */
-    private String getCardRanksText(Card[] cards) {
+    private String getCardRanksText(Play play) {
         // Build string of card ranks
         String result = "";
 
-        for (int i = 0; i < cards.length; i++) {
+        for (int i = 0; i < play.getCardCount(); i++) {
             // Add separator if not first card
             if (i > 0) {
                 result = result + ", ";
             }
 
             // Add this card's rank
-            result = result + cards[i].getRank();
+            result = result + play.getCard(i).getRank();
         }
 
         return result;
@@ -315,6 +317,9 @@ public class GameFrame extends JFrame {
      * Update play area display
      */
     private void updatePlayArea() {
+        UiRefreshEvent event = FlightEvents.startUiRefresh();
+        long start = EngineMetrics.start();
+
         // Clear existing components
         playAreaPanel.removeAll();
 
@@ -335,9 +340,8 @@ public class GameFrame extends JFrame {
             playAreaPanel.add(separator);
 
             // Add each card
-            Card[] cards = lastPlay.getCards();
-            for (int i = 0; i < cards.length; i++) {
-                Card card = cards[i];
+            for (int i = 0; i < lastPlay.getCardCount(); i++) {
+                Card card = lastPlay.getCard(i);
 
                 // Get image for this card's suit
                 CardImageManager imageManager = CardImageManager.getInstance();
@@ -365,12 +369,27 @@ public class GameFrame extends JFrame {
         // Refresh the panel
         playAreaPanel.revalidate();
         playAreaPanel.repaint();
+        EngineMetrics.stop(EngineMetrics.UI_REFRESH, start);
+        if (event != null) {
+            commitRefresh(event, "play area", lastPlay == null ? 0 : lastPlay.getCardCount());
+        }
+    }
+
+    /**
+     * Record a Flight Recorder event for a refresh of the window
+     */
+    private void commitRefresh(UiRefreshEvent event, String part, int cardCount) {
+        FlightEvents.commitUiRefresh(event, gameManager.getTableId(), part, gameManager.getCurrentPlayerIndex(),
+                cardCount, gameManager.getPile().getCardCount());
     }
 
     /**
      * Update player's hand display
      */
     private void updatePlayerHand() {
+        UiRefreshEvent event = FlightEvents.startUiRefresh();
+        long start = EngineMetrics.start();
+
         // Get the hand scroll pane from the bottom panel
         JPanel bottomPanel = (JPanel) getContentPane().getComponent(4); // Bottom panel is at index 4
         JScrollPane handScrollPane = (JScrollPane) bottomPanel.getComponent(0); // Hand is the first component
@@ -391,7 +410,11 @@ public class GameFrame extends JFrame {
         handScrollPane.revalidate();
         handScrollPane.repaint();
 
-        System.out.println("Player hand UI refreshed");
+        EngineLog.log(EngineLog.DEBUG, "Player hand UI refreshed");
+        EngineMetrics.stop(EngineMetrics.UI_REFRESH, start);
+        if (event != null) {
+            commitRefresh(event, "hand", playerCards.length);
+        }
     }
 
     /**
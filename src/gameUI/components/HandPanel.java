@@ -1,6 +1,8 @@
 package gameUI.components;
 
+import logging.EngineLog;
 import model.Card;
+import model.CardView;
 
 import javax.swing.*;
 import java.awt.*;
@@ -250,7 +252,7 @@ public class HandPanel extends JPanel {
         }
 
         // Log debug info
-        System.out.println("HandPanel updated: " + newCount + " cards");
+        EngineLog.log(EngineLog.DEBUG, "HandPanel updated: {} cards", newCount);
 
         // Refresh the panel
         revalidate();
@@ -260,51 +262,34 @@ public class HandPanel extends JPanel {
     /**
      * Verify card mappings match player's actual hand
      *
-     * @param playerHand The player's hand of cards
+     * @param playerHand View of the player's hand of cards
      * @return true if mappings are valid, false otherwise
      */
-    public boolean verifyCardMappings(Card[] playerHand) {
-        // Check if all components have valid card mappings
+    public boolean verifyCardMappings(CardView playerHand) {
+        // Collect the cards shown by the components
+        int shownMask = 0;
         for (int i = 0; i < componentCount; i++) {
             Card modelCard = modelCards[i];
 
             // Check if model card is null
             if (modelCard == null) {
-                System.out.println("Warning: Component found without model card mapping");
+                EngineLog.log(EngineLog.WARN, "Component found without model card mapping");
                 return false;
             }
 
             // Check if model card is in player's hand
-            boolean cardInHand = false;
-            for (int j = 0; j < playerHand.length; j++) {
-                if (playerHand[j].equals(modelCard)) {
-                    cardInHand = true;
-                    break;
-                }
-            }
-
-            if (!cardInHand) {
-                System.out.println("Warning: Component maps to card not in player's hand");
+            if (!playerHand.contains(modelCard)) {
+                EngineLog.log(EngineLog.WARN, "Component maps to card not in player's hand");
                 return false;
             }
+
+            shownMask |= 1 << modelCard.getIndex();
         }
 
         // Check if all player cards have corresponding components
-        for (int i = 0; i < playerHand.length; i++) {
-            Card card = playerHand[i];
-
-            boolean found = false;
-            for (int j = 0; j < componentCount; j++) {
-                if (card.equals(modelCards[j])) {
-                    found = true;
-                    break;
-                }
-            }
-
-            if (!found) {
-                System.out.println("Warning: Player has card without UI component");
-                return false;
-            }
+        if (shownMask != playerHand.getMask()) {
+            EngineLog.log(EngineLog.WARN, "Player has card without UI component");
+            return false;
         }
 
         // All checks passed
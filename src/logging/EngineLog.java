@@ -0,0 +1,170 @@
+package logging;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+
+/**
+ * Log of the game engine, written to standard output by a background thread
+ * Logging never blocks and never builds a string on the caller's thread: a
+ * record keeps the message and up to three arguments, which are put in place of
+ * each "{}" when the record is written; if records arrive faster than they can
+ * be written they are dropped and counted (see getDroppedCount())
+ * Records below the level set (INFO unless the JVM is started with
+ * -Dengine.log=debug, warn, error or off; any other value means INFO) cost
+ * one read of a flag; callers that must build an argument check isEnabled() first:
+ *   if (EngineLog.isEnabled(EngineLog.DEBUG)) {
+ *       EngineLog.log(EngineLog.DEBUG, "Hand of {} is {}", name, new CardSet(mask));
+ *   }
+ * Arguments are turned into text later, on the writer thread, so they must not
+ * change after being logged
+ */
+public class EngineLog {
+
+    // Levels, least important first
+    public static final int DEBUG = 0;
+    public static final int INFO = 1;
+    public static final int WARN = 2;
+    public static final int ERROR = 3;
+    public static final int OFF = 4;
+    static final String[] LEVEL_NAMES = {"DEBUG", "INFO ", "WARN ", "ERROR"};
+
+    // Most records waiting to be written
+    private static final int CAPACITY = 8192;
+
+    // Bytes written to standard output at a time (it is also written whenever the log goes idle)
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Longest time spent writing what is left when the JVM exits
+    private static final long EXIT_FLUSH_MILLIS = 1000;
+
+    private static volatile int level = levelOrInfo(System.getProperty("engine.log", "info"));
+
+    /**
+     * Holds the ring, so its writer thread is only started once something is logged
+     */
+    private static class Ring {
+        static final LogRing RING = new LogRing(CAPACITY, new PrintStream(
+                new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), BUFFER_SIZE), false));
+
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread("engine-log-flush") {
+                public void run() {
+                    RING.flush(EXIT_FLUSH_MILLIS);
+                }
+            });
+        }
+    }
+
+    /**
+     * Get the level named by a string
+     * @param name "debug", "info", "warn", "error" or "off" (in any case)
+     */
+    public static int levelOf(String name) {
+        String[] names = {"debug", "info", "warn", "error", "off"};
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equalsIgnoreCase(name.trim())) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown log level " + name + "!");
+    }
+
+    /**
+     * Get the level named by a string, or INFO if it names none, so that a mistyped
+     * -Dengine.log does not stop the log (and everything that logs) from loading
+     */
+    private static int levelOrInfo(String name) {
+        try {
+            return levelOf(name);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown log level " + name + " in -Dengine.log, logging at INFO");
+            return INFO;
+        }
+    }
+
+    /**
+     * Set the least important level logged
+     * @param least DEBUG, INFO, WARN, ERROR, or OFF to log nothing
+     */
+    public static void setLevel(int least) {
+        if (least < DEBUG || least > OFF) {
+            throw new IllegalArgumentException("Log level must be DEBUG-OFF!");
+        }
+        level = least;
+    }
+
+    /**
+     * Get the least important level logged
+     */
+    public static int getLevel() {
+        return level;
+    }
+
+    /**
+     * Check if records of a level are logged
+     */
+    public static boolean isEnabled(int recordLevel) {
+        return recordLevel >= level;
+    }
+
+    /**
+     * Log a message
+     */
+    public static void log(int recordLevel, String message) {
+        if (recordLevel >= level) {
+            Ring.RING.offer(recordLevel, message, null, null, null);
+        }
+    }
+
+    /**
+     * Log a message with one argument
+     */
+    public static void log(int recordLevel, String message, Object first) {
+        if (recordLevel >= level) {
+            Ring.RING.offer(recordLevel, message, first, null, null);
+        }
+    }
+
+    /**
+     * Log a message with two arguments
+     */
+    public static void log(int recordLevel, String message, Object first, Object second) {
+        if (recordLevel >= level) {
+            Ring.RING.offer(recordLevel, message, first, second, null);
+        }
+    }
+
+    /**
+     * Log a message with three arguments
+     */
+    public static void log(int recordLevel, String message, Object first, Object second, Object third) {
+        if (recordLevel >= level) {
+            Ring.RING.offer(recordLevel, message, first, second, third);
+        }
+    }
+
+    /**
+     * Wait until everything logged so far has been written
+     * @param timeoutMillis Longest time to wait
+     * @return false if the time ran out first
+     */
+    public static boolean flush(long timeoutMillis) {
+        return Ring.RING.flush(timeoutMillis);
+    }
+
+    /**
+     * Get the number of records written
+     */
+    public static long getWrittenCount() {
+        return Ring.RING.getWrittenCount();
+    }
+
+    /**
+     * Get the number of records dropped because they arrived faster than they could be written
+     */
+    public static long getDroppedCount() {
+        return Ring.RING.getDroppedCount();
+    }
+}
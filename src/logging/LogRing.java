@@ -0,0 +1,188 @@
+package logging;
+
+import java.io.PrintStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fixed-size queue of log records between any number of threads that log and
+ * one background thread that formats and writes them
+ * Each slot has a sequence number saying whose turn it is: a logging thread
+ * claims the slot for record n when its sequence is n, fills it and sets the
+ * sequence to n + 1; the writer takes record n once the sequence is n + 1 and
+ * hands the slot back by setting it to n + capacity. No thread ever waits for
+ * another: when every slot is still waiting to be written, the record is
+ * dropped and counted instead
+ */
+class LogRing implements Runnable {
+
+    // Time the writer sleeps when there is nothing to write
+    private static final long IDLE_NANOS = 1000000L;
+
+    private int mask;                   // Capacity - 1 (the capacity is a power of two)
+    private AtomicLongArray sequences;  // Turn of each slot, as described above
+    private AtomicLong tail;            // Number of the next record to claim
+
+    // Contents of each slot, written by the thread that claimed it
+    private int[] levels;
+    private long[] times;
+    private Thread[] threads;
+    private String[] messages;
+    private Object[] firsts;
+    private Object[] seconds;
+    private Object[] thirds;
+
+    private long head;                  // Number of the next record to write (writer only)
+    private volatile long written;      // Records written so far
+    private LongAdder dropped;          // Records dropped because the ring was full
+    private PrintStream out;            // Where records are written
+    private StringBuilder line;         // Reused to format each record (writer only)
+    private SimpleDateFormat clock;     // Formats record times (writer only)
+
+    /**
+     * Create a ring and start its writer thread
+     * @param capacity Most records waiting to be written (rounded up to a power of two)
+     * @param out Where records are written
+     */
+    LogRing(int capacity, PrintStream out) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.tail = new AtomicLong();
+        this.levels = new int[size];
+        this.times = new long[size];
+        this.threads = new Thread[size];
+        this.messages = new String[size];
+        this.firsts = new Object[size];
+        this.seconds = new Object[size];
+        this.thirds = new Object[size];
+        this.dropped = new LongAdder();
+        this.out = out;
+        this.line = new StringBuilder();
+        this.clock = new SimpleDateFormat("HH:mm:ss.SSS");
+
+        Thread writer = new Thread(this, "engine-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queue a record without waiting
+     * @return false if the ring was full and the record was dropped
+     */
+    boolean offer(int level, String message, Object first, Object second, Object third) {
+        long claim = tail.get();
+        while (true) {
+            int slot = (int) claim & mask;
+            long turn = sequences.get(slot);
+            if (turn == claim) {
+                if (tail.compareAndSet(claim, claim + 1)) {
+                    levels[slot] = level;
+                    times[slot] = System.currentTimeMillis();
+                    threads[slot] = Thread.currentThread();
+                    messages[slot] = message;
+                    firsts[slot] = first;
+                    seconds[slot] = second;
+                    thirds[slot] = third;
+                    sequences.set(slot, claim + 1);
+                    return true;
+                }
+                claim = tail.get();
+            } else if (turn < claim) {
+                // The record a full lap ago has not been written yet
+                dropped.increment();
+                return false;
+            } else {
+                // Another thread claimed this record first
+                claim = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Write records as they arrive
+     */
+    public void run() {
+        while (true) {
+            int slot = (int) head & mask;
+            if (sequences.get(slot) != head + 1) {
+                out.flush();
+                LockSupport.parkNanos(IDLE_NANOS);
+                continue;
+            }
+
+            line.setLength(0);
+            line.append(clock.format(new Date(times[slot]))).append(' ');
+            line.append(EngineLog.LEVEL_NAMES[levels[slot]]).append(" [");
+            line.append(threads[slot].getName()).append("] ");
+            format(messages[slot], firsts[slot], seconds[slot], thirds[slot]);
+
+            // Let go of the slot's objects before handing it back
+            threads[slot] = null;
+            firsts[slot] = null;
+            seconds[slot] = null;
+            thirds[slot] = null;
+            sequences.set(slot, head + mask + 1);
+            head++;
+
+            out.println(line);
+            written = head;
+        }
+    }
+
+    /**
+     * Append a message to the line, putting the arguments in place of each "{}"
+     */
+    private void format(String message, Object first, Object second, Object third) {
+        Object[] args = {first, second, third};
+        int used = 0;
+        int from = 0;
+        int at = message.indexOf("{}");
+        while (at >= 0 && used < args.length) {
+            line.append(message, from, at).append(args[used]);
+            used++;
+            from = at + 2;
+            at = message.indexOf("{}", from);
+        }
+        line.append(message, from, message.length());
+    }
+
+    /**
+     * Wait until every record queued before the call has been written
+     * @param timeoutMillis Longest time to wait
+     * @return false if the time ran out first
+     */
+    boolean flush(long timeoutMillis) {
+        long target = tail.get();
+        long deadline = System.nanoTime() + timeoutMillis * 1000000L;
+        while (written < target) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            LockSupport.parkNanos(IDLE_NANOS);
+        }
+        out.flush();
+        return true;
+    }
+
+    /**
+     * Get the number of records written
+     */
+    long getWrittenCount() {
+        return written;
+    }
+
+    /**
+     * Get the number of records dropped because the ring was full
+     */
+    long getDroppedCount() {
+        return dropped.sum();
+    }
+}
@@ -0,0 +1,41 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one challenge (Manager.challengePlayer)
+ */
+@Name("madiao.Challenge")
+@Label("Challenge")
+@Category({"Madiao", "Game"})
+@Description("A challenge of the last play, and the loser taking the pile")
+public class ChallengeEvent extends Event {
+
+    @Label("Table")
+    @Description("Number of the table hosting the game (0 if none)")
+    public int tableId;
+
+    @Label("Seat")
+    @Description("Seat of the challenger")
+    public int seat;
+
+    @Label("Loser Seat")
+    @Description("Seat that took the pile")
+    public int loserSeat;
+
+    @Label("Successful")
+    @Description("Whether the last play was a bluff")
+    public boolean successful;
+
+    @Label("Card Count")
+    @Description("Cards in the last play")
+    public int cardCount;
+
+    @Label("Pile Size")
+    @Description("Cards taken by the loser")
+    public int pileSize;
+}
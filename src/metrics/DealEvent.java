@@ -0,0 +1,27 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for dealing a new game (the Manager constructor)
+ */
+@Name("madiao.Deal")
+@Label("Deal")
+@Category({"Madiao", "Game"})
+@Description("Shuffling the deck and dealing it out")
+public class DealEvent extends Event {
+
+    @Label("Table")
+    @Description("Number of the table hosting the game (0 if none)")
+    public int tableId;
+
+    @Label("Seats")
+    public int seats;
+
+    @Label("Cards Dealt")
+    public int cardCount;
+}
@@ -0,0 +1,122 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timings and counters of the game engine, shared by every game in the process
+ * Off unless setEnabled(true) is called or the JVM is started with
+ * -Dengine.metrics=true; while off, timing an operation costs one read of a
+ * flag and nothing is recorded. Typical use:
+ *   long start = EngineMetrics.start();
+ *   ... the operation ...
+ *   EngineMetrics.stop(EngineMetrics.PLAY, start);
+ */
+public class EngineMetrics {
+
+    // Operations timed
+    public static final int DEAL = 0;          // Dealing a new game
+    public static final int PLAY = 1;          // Manager.playCards()
+    public static final int CHALLENGE = 2;     // Manager.challengePlayer()
+    public static final int WINNER_CHECK = 3;  // Manager.checkForWinner()
+    public static final int UI_REFRESH = 4;    // Redrawing the hand or play area
+    static final String[] OPERATION_NAMES = {"deal", "play", "challenge", "winner check", "UI refresh"};
+
+    // Events counted
+    public static final int INVALID_PLAYS = 0;    // Plays refused (wrong turn, cards not held, bad count)
+    public static final int CHALLENGES_WON = 1;   // Challenges that caught a bluff
+    public static final int CHALLENGES_LOST = 2;  // Challenges of an honest play
+    static final String[] COUNTER_NAMES = {"invalid plays", "challenges won", "challenges lost"};
+
+    private static volatile boolean enabled = Boolean.getBoolean("engine.metrics");
+    private static final LatencyHistogram[] histograms = new LatencyHistogram[OPERATION_NAMES.length];
+    private static final LongAdder[] counters = new LongAdder[COUNTER_NAMES.length];
+
+    static {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Turn recording on or off
+     * Operations already started when it is turned on are not recorded
+     */
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * Check if recording is on
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start timing an operation
+     * @return The time to pass to stop(), or 0 if recording is off
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Finish timing an operation
+     * @param operation Which operation (DEAL, PLAY, ...)
+     * @param start The time returned by start()
+     */
+    public static void stop(int operation, long start) {
+        if (start != 0) {
+            histograms[operation].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Count one event
+     * @param counter Which event (INVALID_PLAYS, ...)
+     */
+    public static void count(int counter) {
+        if (enabled) {
+            counters[counter].increment();
+        }
+    }
+
+    /**
+     * Copy every timing and counter
+     */
+    public static MetricsSnapshot snapshot() {
+        return copy(false);
+    }
+
+    /**
+     * Copy every timing and counter and start again from zero
+     */
+    public static MetricsSnapshot snapshotAndReset() {
+        return copy(true);
+    }
+
+    /**
+     * Set every timing and counter back to zero
+     */
+    public static void reset() {
+        copy(true);
+    }
+
+    /**
+     * Copy the timings and counters, clearing them if asked
+     */
+    private static MetricsSnapshot copy(boolean reset) {
+        HistogramSnapshot[] timings = new HistogramSnapshot[histograms.length];
+        for (int i = 0; i < histograms.length; i++) {
+            timings[i] = reset ? histograms[i].snapshotAndReset() : histograms[i].snapshot();
+        }
+        long[] counts = new long[counters.length];
+        for (int i = 0; i < counters.length; i++) {
+            counts[i] = reset ? counters[i].sumThenReset() : counters[i].sum();
+        }
+        return new MetricsSnapshot(timings, counts);
+    }
+}
@@ -0,0 +1,167 @@
+package metrics;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Starts and records the game's Flight Recorder events
+ * Events are only created while a recording is running (started with
+ * -XX:StartFlightRecording, jcmd JFR.start or in code); otherwise each start
+ * method returns null after reading one flag, so the engine's hot paths are
+ * left as they were. Typical use:
+ *   PlayEvent event = FlightEvents.startPlay();
+ *   ... the play ...
+ *   if (event != null) {
+ *       FlightEvents.commitPlay(event, tableId, seat, cardCount, pileSize, rank);
+ *   }
+ */
+public class FlightEvents {
+
+    // Whether any recording is running, kept up to date by the listener below
+    private static volatile boolean recording;
+
+    static {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            public void recorderInitialized(FlightRecorder recorder) {
+                update(recorder);
+            }
+
+            public void recordingStateChanged(Recording changed) {
+                update(FlightRecorder.getFlightRecorder());
+            }
+        });
+    }
+
+    /**
+     * Check the recordings of the recorder for one that is running
+     */
+    private static void update(FlightRecorder recorder) {
+        boolean running = false;
+        for (Recording each : recorder.getRecordings()) {
+            if (each.getState() == RecordingState.RUNNING) {
+                running = true;
+            }
+        }
+        recording = running;
+    }
+
+    /**
+     * Check if a recording is running
+     */
+    public static boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Start timing a deal
+     * @return The event, or null if nothing is recording
+     */
+    public static DealEvent startDeal() {
+        if (!recording) {
+            return null;
+        }
+        DealEvent event = new DealEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Record a deal started with startDeal() (not null)
+     */
+    public static void commitDeal(DealEvent event, int tableId, int seats, int cardCount) {
+        if (event.shouldCommit()) {
+            event.tableId = tableId;
+            event.seats = seats;
+            event.cardCount = cardCount;
+            event.commit();
+        }
+    }
+
+    /**
+     * Start timing a play
+     * @return The event, or null if nothing is recording
+     */
+    public static PlayEvent startPlay() {
+        if (!recording) {
+            return null;
+        }
+        PlayEvent event = new PlayEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Record a play started with startPlay() (not null)
+     */
+    public static void commitPlay(PlayEvent event, int tableId, int seat, int cardCount, int pileSize,
+            String declaredRank) {
+        if (event.shouldCommit()) {
+            event.tableId = tableId;
+            event.seat = seat;
+            event.cardCount = cardCount;
+            event.pileSize = pileSize;
+            event.declaredRank = declaredRank;
+            event.commit();
+        }
+    }
+
+    /**
+     * Start timing a challenge
+     * @return The event, or null if nothing is recording
+     */
+    public static ChallengeEvent startChallenge() {
+        if (!recording) {
+            return null;
+        }
+        ChallengeEvent event = new ChallengeEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Record a challenge started with startChallenge() (not null)
+     */
+    public static void commitChallenge(ChallengeEvent event, int tableId, int seat, int loserSeat,
+            boolean successful, int cardCount, int pileSize) {
+        if (event.shouldCommit()) {
+            event.tableId = tableId;
+            event.seat = seat;
+            event.loserSeat = loserSeat;
+            event.successful = successful;
+            event.cardCount = cardCount;
+            event.pileSize = pileSize;
+            event.commit();
+        }
+    }
+
+    /**
+     * Start timing a refresh of the game window
+     * @return The event, or null if nothing is recording
+     */
+    public static UiRefreshEvent startUiRefresh() {
+        if (!recording) {
+            return null;
+        }
+        UiRefreshEvent event = new UiRefreshEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Record a refresh started with startUiRefresh() (not null)
+     * @param part "hand" or "play area"
+     */
+    public static void commitUiRefresh(UiRefreshEvent event, int tableId, String part, int seat, int cardCount,
+            int pileSize) {
+        if (event.shouldCommit()) {
+            event.tableId = tableId;
+            event.part = part;
+            event.seat = seat;
+            event.cardCount = cardCount;
+            event.pileSize = pileSize;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package metrics;
+
+/**
+ * Copy of a LatencyHistogram at one moment, which no longer changes
+ */
+public class HistogramSnapshot {
+
+    private long[] counts;  // Values counted in each bucket
+    private long count;     // Values counted in all
+    private long total;     // Sum of the values
+    private long min;       // Smallest value (0 if none)
+    private long max;       // Largest value (0 if none)
+
+    /**
+     * Create a snapshot from copied buckets
+     */
+    HistogramSnapshot(long[] counts, long total, long min, long max) {
+        this.counts = counts;
+        for (int i = 0; i < counts.length; i++) {
+            this.count += counts[i];
+        }
+        this.total = total;
+        this.min = count == 0 ? 0 : min;
+        this.max = max;
+    }
+
+    /**
+     * Get the number of values recorded
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Get the sum of the values recorded
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Get the smallest value recorded (0 if none were)
+     */
+    public long getMin() {
+        return min;
+    }
+
+    /**
+     * Get the largest value recorded (0 if none were)
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Get the average value recorded (0 if none were)
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * Get the value that a share of the values recorded are at or below
+     * @param percentile The share, from 0 to 100 (50 is the median)
+     * @return The value, to within the precision of the histogram (0 if none were recorded)
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be 0-100!");
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        // Find the bucket holding the value at that rank
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(max, LatencyHistogram.highestOf(i)));
+            }
+        }
+        return max;
+    }
+
+    // Get a printable row: count, mean, median, tail percentiles and max in microseconds
+    public String toString() {
+        return String.format("%10d %10.1f %10.1f %10.1f %10.1f %10.1f", count, getMean() / 1000.0,
+                getPercentile(50) / 1000.0, getPercentile(99) / 1000.0, getPercentile(99.9) / 1000.0,
+                max / 1000.0);
+    }
+}
@@ -0,0 +1,120 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of times in nanoseconds, in the style of HdrHistogram
+ * Values below 128 get a bucket each; above that, every power of two is split
+ * into 64 buckets, so any value is counted within 1/64 (about 1.6%) of what it
+ * was while the whole range up to MAX_VALUE takes a few thousand counters
+ * Any number of threads may record at once; a snapshot taken while they do
+ * may miss the values being recorded at that moment
+ */
+public class LatencyHistogram {
+
+    // Bits of precision kept below the highest bit of a value (64 buckets per power of two)
+    private static final int SUB_BITS = 6;
+
+    // Largest value told apart from the others (about 18 minutes); larger values count as this
+    public static final long MAX_VALUE = (1L << 40) - 1;
+
+    // Number of buckets needed to reach MAX_VALUE
+    static final int BUCKET_COUNT = bucketOf(MAX_VALUE) + 1;
+
+    private AtomicLongArray counts; // Values recorded in each bucket
+    private AtomicLong min;         // Smallest value recorded
+    private AtomicLong max;         // Largest value recorded
+    private AtomicLong total;       // Sum of the values recorded
+
+    /**
+     * Create an empty histogram
+     */
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKET_COUNT);
+        this.min = new AtomicLong(Long.MAX_VALUE);
+        this.max = new AtomicLong();
+        this.total = new AtomicLong();
+    }
+
+    /**
+     * Record one time
+     * @param nanos The time (negative times count as 0)
+     */
+    public void record(long nanos) {
+        long value = nanos < 0 ? 0 : Math.min(nanos, MAX_VALUE);
+        counts.incrementAndGet(bucketOf(value));
+        total.addAndGet(value);
+
+        long low = min.get();
+        while (value < low && !min.compareAndSet(low, value)) {
+            low = min.get();
+        }
+        long high = max.get();
+        while (value > high && !max.compareAndSet(high, value)) {
+            high = max.get();
+        }
+    }
+
+    /**
+     * Copy what has been recorded so far
+     */
+    public HistogramSnapshot snapshot() {
+        return copy(false);
+    }
+
+    /**
+     * Copy what has been recorded so far and start again from empty
+     * A value recorded during the call ends up counted in the copy or in the
+     * histogram, but is not lost
+     */
+    public HistogramSnapshot snapshotAndReset() {
+        return copy(true);
+    }
+
+    /**
+     * Forget everything recorded
+     */
+    public void reset() {
+        copy(true);
+    }
+
+    /**
+     * Copy the buckets, emptying them if asked
+     */
+    private HistogramSnapshot copy(boolean reset) {
+        long[] copied = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copied[i] = reset ? counts.getAndSet(i, 0) : counts.get(i);
+        }
+        long sum = reset ? total.getAndSet(0) : total.get();
+        long low = reset ? min.getAndSet(Long.MAX_VALUE) : min.get();
+        long high = reset ? max.getAndSet(0) : max.get();
+        return new HistogramSnapshot(copied, sum, low, high);
+    }
+
+    /**
+     * Get the bucket a value is counted in
+     */
+    static int bucketOf(long value) {
+        // Values below 128 are exact; above, drop the bits beyond the precision kept
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BITS);
+        return (shift << SUB_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * Get the smallest value counted in a bucket
+     */
+    static long lowestOf(int bucket) {
+        int shift = Math.max(0, (bucket >>> SUB_BITS) - 1);
+        return (long) (bucket - (shift << SUB_BITS)) << shift;
+    }
+
+    /**
+     * Get the largest value counted in a bucket
+     */
+    static long highestOf(int bucket) {
+        int shift = Math.max(0, (bucket >>> SUB_BITS) - 1);
+        return lowestOf(bucket) + (1L << shift) - 1;
+    }
+}
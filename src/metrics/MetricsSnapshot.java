@@ -0,0 +1,48 @@
+package metrics;
+
+/**
+ * Copy of every engine timing and counter at one moment (see EngineMetrics)
+ */
+public class MetricsSnapshot {
+
+    private HistogramSnapshot[] timings; // Timings by operation
+    private long[] counters;             // Counters by event
+
+    /**
+     * Create a snapshot
+     */
+    MetricsSnapshot(HistogramSnapshot[] timings, long[] counters) {
+        this.timings = timings;
+        this.counters = counters;
+    }
+
+    /**
+     * Get the timings of one operation
+     * @param operation Which operation (EngineMetrics.DEAL, ...)
+     */
+    public HistogramSnapshot getTiming(int operation) {
+        return timings[operation];
+    }
+
+    /**
+     * Get the value of one counter
+     * @param counter Which event (EngineMetrics.INVALID_PLAYS, ...)
+     */
+    public long getCounter(int counter) {
+        return counters[counter];
+    }
+
+    // Get a printable table of the timings in microseconds, followed by the counters
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("%-14s %10s %10s %10s %10s %10s %10s%n", "Operation", "Count", "Mean us",
+                "p50 us", "p99 us", "p99.9 us", "Max us"));
+        for (int i = 0; i < timings.length; i++) {
+            text.append(String.format("%-14s %s%n", EngineMetrics.OPERATION_NAMES[i], timings[i]));
+        }
+        for (int i = 0; i < counters.length; i++) {
+            text.append(String.format("%-14s %10d%n", EngineMetrics.COUNTER_NAMES[i], counters[i]));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,34 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one play (Manager.playCards)
+ */
+@Name("madiao.Play")
+@Label("Play")
+@Category({"Madiao", "Game"})
+@Description("Cards played face down with a declared rank")
+public class PlayEvent extends Event {
+
+    @Label("Table")
+    @Description("Number of the table hosting the game (0 if none)")
+    public int tableId;
+
+    @Label("Seat")
+    public int seat;
+
+    @Label("Cards Played")
+    public int cardCount;
+
+    @Label("Pile Size")
+    @Description("Cards in the pile after the play")
+    public int pileSize;
+
+    @Label("Declared Rank")
+    public String declaredRank;
+}
@@ -0,0 +1,37 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for rebuilding part of the game window
+ * (GameFrame.updatePlayArea and updatePlayerHand, on the event dispatch thread)
+ */
+@Name("madiao.UiRefresh")
+@Label("UI Refresh")
+@Category({"Madiao", "UI"})
+@Description("Rebuilding the hand or play area of the game window")
+public class UiRefreshEvent extends Event {
+
+    @Label("Table")
+    @Description("Number of the table hosting the game (0 if none)")
+    public int tableId;
+
+    @Label("Part")
+    @Description("\"hand\" or \"play area\"")
+    public String part;
+
+    @Label("Seat")
+    @Description("Seat of the current player")
+    public int seat;
+
+    @Label("Card Count")
+    @Description("Cards shown (the hand, or the last play)")
+    public int cardCount;
+
+    @Label("Pile Size")
+    public int pileSize;
+}
@@ -27,18 +27,51 @@ public class Card {
 		}
 	}
 
-	// Card properties
-	private Suit suit;      // Card suit (COINS, CHALICES, etc.)
-	private Rank rank;      // Card rank (ONE, TWO, etc.)
-	private boolean isRevealed;  // Whether the card is visible
+	// Number of distinct cards (4 suits × 6 ranks)
+	public static final int COUNT = 24;
+
+	// The one shared instance of each card, stored at its index
+	private static final Card[] ALL_CARDS = new Card[COUNT];
+
+	static {
+		// Create every card once, in suit then rank order
+		Suit[] allSuits = Suit.values();
+		Rank[] allRanks = Rank.values();
+		for (int s = 0; s < allSuits.length; s++) {
+			for (int r = 0; r < allRanks.length; r++) {
+				Card card = new Card(allSuits[s], allRanks[r]);
+				ALL_CARDS[card.getIndex()] = card;
+			}
+		}
+	}
+
+	// Card properties (cards never change, so every game can share them)
+	private final Suit suit;      // Card suit (COINS, CHALICES, etc.)
+	private final Rank rank;      // Card rank (ONE, TWO, etc.)
+	private final int index;      // Position of the card in suit then rank order (0-23)
 
 	/**
-	 * Create a new card
+	 * Create a card (only used to build the shared instances)
 	 */
-	public Card(Suit suit, Rank rank) {
+	private Card(Suit suit, Rank rank) {
 		this.suit = suit;
 		this.rank = rank;
-		this.isRevealed = false;  // Cards start face down by default
+		this.index = suit.ordinal() * 6 + rank.ordinal();
+	}
+
+	/**
+	 * Get the shared card with the given suit and rank
+	 */
+	public static Card of(Suit suit, Rank rank) {
+		return ALL_CARDS[suit.ordinal() * 6 + rank.ordinal()];
+	}
+
+	/**
+	 * Get the shared card at an index
+	 * @param index Card index (0-23)
+	 */
+	public static Card get(int index) {
+		return ALL_CARDS[index];
 	}
 
 	// Get the suit of this card
@@ -51,28 +84,14 @@ public class Card {
 		return rank;
 	}
 
-	// Turn the card face up (reveal it)
-	public void revealCard() {
-		this.isRevealed = true;
-	}
-
-	// Turn the card face down (hide it)
-	public void hideCard() {
-		this.isRevealed = false;
-	}
-
-	// Check if the card is face up (revealed)
-	public boolean isRevealed() {
-		return isRevealed;
+	// Get the index of this card (suit × 6 + rank, 0-23)
+	public int getIndex() {
+		return index;
 	}
 
 	// Get a string representation of the card
 	public String toString() {
-		if (isRevealed) {
-			return rank + " of " + suit;
-		} else {
-			return "Facedown Card";
-		}
+		return rank + " of " + suit;
 	}
 
 	// Check if two cards are the same
@@ -101,11 +120,8 @@ public class Card {
 		}
 	}
 
-	// Generate a hash code for HashMap/HashSet
+	// Generate a hash code for HashMap/HashSet (the index, so it is the same on every run)
 	public int hashCode() {
-		int result = 31;
-		result = result * suit.hashCode();
-		result = result + rank.hashCode();
-		return result;
+		return index;
 	}
 }
\ No newline at end of file
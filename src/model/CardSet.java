@@ -0,0 +1,257 @@
+package model;
+
+/**
+ * A set of cards stored as a 24-bit mask (bit i is the card with index i)
+ */
+public class CardSet implements CardView {
+
+    // Mask with every card in it
+    public static final int ALL_MASK = (1 << Card.COUNT) - 1;
+
+    // Mask with the ONE of every suit (shift left by a rank's ordinal for the other ranks)
+    private static final int RANK_ONE_MASK = 1 | (1 << 6) | (1 << 12) | (1 << 18);
+
+    private int mask; // Cards in the set
+
+    /**
+     * Create an empty card set
+     */
+    public CardSet() {
+        this.mask = 0;
+    }
+
+    /**
+     * Create a card set from a mask
+     */
+    public CardSet(int mask) {
+        this.mask = mask & ALL_MASK;
+    }
+
+    /**
+     * Get the mask of all cards with a rank
+     */
+    public static int rankMask(Card.Rank rank) {
+        return RANK_ONE_MASK << rank.ordinal();
+    }
+
+    /**
+     * Get the mask of a group of cards
+     * @return The mask, or -1 if the same card is listed twice
+     */
+    public static int maskOf(Card[] cards) {
+        int result = 0;
+        for (int i = 0; i < cards.length; i++) {
+            int bit = 1 << cards[i].getIndex();
+
+            // Reject duplicates
+            if ((result & bit) != 0) {
+                return -1;
+            }
+            result |= bit;
+        }
+        return result;
+    }
+
+    /**
+     * Get the cards in a mask, ordered by index
+     */
+    public static Card[] toArray(int mask) {
+        Card[] result = new Card[Integer.bitCount(mask)];
+
+        int resultIndex = 0;
+        int remaining = mask;
+        while (remaining != 0) {
+            result[resultIndex] = Card.get(Integer.numberOfTrailingZeros(remaining));
+            resultIndex++;
+
+            // Clear the lowest set bit
+            remaining &= remaining - 1;
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the mask of the cards in this set
+     */
+    public int getMask() {
+        return mask;
+    }
+
+    /**
+     * Get the number of cards in the set
+     */
+    public int size() {
+        return Integer.bitCount(mask);
+    }
+
+    /**
+     * Check if the set has no cards
+     */
+    public boolean isEmpty() {
+        return mask == 0;
+    }
+
+    /**
+     * Check if a card is in the set
+     */
+    public boolean contains(Card card) {
+        return (mask & (1 << card.getIndex())) != 0;
+    }
+
+    /**
+     * Check if every card of a mask is in the set
+     */
+    public boolean containsAll(int otherMask) {
+        return (mask & otherMask) == otherMask;
+    }
+
+    /**
+     * Get the number of cards of a rank in the set
+     */
+    public int countRank(Card.Rank rank) {
+        return Integer.bitCount(mask & rankMask(rank));
+    }
+
+    /**
+     * Visit each card in the set in index order
+     */
+    public void forEach(CardVisitor visitor) {
+        int remaining = mask;
+        while (remaining != 0) {
+            visitor.visit(Card.get(Integer.numberOfTrailingZeros(remaining)));
+            remaining &= remaining - 1;
+        }
+    }
+
+    /**
+     * Add a card to the set
+     * @return true if the card was not already in the set
+     */
+    public boolean add(Card card) {
+        int bit = 1 << card.getIndex();
+        if ((mask & bit) != 0) {
+            return false;
+        }
+        mask |= bit;
+        return true;
+    }
+
+    /**
+     * Remove a card from the set
+     * @return true if the card was in the set
+     */
+    public boolean remove(Card card) {
+        int bit = 1 << card.getIndex();
+        if ((mask & bit) == 0) {
+            return false;
+        }
+        mask &= ~bit;
+        return true;
+    }
+
+    /**
+     * Add every card of a mask to the set
+     */
+    public void addAll(int otherMask) {
+        mask |= otherMask & ALL_MASK;
+    }
+
+    /**
+     * Remove every card of a mask from the set
+     */
+    public void removeAll(int otherMask) {
+        mask &= ~otherMask;
+    }
+
+    /**
+     * Remove every card from the set
+     */
+    public void clear() {
+        mask = 0;
+    }
+
+    /**
+     * Get the cards in the set, ordered by index
+     */
+    public Card[] toArray() {
+        return toArray(mask);
+    }
+
+    // Check if two sets hold the same cards
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        return mask == ((CardSet) obj).mask;
+    }
+
+    // Generate a hash code for HashMap/HashSet
+    public int hashCode() {
+        return mask;
+    }
+
+    // Get a string representation of the set
+    public String toString() {
+        StringBuilder text = new StringBuilder("[");
+        Card[] cards = toArray();
+        for (int i = 0; i < cards.length; i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            text.append(cards[i]);
+        }
+        return text.append("]").toString();
+    }
+
+    /**
+     * Get a read-only view of the set that sees its later changes
+     * The view is not a CardSet, so code given it cannot cast it back and change the set
+     */
+    public CardView readOnlyView() {
+        return new ReadOnlyView(this);
+    }
+
+    /**
+     * Read-only view of a card set
+     */
+    private static final class ReadOnlyView implements CardView {
+        private final CardSet set; // The set seen through this view
+
+        ReadOnlyView(CardSet set) {
+            this.set = set;
+        }
+
+        public int getMask() {
+            return set.mask;
+        }
+
+        public int size() {
+            return set.size();
+        }
+
+        public boolean isEmpty() {
+            return set.isEmpty();
+        }
+
+        public boolean contains(Card card) {
+            return set.contains(card);
+        }
+
+        public int countRank(Card.Rank rank) {
+            return set.countRank(rank);
+        }
+
+        public void forEach(CardVisitor visitor) {
+            set.forEach(visitor);
+        }
+
+        // Get a string representation of the cards
+        public String toString() {
+            return set.toString();
+        }
+    }
+}
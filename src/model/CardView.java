@@ -0,0 +1,38 @@
+package model;
+
+/**
+ * Read-only view of a group of cards
+ * Views are backed by the live cards, so they see later changes without copying
+ */
+public interface CardView {
+
+    /**
+     * Get the mask of the cards (bit i is the card with index i)
+     */
+    int getMask();
+
+    /**
+     * Get the number of cards
+     */
+    int size();
+
+    /**
+     * Check if there are no cards
+     */
+    boolean isEmpty();
+
+    /**
+     * Check if a card is included
+     */
+    boolean contains(Card card);
+
+    /**
+     * Get the number of cards of a rank
+     */
+    int countRank(Card.Rank rank);
+
+    /**
+     * Visit each card in index order
+     */
+    void forEach(CardVisitor visitor);
+}
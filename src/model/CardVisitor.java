@@ -0,0 +1,13 @@
+package model;
+
+/**
+ * Receives cards one at a time when walking over a group of cards
+ */
+public interface CardVisitor {
+
+    /**
+     * Called once for each card
+     * @param card The card being visited
+     */
+    void visit(Card card);
+}
@@ -1,5 +1,7 @@
 package model;
 
+import java.util.SplittableRandom;
+
 /**
  * Manages the deck of cards in the Super Madiao game
  */
@@ -7,66 +9,59 @@ public class Deck {
 
 	// Store all cards in the deck (maximum 24 cards: 4 suits × 6 ranks)
 	private Card[] cards;
-	private int cardCount;
+	private int cardCount;           // Number of cards created for the deck
+	private int topIndex;            // Position of the next card to draw
+	private SplittableRandom random; // Random source used for shuffling
 
 	/**
 	 * Create and shuffle a new deck with all cards
 	 */
 	public Deck() {
-		// Create array to hold all cards (4 suits × 6 ranks = 24 cards)
-		cards = new Card[24];
-		cardCount = 0;
+		this(new SplittableRandom());
+	}
 
-		// Create all ranks for COINS
-		cards[cardCount++] = new Card(Card.Suit.COINS, Card.Rank.ONE);
-		cards[cardCount++] = new Card(Card.Suit.COINS, Card.Rank.TWO);
-		cards[cardCount++] = new Card(Card.Suit.COINS, Card.Rank.THREE);
-		cards[cardCount++] = new Card(Card.Suit.COINS, Card.Rank.FOUR);
-		cards[cardCount++] = new Card(Card.Suit.COINS, Card.Rank.FIVE);
-		cards[cardCount++] = new Card(Card.Suit.COINS, Card.Rank.SIX);
+	/**
+	 * Create and shuffle a new deck whose order is fixed by a seed
+	 * @param seed The seed for shuffling (the same seed gives the same deal)
+	 */
+	public Deck(long seed) {
+		this(new SplittableRandom(seed));
+	}
 
-		// Create all ranks for CHALICES
-		cards[cardCount++] = new Card(Card.Suit.CHALICES, Card.Rank.ONE);
-		cards[cardCount++] = new Card(Card.Suit.CHALICES, Card.Rank.TWO);
-		cards[cardCount++] = new Card(Card.Suit.CHALICES, Card.Rank.THREE);
-		cards[cardCount++] = new Card(Card.Suit.CHALICES, Card.Rank.FOUR);
-		cards[cardCount++] = new Card(Card.Suit.CHALICES, Card.Rank.FIVE);
-		cards[cardCount++] = new Card(Card.Suit.CHALICES, Card.Rank.SIX);
+	/**
+	 * Create and shuffle a new deck using the given random source
+	 * @param random Random source owned by this deck (not shared with other threads)
+	 */
+	public Deck(SplittableRandom random) {
+		this.random = random;
 
-		// Create all ranks for WANDS
-		cards[cardCount++] = new Card(Card.Suit.WANDS, Card.Rank.ONE);
-		cards[cardCount++] = new Card(Card.Suit.WANDS, Card.Rank.TWO);
-		cards[cardCount++] = new Card(Card.Suit.WANDS, Card.Rank.THREE);
-		cards[cardCount++] = new Card(Card.Suit.WANDS, Card.Rank.FOUR);
-		cards[cardCount++] = new Card(Card.Suit.WANDS, Card.Rank.FIVE);
-		cards[cardCount++] = new Card(Card.Suit.WANDS, Card.Rank.SIX);
+		// Create array to hold all cards (4 suits × 6 ranks = 24 cards)
+		cards = new Card[Card.COUNT];
+		cardCount = 0;
+		topIndex = 0;
 
-		// Create all ranks for SWORDS
-		cards[cardCount++] = new Card(Card.Suit.SWORDS, Card.Rank.ONE);
-		cards[cardCount++] = new Card(Card.Suit.SWORDS, Card.Rank.TWO);
-		cards[cardCount++] = new Card(Card.Suit.SWORDS, Card.Rank.THREE);
-		cards[cardCount++] = new Card(Card.Suit.SWORDS, Card.Rank.FOUR);
-		cards[cardCount++] = new Card(Card.Suit.SWORDS, Card.Rank.FIVE);
-		cards[cardCount++] = new Card(Card.Suit.SWORDS, Card.Rank.SIX);
+		// Add the shared instance of every card
+		for (int i = 0; i < Card.COUNT; i++) {
+			cards[cardCount++] = Card.get(i);
+		}
 
 		// Shuffle the cards
 		shuffle();
 	}
 
 	/**
-	 * Shuffle the deck (randomize card order)
+	 * Shuffle the cards left in the deck (randomize card order)
+	 * Uses the Fisher-Yates algorithm, so every order is equally likely
 	 */
 	public void shuffle() {
-		// Shuffle by swapping pairs of cards many times
-		for (int i = 0; i < 100; i++) {
-			// Pick two random positions
-			int pos1 = (int) (Math.random() * cardCount);
-			int pos2 = (int) (Math.random() * cardCount);
+		// Walk backwards, swapping each card with a random card at or before it
+		for (int i = cardCount - 1; i > topIndex; i--) {
+			int pos = topIndex + random.nextInt(i - topIndex + 1);
 
 			// Swap the cards at these positions
-			Card temp = cards[pos1];
-			cards[pos1] = cards[pos2];
-			cards[pos2] = temp;
+			Card temp = cards[i];
+			cards[i] = cards[pos];
+			cards[pos] = temp;
 		}
 	}
 
@@ -76,22 +71,14 @@ public class Deck {
 	 */
 	public Card draw() {
 		// Check if there are any cards left
-		if (cardCount <= 0) {
+		if (topIndex >= cardCount) {
 			return null;
 		}
 
-		// Get the top card
-		Card topCard = cards[0];
-
-		// Shift all other cards one position forward
-		for (int i = 0; i < cardCount - 1; i++) {
-			cards[i] = cards[i + 1];
-		}
-
-		// Decrease card count
-		cardCount--;
+		// Take the top card and move the top past it
+		Card topCard = cards[topIndex];
+		topIndex++;
 
-		// Return the top card
 		return topCard;
 	}
 
@@ -99,6 +86,6 @@ public class Deck {
 	 * Get the number of cards left in the deck
 	 */
 	public int size() {
-		return cardCount;
+		return cardCount - topIndex;
 	}
 }
\ No newline at end of file
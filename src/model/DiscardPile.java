@@ -7,6 +7,7 @@ public class DiscardPile {
 
 	private Card[] cards;     // Array of discarded cards
 	private int cardCount;    // Number of cards in pile
+	private CardSet cardSet;  // The same cards, for quick lookup
 
 	/**
 	 * Create an empty discard pile
@@ -15,6 +16,7 @@ public class DiscardPile {
 		// Can store up to 24 cards (entire deck)
 		this.cards = new Card[24];
 		this.cardCount = 0;
+		this.cardSet = new CardSet();
 	}
 
 	/**
@@ -23,8 +25,8 @@ public class DiscardPile {
 	public void addToPile(Card[] newCards) {
 		// Add each new card to the pile
 		for (int i = 0; i < newCards.length; i++) {
-			// Make sure we don't exceed array bounds
-			if (cardCount < cards.length) {
+			// Make sure we don't exceed array bounds or add a card twice
+			if (cardCount < cards.length && cardSet.add(newCards[i])) {
 				cards[cardCount] = newCards[i];
 				cardCount++;
 			}
@@ -61,6 +63,23 @@ public class DiscardPile {
 		return result;
 	}
 
+	/**
+	 * Get a card from the discard pile (no copy is made)
+	 * @param index Position of the card (0 is the oldest)
+	 */
+	public Card getCard(int index) {
+		return cards[index];
+	}
+
+	/**
+	 * Visit each card in the discard pile, oldest first
+	 */
+	public void forEachCard(CardVisitor visitor) {
+		for (int i = 0; i < cardCount; i++) {
+			visitor.visit(cards[i]);
+		}
+	}
+
 	/**
 	 * Clear the discard pile and return the cards
 	 */
@@ -70,11 +89,19 @@ public class DiscardPile {
 
 		// Clear the pile
 		cardCount = 0;
+		cardSet.clear();
 
 		// Return the cards that were removed
 		return allCards;
 	}
 
+	/**
+	 * Check if a card is in the discard pile
+	 */
+	public boolean contains(Card card) {
+		return cardSet.contains(card);
+	}
+
 	/**
 	 * Get the number of cards in the discard pile
 	 */
@@ -0,0 +1,28 @@
+package model;
+
+/**
+ * GameListener with empty methods, to extend when only some changes matter
+ */
+public abstract class GameAdapter implements GameListener {
+
+    public void cardsRemoved(int seat, int cardMask) {
+    }
+
+    public void cardsAdded(int seat, int cardMask) {
+    }
+
+    public void playAppended(int seat, int cardMask, Card.Rank declaredRank) {
+    }
+
+    public void challengeResolved(int challengerSeat, int loserSeat, boolean successful) {
+    }
+
+    public void pileCleared() {
+    }
+
+    public void turnMoved(int seat, int roundNumber) {
+    }
+
+    public void stateReplaced() {
+    }
+}
@@ -0,0 +1,60 @@
+package model;
+
+/**
+ * Receives each change to a game as it happens, so a client can keep its own
+ * copy up to date without rebuilding the whole picture after every action
+ * Methods are called by Manager on the thread that changed the game
+ */
+public interface GameListener {
+
+    /**
+     * Cards left a seat's hand
+     * @param seat The seat
+     * @param cardMask Mask of the cards that left
+     */
+    void cardsRemoved(int seat, int cardMask);
+
+    /**
+     * Cards were added to a seat's hand
+     * @param seat The seat
+     * @param cardMask Mask of the cards added
+     */
+    void cardsAdded(int seat, int cardMask);
+
+    /**
+     * A play was put on the pile
+     * @param seat The seat that played
+     * @param cardMask Mask of the cards played
+     * @param declaredRank The rank declared
+     */
+    void playAppended(int seat, int cardMask, Card.Rank declaredRank);
+
+    /**
+     * A challenge was decided
+     * Called once the game has moved on: the loser already holds the pile and
+     * has the turn, but cardsAdded(), pileCleared() and turnMoved() for the
+     * move are reported after this call
+     * @param challengerSeat The seat that challenged
+     * @param loserSeat The seat that takes the pile
+     * @param successful true if the challenged play was a bluff
+     */
+    void challengeResolved(int challengerSeat, int loserSeat, boolean successful);
+
+    /**
+     * Every play was taken off the pile
+     */
+    void pileCleared();
+
+    /**
+     * The turn passed to a seat
+     * @param seat The seat to move
+     * @param roundNumber The round number after the change
+     */
+    void turnMoved(int seat, int roundNumber);
+
+    /**
+     * The whole game was replaced (for example by importState), so earlier
+     * changes no longer add up to the current game
+     */
+    void stateReplaced();
+}
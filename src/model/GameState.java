@@ -0,0 +1,279 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, compact snapshot of a game (hands as card masks, a summary of the pile,
+ * whose turn it is and the round number)
+ * Moves are applied with play() and challenge(), which return a new state and leave
+ * this one unchanged, so a position can be copied without touching any Player or Pile
+ */
+public final class GameState {
+
+    // Largest number of cards in one play
+    public static final int MAX_PLAY_SIZE = 4;
+
+    private final int[] hands;          // Card mask of each seat's hand
+    private final int pileMask;         // Every card in the pile
+    private final int pilePlayCount;    // Number of plays in the pile
+    private final int lastPlayMask;     // Cards of the most recent play (0 if the pile is empty)
+    private final int lastPlaySeat;     // Seat that made the most recent play (-1 if none)
+    private final int lastDeclaredRank; // Ordinal of the rank declared by the most recent play (-1 if none)
+    private final int currentSeat;      // Seat whose turn it is
+    private final int roundNumber;      // Current round number
+
+    /**
+     * Create a game state
+     * @param hands Card mask of each seat's hand (copied)
+     * @param pileMask Every card in the pile
+     * @param pilePlayCount Number of plays in the pile
+     * @param lastPlayMask Cards of the most recent play (0 if the pile is empty)
+     * @param lastPlaySeat Seat that made the most recent play (-1 if none)
+     * @param lastDeclaredRank Rank declared by the most recent play (null if none)
+     * @param currentSeat Seat whose turn it is
+     * @param roundNumber Current round number
+     */
+    public GameState(int[] hands, int pileMask, int pilePlayCount, int lastPlayMask, int lastPlaySeat,
+                     Card.Rank lastDeclaredRank, int currentSeat, int roundNumber) {
+        this(hands.clone(), pileMask, pilePlayCount, lastPlayMask, lastPlaySeat,
+                lastDeclaredRank == null ? -1 : lastDeclaredRank.ordinal(), currentSeat, roundNumber);
+    }
+
+    /**
+     * Create a game state that takes ownership of the hands array
+     */
+    private GameState(int[] hands, int pileMask, int pilePlayCount, int lastPlayMask, int lastPlaySeat,
+                      int lastDeclaredRank, int currentSeat, int roundNumber) {
+        this.hands = hands;
+        this.pileMask = pileMask;
+        this.pilePlayCount = pilePlayCount;
+        this.lastPlayMask = lastPlayMask;
+        this.lastPlaySeat = lastPlaySeat;
+        this.lastDeclaredRank = lastDeclaredRank;
+        this.currentSeat = currentSeat;
+        this.roundNumber = roundNumber;
+    }
+
+    /**
+     * Get number of seats
+     */
+    public int getPlayerCount() {
+        return hands.length;
+    }
+
+    /**
+     * Get the card mask of a seat's hand
+     */
+    public int getHand(int seat) {
+        return hands[seat];
+    }
+
+    /**
+     * Get the number of cards in a seat's hand
+     */
+    public int getCardCount(int seat) {
+        return Integer.bitCount(hands[seat]);
+    }
+
+    /**
+     * Get the mask of every card in the pile
+     */
+    public int getPileMask() {
+        return pileMask;
+    }
+
+    /**
+     * Get the number of cards in the pile
+     */
+    public int getPileCardCount() {
+        return Integer.bitCount(pileMask);
+    }
+
+    /**
+     * Get the number of plays in the pile
+     */
+    public int getPilePlayCount() {
+        return pilePlayCount;
+    }
+
+    /**
+     * Check if there is a play that can be challenged
+     */
+    public boolean hasLastPlay() {
+        return lastPlaySeat >= 0;
+    }
+
+    /**
+     * Get the cards of the most recent play (0 if the pile is empty)
+     */
+    public int getLastPlayMask() {
+        return lastPlayMask;
+    }
+
+    /**
+     * Get the seat that made the most recent play (-1 if the pile is empty)
+     */
+    public int getLastPlaySeat() {
+        return lastPlaySeat;
+    }
+
+    /**
+     * Get the rank declared by the most recent play
+     * @return The declared rank, or null if the pile is empty
+     */
+    public Card.Rank getLastDeclaredRank() {
+        if (lastDeclaredRank < 0) {
+            return null;
+        }
+        return Card.Rank.values()[lastDeclaredRank];
+    }
+
+    /**
+     * Check if the most recent play matches its declared rank
+     */
+    public boolean lastPlayMatchesDeclaration() {
+        return hasLastPlay()
+                && (lastPlayMask & ~CardSet.rankMask(Card.Rank.values()[lastDeclaredRank])) == 0;
+    }
+
+    /**
+     * Get the seat whose turn it is
+     */
+    public int getCurrentSeat() {
+        return currentSeat;
+    }
+
+    /**
+     * Get the current round number
+     */
+    public int getRoundNumber() {
+        return roundNumber;
+    }
+
+    /**
+     * Get the seat that has won (the first seat with no cards, like Manager.checkForWinner)
+     * @return The winning seat, or -1 if no winner yet
+     */
+    public int getWinnerSeat() {
+        for (int seat = 0; seat < hands.length; seat++) {
+            if (hands[seat] == 0) {
+                return seat;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Check if the game is over
+     */
+    public boolean isGameOver() {
+        return getWinnerSeat() >= 0;
+    }
+
+    /**
+     * Get the state after a move by the current seat
+     * @param move The move to make
+     * @return The new state
+     */
+    public GameState apply(Move move) {
+        if (move.isChallenge()) {
+            return challenge();
+        } else {
+            return play(move.getCardMask(), move.getDeclaredRank());
+        }
+    }
+
+    /**
+     * Get the state after the current seat plays cards
+     * @param cardMask Mask of the cards to play
+     * @param declaredRank The rank to declare
+     * @return The new state
+     */
+    public GameState play(int cardMask, Card.Rank declaredRank) {
+        // Same checks as Manager.playCards
+        if ((hands[currentSeat] & cardMask) != cardMask) {
+            throw new IllegalArgumentException("You don't have these cards!");
+        }
+        int count = Integer.bitCount(cardMask);
+        if (count < 1 || count > MAX_PLAY_SIZE) {
+            throw new IllegalArgumentException("You must play 1-4 cards!");
+        }
+
+        int[] newHands = hands.clone();
+        newHands[currentSeat] &= ~cardMask;
+
+        return new GameState(newHands, pileMask | cardMask, pilePlayCount + 1, cardMask, currentSeat,
+                declaredRank.ordinal(), (currentSeat + 1) % hands.length, roundNumber);
+    }
+
+    /**
+     * Get the state after the current seat challenges the most recent play
+     * The loser of the challenge takes the pile and moves next, as in Manager.challengePlayer
+     * @return The new state, or this state if there is nothing to challenge
+     */
+    public GameState challenge() {
+        if (!hasLastPlay()) {
+            return this;
+        }
+
+        int loser;
+        if (lastPlayMatchesDeclaration()) {
+            loser = currentSeat;
+        } else {
+            loser = lastPlaySeat;
+        }
+
+        int[] newHands = hands.clone();
+        newHands[loser] |= pileMask;
+
+        return new GameState(newHands, 0, 0, 0, -1, -1, loser, roundNumber + 1);
+    }
+
+    // Check if two states describe the same position
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+
+        GameState other = (GameState) obj;
+        return pileMask == other.pileMask
+                && pilePlayCount == other.pilePlayCount
+                && lastPlayMask == other.lastPlayMask
+                && lastPlaySeat == other.lastPlaySeat
+                && lastDeclaredRank == other.lastDeclaredRank
+                && currentSeat == other.currentSeat
+                && roundNumber == other.roundNumber
+                && Arrays.equals(hands, other.hands);
+    }
+
+    // Generate a hash code for HashMap/HashSet
+    public int hashCode() {
+        int result = Arrays.hashCode(hands);
+        result = 31 * result + pileMask;
+        result = 31 * result + pilePlayCount;
+        result = 31 * result + lastPlayMask;
+        result = 31 * result + lastPlaySeat;
+        result = 31 * result + lastDeclaredRank;
+        result = 31 * result + currentSeat;
+        result = 31 * result + roundNumber;
+        return result;
+    }
+
+    // Get a string representation of the state
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append("Round ").append(roundNumber).append(", seat ").append(currentSeat).append(" to move\n");
+        for (int seat = 0; seat < hands.length; seat++) {
+            text.append("  Seat ").append(seat).append(": ").append(new CardSet(hands[seat])).append('\n');
+        }
+        text.append("  Pile: ").append(getPileCardCount()).append(" cards in ").append(pilePlayCount).append(" plays");
+        if (hasLastPlay()) {
+            text.append(", last ").append(Integer.bitCount(lastPlayMask)).append(" declared ")
+                    .append(getLastDeclaredRank()).append(" by seat ").append(lastPlaySeat);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,170 @@
+package model;
+
+/**
+ * What one seat is allowed to know about a game
+ * The view reads the live game (nothing is copied), so one view can be kept for
+ * a whole game; it never exposes other players' cards
+ */
+public class GameView {
+
+    private Manager manager; // The game being viewed
+    private int seat;        // Seat the view belongs to
+    private Player self;     // Player in that seat
+
+    /**
+     * Create a view of a game for one seat
+     */
+    public GameView(Manager manager, int seat) {
+        this.manager = manager;
+        this.seat = seat;
+        this.self = manager.getPlayers()[seat];
+    }
+
+    /**
+     * Get the seat this view belongs to
+     */
+    public int getSeat() {
+        return seat;
+    }
+
+    /**
+     * Get number of seats
+     */
+    public int getPlayerCount() {
+        return manager.getPlayerCount();
+    }
+
+    /**
+     * Get the name of the player in a seat
+     */
+    public String getPlayerName(int otherSeat) {
+        return manager.getPlayers()[otherSeat].getName();
+    }
+
+    /**
+     * Get a read-only view of this seat's hand
+     */
+    public CardView getHand() {
+        return self.getHandView();
+    }
+
+    /**
+     * Get the number of cards of a rank in this seat's hand
+     */
+    public int getRankCount(Card.Rank rank) {
+        return self.getRankCount(rank);
+    }
+
+    /**
+     * Get the number of cards in any seat's hand
+     */
+    public int getCardCount(int otherSeat) {
+        return manager.getPlayers()[otherSeat].getCardCount();
+    }
+
+    /**
+     * Get the seat whose turn it is
+     */
+    public int getCurrentSeat() {
+        return manager.getCurrentPlayerIndex();
+    }
+
+    /**
+     * Get the current round number
+     */
+    public int getRoundNumber() {
+        return manager.getRoundNumber();
+    }
+
+    /**
+     * Get the number of cards in the pile
+     */
+    public int getPileCardCount() {
+        return manager.getPile().getCardCount();
+    }
+
+    /**
+     * Get the number of plays in the pile
+     */
+    public int getPilePlayCount() {
+        return manager.getPile().getPlayCount();
+    }
+
+    /**
+     * Get the mask of the cards this seat put on the pile
+     */
+    public int getOwnPileCards() {
+        Pile pile = manager.getPile();
+        int result = 0;
+        for (int i = 0; i < pile.getPlayCount(); i++) {
+            Play play = pile.getPlay(i);
+            if (play.getPlayer() == self) {
+                result |= play.getCardMask();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Check if there is a play that can be challenged
+     */
+    public boolean hasLastPlay() {
+        return manager.getPile().getLastPlay() != null;
+    }
+
+    /**
+     * Get the number of cards in the last play (0 if the pile is empty)
+     */
+    public int getLastPlayCardCount() {
+        Play lastPlay = manager.getPile().getLastPlay();
+        return lastPlay == null ? 0 : lastPlay.getCardCount();
+    }
+
+    /**
+     * Get the seat that made the last play (-1 if the pile is empty)
+     */
+    public int getLastPlaySeat() {
+        Play lastPlay = manager.getPile().getLastPlay();
+        return lastPlay == null ? -1 : manager.getPlayerIndex(lastPlay.getPlayer());
+    }
+
+    /**
+     * Get the rank declared by the last play (null if the pile is empty)
+     */
+    public Card.Rank getLastDeclaredRank() {
+        Play lastPlay = manager.getPile().getLastPlay();
+        return lastPlay == null ? null : lastPlay.getDeclaredRank();
+    }
+
+    /**
+     * Get the cards of the last play if this seat made it (0 otherwise)
+     */
+    public int getOwnLastPlayMask() {
+        Play lastPlay = manager.getPile().getLastPlay();
+        return lastPlay != null && lastPlay.getPlayer() == self ? lastPlay.getCardMask() : 0;
+    }
+
+    /**
+     * Get the mask of the cards this seat knows are in another seat's hand: cards
+     * it played or saw turned over by a challenge that went to that seat with the
+     * pile, as long as that seat has not played since (see Visibility)
+     * @return The cards (0 for this seat itself)
+     */
+    public int getSeenInHand(int otherSeat) {
+        if (otherSeat == seat) {
+            return 0;
+        }
+        return manager.getVisibility().getVisibleMask(seat) & manager.getPlayers()[otherSeat].getHandView().getMask();
+    }
+
+    /**
+     * Get the mask of the cards this seat knows are in some other seat's hand
+     */
+    public int getSeenInOtherHands() {
+        int result = 0;
+        for (int i = 0; i < manager.getPlayerCount(); i++) {
+            result |= getSeenInHand(i);
+        }
+        return result;
+    }
+}
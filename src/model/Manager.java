@@ -1,5 +1,16 @@
 package model;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import logging.EngineLog;
+import metrics.ChallengeEvent;
+import metrics.DealEvent;
+import metrics.EngineMetrics;
+import metrics.FlightEvents;
+import metrics.PlayEvent;
+
 /**
  * Manages game flow and rules
  */
@@ -7,16 +18,47 @@ public class Manager {
 	// Game components
 	private Player[] players;        // Array of players in the game
 	private int playerCount;         // Number of players
-	private Deck deck;               // Card deck
 	private Pile pile;               // Play pile
 	private DiscardPile discardPile; // Discard pile
+	private Visibility visibility;   // Which cards each seat can see
 	private int currentPlayerIndex;  // Current player index
 	private int roundNumber;         // Current round number
+	private long seed;               // Seed that fixed the deal
+	private int tableId;             // Number of the table hosting the game (0 if none)
+	private ArrayList<GameListener> listeners; // Told about each change
 
 	/**
 	 * Create game manager and deal cards
 	 */
 	public Manager(Player[] players) {
+		this(players, ThreadLocalRandom.current().nextLong());
+	}
+
+	/**
+	 * Create game manager and deal cards in an order fixed by a seed
+	 * @param players The players in seat order
+	 * @param seed The seed for shuffling (the same seed gives the same deal)
+	 */
+	public Manager(Player[] players, long seed) {
+		this(players, seed, 0);
+	}
+
+	/**
+	 * Create game manager for a table and deal cards in an order fixed by a seed
+	 * @param players The players in seat order
+	 * @param seed The seed for shuffling (the same seed gives the same deal)
+	 * @param tableId Number of the table hosting the game, reported in Flight Recorder events
+	 */
+	public Manager(Player[] players, long seed, int tableId) {
+		this(players, seed, tableId, true);
+	}
+
+	/**
+	 * Create game manager for a table, dealing cards only if asked
+	 * @param deal Whether to deal; a game that is restored next is not dealt, so it
+	 *             is not shuffled for nothing or counted and recorded as a deal
+	 */
+	Manager(Player[] players, long seed, int tableId, boolean deal) {
 		// Store players
 		this.playerCount = players.length;
 		this.players = new Player[playerCount];
@@ -25,22 +67,50 @@ public class Manager {
 		}
 
 		// Initialize game components
-		this.deck = new Deck();
+		this.seed = seed;
+		this.tableId = tableId;
 		this.pile = new Pile();
 		this.discardPile = new DiscardPile();
+		this.visibility = new Visibility(playerCount);
+		this.listeners = new ArrayList<GameListener>();
 
 		// Set initial values
 		this.currentPlayerIndex = 0;
 		this.roundNumber = 1;
 
+		if (!deal) {
+			return;
+		}
+
 		// Deal cards to all players
-		dealInitialCards();
+		DealEvent event = FlightEvents.startDeal();
+		long start = EngineMetrics.start();
+		Deck deck = new Deck(seed);
+		int cardCount = deck.size();
+		dealInitialCards(deck);
+		EngineMetrics.stop(EngineMetrics.DEAL, start);
+		if (event != null) {
+			FlightEvents.commitDeal(event, tableId, playerCount, cardCount);
+		}
+	}
+
+	/**
+	 * Create game manager for a table that carries on from a saved game, without dealing first
+	 * @param players The players in seat order
+	 * @param seed The seed the game was dealt with (only kept for getSeed())
+	 * @param tableId Number of the table hosting the game, reported in Flight Recorder events
+	 * @param state The state to carry on from (see importState())
+	 */
+	public static Manager restore(Player[] players, long seed, int tableId, GameState state) {
+		Manager manager = new Manager(players, seed, tableId, false);
+		manager.importState(state);
+		return manager;
 	}
 
 	/**
 	 * Deal initial cards to all players
 	 */
-	private void dealInitialCards() {
+	private void dealInitialCards(Deck deck) {
 		// Shuffle the deck
 		deck.shuffle();
 
@@ -53,9 +123,10 @@ public class Manager {
 					break;
 				}
 
-				// Draw a card and give to player
+				// Draw a card and give to player (only they can see it)
 				Card card = deck.draw();
 				players[i].receiveCard(card);
+				visibility.reveal(i, card);
 			}
 		}
 	}
@@ -67,33 +138,31 @@ public class Manager {
 	 * @param declaredRank The rank being declared
 	 */
 	public void playCards(Player player, Card[] cards, Card.Rank declaredRank) {
+		PlayEvent event = FlightEvents.startPlay();
+		long start = EngineMetrics.start();
+
 		// Check if it's this player's turn
 		if (player != getCurrentPlayer()) {
-			System.out.println("Not this player's turn");
+			EngineLog.log(EngineLog.DEBUG, "Play refused: not {}'s turn", player.getName());
+			EngineMetrics.count(EngineMetrics.INVALID_PLAYS);
 			throw new IllegalStateException("Not your turn!");
 		}
 
 		// Check if player has these cards in their hand
 		if (!player.hasAllCards(cards)) {
 			// Add debug info
-			System.out.println("Player cards: ");
-			Card[] playerCards = player.getHand();
-			for (int i = 0; i < playerCards.length; i++) {
-				Card c = playerCards[i];
-				System.out.println("  " + c.getRank() + " of " + c.getSuit());
-			}
-
-			System.out.println("Attempted cards: ");
-			for (int i = 0; i < cards.length; i++) {
-				Card c = cards[i];
-				System.out.println("  " + c.getRank() + " of " + c.getSuit());
+			if (EngineLog.isEnabled(EngineLog.DEBUG)) {
+				EngineLog.log(EngineLog.DEBUG, "Play refused: {} holds {} but tried {}", player.getName(),
+						new CardSet(player.getHandView().getMask()), Arrays.asList(cards.clone()));
 			}
 
+			EngineMetrics.count(EngineMetrics.INVALID_PLAYS);
 			throw new IllegalArgumentException("You don't have these cards!");
 		}
 
 		// Check number of cards played (must be 1-4)
 		if (cards.length < 1 || cards.length > 4) {
+			EngineMetrics.count(EngineMetrics.INVALID_PLAYS);
 			throw new IllegalArgumentException("You must play 1-4 cards!");
 		}
 
@@ -102,8 +171,33 @@ public class Manager {
 		Play play = new Play(player, cards, declaredRank);
 		pile.addPlay(play);
 
+		// Cards are played face down, so the other seats can no longer tell which
+		// of the cards they knew this player held are still in the hand
+		int playerSeat = getPlayerIndex(player);
+		int handBefore = player.getHandView().getMask() | play.getCardMask();
+		for (int i = 0; i < playerCount; i++) {
+			if (i != playerSeat) {
+				visibility.hideMask(i, handBefore);
+			}
+		}
+
 		// Move to next player
 		nextPlayer();
+
+		// Tell listeners what changed
+		if (!listeners.isEmpty()) {
+			for (int i = 0; i < listeners.size(); i++) {
+				GameListener listener = listeners.get(i);
+				listener.cardsRemoved(playerSeat, play.getCardMask());
+				listener.playAppended(playerSeat, play.getCardMask(), declaredRank);
+				listener.turnMoved(currentPlayerIndex, roundNumber);
+			}
+		}
+		EngineMetrics.stop(EngineMetrics.PLAY, start);
+		if (event != null) {
+			FlightEvents.commitPlay(event, tableId, getPlayerIndex(player), cards.length, pile.getCardCount(),
+					declaredRank.name());
+		}
 	}
 
 	/**
@@ -112,6 +206,9 @@ public class Manager {
 	 * @return true if challenge successful, false if failed
 	 */
 	public boolean challengePlayer(Player challenger) {
+		ChallengeEvent event = FlightEvents.startChallenge();
+		long start = EngineMetrics.start();
+
 		// Get the last play
 		Play lastPlay = pile.getLastPlay();
 
@@ -122,16 +219,21 @@ public class Manager {
 
 		// Get the player who made the last play
 		Player lastPlayer = lastPlay.getPlayer();
+		int pileMask = pile.getCardView().getMask();
+		int pileSize = pile.getCardCount();
+
+		// The challenge turns the last play over for everyone to see
+		for (int i = 0; i < playerCount; i++) {
+			visibility.revealMask(i, lastPlay.getCardMask());
+		}
 
 		// Check if the last play was honest
 		if (!lastPlay.matchesDeclaration()) {
 			// Challenge successful - declared rank didn't match actual cards
 
-			// Last player takes all cards from pile
-			lastPlayer.receivePenalty(pile.getAllCards());
-
-			// Clear the pile
-			pile.clearPile();
+			// Last player takes all cards from pile (and now sees them)
+			pile.transferTo(lastPlayer);
+			visibility.revealMask(getPlayerIndex(lastPlayer), pileMask);
 
 			// After a challenge, the player who lost takes next turn
 			setCurrentPlayer(lastPlayer);
@@ -139,15 +241,20 @@ public class Manager {
 			// Increment round number when pile is cleared
 			roundNumber++;
 
+			firePileTaken(challenger, lastPlayer, true, pileMask);
+			EngineMetrics.count(EngineMetrics.CHALLENGES_WON);
+			EngineMetrics.stop(EngineMetrics.CHALLENGE, start);
+			if (event != null) {
+				FlightEvents.commitChallenge(event, tableId, getPlayerIndex(challenger), getPlayerIndex(lastPlayer),
+						true, lastPlay.getCardCount(), pileSize);
+			}
 			return true;
 		} else {
 			// Challenge failed - declared rank matched actual cards
 
-			// Challenger takes all cards from pile
-			challenger.receivePenalty(pile.getAllCards());
-
-			// Clear the pile
-			pile.clearPile();
+			// Challenger takes all cards from pile (and now sees them)
+			pile.transferTo(challenger);
+			visibility.revealMask(getPlayerIndex(challenger), pileMask);
 
 			// After a challenge, the player who lost takes next turn
 			setCurrentPlayer(challenger);
@@ -155,25 +262,65 @@ public class Manager {
 			// Increment round number when pile is cleared
 			roundNumber++;
 
+			firePileTaken(challenger, challenger, false, pileMask);
+			EngineMetrics.count(EngineMetrics.CHALLENGES_LOST);
+			EngineMetrics.stop(EngineMetrics.CHALLENGE, start);
+			if (event != null) {
+				FlightEvents.commitChallenge(event, tableId, getPlayerIndex(challenger), getPlayerIndex(challenger),
+						false, lastPlay.getCardCount(), pileSize);
+			}
 			return false;
 		}
 	}
 
+	/**
+	 * Tell listeners how a challenge was decided and that the loser took the pile
+	 */
+	private void firePileTaken(Player challenger, Player loser, boolean successful, int pileMask) {
+		int challengerSeat = getPlayerIndex(challenger);
+		int seat = getPlayerIndex(loser);
+		for (int i = 0; i < listeners.size(); i++) {
+			GameListener listener = listeners.get(i);
+			listener.challengeResolved(challengerSeat, seat, successful);
+			listener.cardsAdded(seat, pileMask);
+			listener.pileCleared();
+			listener.turnMoved(currentPlayerIndex, roundNumber);
+		}
+	}
+
+	/**
+	 * Add a listener that is told about each change to the game
+	 */
+	public void addListener(GameListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Remove a listener added with addListener()
+	 */
+	public void removeListener(GameListener listener) {
+		listeners.remove(listener);
+	}
+
 	/**
 	 * Check if any player has won
 	 * @return The winning player, or null if no winner yet
 	 */
 	public Player checkForWinner() {
+		long start = EngineMetrics.start();
+		Player winner = null;
+
 		// Check each player
-		for (int i = 0; i < playerCount; i++) {
+		for (int i = 0; i < playerCount && winner == null; i++) {
 			// If player has no cards, they win
 			if (players[i].hasNoCards()) {
-				return players[i];
+				winner = players[i];
 			}
 		}
 
-		// No winner yet
-		return null;
+		// null if no winner yet
+		EngineMetrics.stop(EngineMetrics.WINNER_CHECK, start);
+		return winner;
 	}
 
 	/**
@@ -191,6 +338,13 @@ public class Manager {
 		return players[currentPlayerIndex];
 	}
 
+	/**
+	 * Get the seat index of the current player
+	 */
+	public int getCurrentPlayerIndex() {
+		return currentPlayerIndex;
+	}
+
 	/**
 	 * Set the current player directly
 	 */
@@ -204,6 +358,100 @@ public class Manager {
 		}
 	}
 
+	/**
+	 * Take a compact snapshot of the game
+	 * @return The current state as an immutable GameState
+	 */
+	public GameState exportState() {
+		int[] hands = new int[playerCount];
+		for (int i = 0; i < playerCount; i++) {
+			hands[i] = players[i].getHandView().getMask();
+		}
+
+		// Only the last play is kept separately, since it is the only one that can be challenged
+		Play lastPlay = pile.getLastPlay();
+		int lastPlayMask = 0;
+		int lastPlaySeat = -1;
+		Card.Rank lastDeclaredRank = null;
+		if (lastPlay != null) {
+			lastPlayMask = lastPlay.getCardMask();
+			lastPlaySeat = getPlayerIndex(lastPlay.getPlayer());
+			lastDeclaredRank = lastPlay.getDeclaredRank();
+		}
+
+		return new GameState(hands, pile.getCardView().getMask(), pile.getPlayCount(),
+				lastPlayMask, lastPlaySeat, lastDeclaredRank, currentPlayerIndex, roundNumber);
+	}
+
+	/**
+	 * Restore the game to a snapshot taken with exportState()
+	 * The snapshot only keeps the cards that plays before the last one put on
+	 * the pile, so they are shared out among the same number of plays, made by
+	 * the seats before the last one in turn order
+	 * @param state The state to restore (must have the same number of seats)
+	 */
+	public void importState(GameState state) {
+		if (state.getPlayerCount() != playerCount) {
+			throw new IllegalArgumentException("Saved game has a different number of players!");
+		}
+
+		// Restore hands (each seat sees its own cards)
+		visibility.clear();
+		for (int i = 0; i < playerCount; i++) {
+			players[i].setHand(state.getHand(i));
+			visibility.revealMask(i, state.getHand(i));
+		}
+
+		// Rebuild the pile
+		pile.clearPile();
+		if (state.hasLastPlay()) {
+			int lastSeat = state.getLastPlaySeat();
+			int earlierCards = state.getPileMask() & ~state.getLastPlayMask();
+
+			// Every earlier play has at least one card, and there is at least one
+			// earlier play if there are earlier cards
+			int earlierPlays = Math.min(state.getPilePlayCount() - 1, Integer.bitCount(earlierCards));
+			if (earlierCards != 0 && earlierPlays < 1) {
+				earlierPlays = 1;
+			}
+
+			// One card for each play but the last earlier one, which takes the rest
+			for (int i = earlierPlays; i > 0; i--) {
+				int cards = i == 1 ? earlierCards : Integer.lowestOneBit(earlierCards);
+				earlierCards &= ~cards;
+				Player earlierPlayer = players[((lastSeat - i) % playerCount + playerCount) % playerCount];
+				pile.addPlay(new Play(earlierPlayer, CardSet.toArray(cards), state.getLastDeclaredRank()));
+			}
+			pile.addPlay(new Play(players[lastSeat], CardSet.toArray(state.getLastPlayMask()), state.getLastDeclaredRank()));
+		}
+
+		// Plays are face down, so each seat only knows the cards it played
+		for (int i = 0; i < pile.getPlayCount(); i++) {
+			Play play = pile.getPlay(i);
+			visibility.revealMask(getPlayerIndex(play.getPlayer()), play.getCardMask());
+		}
+
+		currentPlayerIndex = state.getCurrentSeat();
+		roundNumber = state.getRoundNumber();
+
+		for (int i = 0; i < listeners.size(); i++) {
+			listeners.get(i).stateReplaced();
+		}
+	}
+
+	/**
+	 * Get the seat index of a player
+	 * @return The seat, or -1 if the player is not in this game
+	 */
+	public int getPlayerIndex(Player player) {
+		for (int i = 0; i < playerCount; i++) {
+			if (players[i] == player) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
 	/**
 	 * Get current round number
 	 */
@@ -211,6 +459,27 @@ public class Manager {
 		return roundNumber;
 	}
 
+	/**
+	 * Get the number of the table hosting the game (0 if none)
+	 */
+	public int getTableId() {
+		return tableId;
+	}
+
+	/**
+	 * Set the number of the table hosting the game, for games rebuilt from a log or image
+	 */
+	public void setTableId(int tableId) {
+		this.tableId = tableId;
+	}
+
+	/**
+	 * Get the seed that fixed the deal
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
 	/**
 	 * Get the play pile
 	 */
@@ -225,6 +494,13 @@ public class Manager {
 		return discardPile;
 	}
 
+	/**
+	 * Get which cards each seat can see
+	 */
+	public Visibility getVisibility() {
+		return visibility;
+	}
+
 	/**
 	 * Get all players
 	 */
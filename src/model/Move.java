@@ -0,0 +1,113 @@
+package model;
+
+/**
+ * Represents a decision made on a player's turn (play cards or challenge)
+ */
+public class Move {
+    private boolean challenge;      // Whether this move is a challenge
+    private Card[] cards;           // Cards to play (empty for a challenge)
+    private Card.Rank declaredRank; // Rank to declare (null for a challenge)
+    private int cardMask;           // Mask of the cards to play (bit i is card index i)
+
+    // Shared challenge move (moves never change, so one instance is enough)
+    private static final Move CHALLENGE = new Move(true, new Card[0], null);
+
+    /**
+     * Create a new move
+     */
+    private Move(boolean challenge, Card[] cards, Card.Rank declaredRank) {
+        this.challenge = challenge;
+        this.cards = cards;
+        this.declaredRank = declaredRank;
+
+        for (int i = 0; i < cards.length; i++) {
+            this.cardMask |= 1 << cards[i].getIndex();
+        }
+    }
+
+    /**
+     * Create a move that plays cards and declares a rank
+     * @param cards The cards to play
+     * @param declaredRank The rank to declare
+     * @return The play move
+     */
+    public static Move play(Card[] cards, Card.Rank declaredRank) {
+        // Store a copy of the cards so the caller can reuse its array
+        Card[] copy = new Card[cards.length];
+        for (int i = 0; i < cards.length; i++) {
+            copy[i] = cards[i];
+        }
+
+        return new Move(false, copy, declaredRank);
+    }
+
+    /**
+     * Create a move that plays the cards of a mask and declares a rank
+     * @param cardMask Mask of the cards to play (bit i is card index i)
+     * @param declaredRank The rank to declare
+     * @return The play move
+     */
+    public static Move play(int cardMask, Card.Rank declaredRank) {
+        return new Move(false, CardSet.toArray(cardMask), declaredRank);
+    }
+
+    /**
+     * Get the move that challenges the last play
+     */
+    public static Move challenge() {
+        return CHALLENGE;
+    }
+
+    /**
+     * Check if this move is a challenge
+     */
+    public boolean isChallenge() {
+        return challenge;
+    }
+
+    /**
+     * Get the cards to play
+     * @return A copy of the cards (empty for a challenge), so the move stays unchanged
+     */
+    public Card[] getCards() {
+        return cards.clone();
+    }
+
+    /**
+     * Get the mask of the cards to play
+     */
+    public int getCardMask() {
+        return cardMask;
+    }
+
+    /**
+     * Get the rank to declare
+     * @return The declared rank, or null for a challenge
+     */
+    public Card.Rank getDeclaredRank() {
+        return declaredRank;
+    }
+
+    /**
+     * Apply this move for the current player of a game
+     * @param manager The game to apply the move to
+     */
+    public void applyTo(Manager manager) {
+        Player current = manager.getCurrentPlayer();
+
+        if (challenge) {
+            manager.challengePlayer(current);
+        } else {
+            manager.playCards(current, cards, declaredRank);
+        }
+    }
+
+    // Get a string representation of the move
+    public String toString() {
+        if (challenge) {
+            return "Challenge";
+        } else {
+            return "Play " + cards.length + " as " + declaredRank;
+        }
+    }
+}
@@ -4,24 +4,47 @@ package model;
  * Manages the pile where cards are played during the game
  */
 public class Pile {
+    // Starting room for plays (the array doubles whenever it fills up)
+    private static final int INITIAL_CAPACITY = 16;
+
     private Play[] plays;   // Array of plays that have been made
     private int playCount;  // Number of plays
+    private CardSet cards;  // Every card in the pile
+    private CardView cardView; // Read-only view of cards, handed out by getCardView()
+    private RankCounts rankCounts; // Number of cards of each rank in the pile
 
     /**
      * Create an empty pile
      */
     public Pile() {
-        // Can store up to 100 plays (more than enough for a game)
-        this.plays = new Play[100];
+        this.plays = new Play[INITIAL_CAPACITY];
         this.playCount = 0;
+        this.cards = new CardSet();
+        this.cardView = cards.readOnlyView();
+        this.rankCounts = new RankCounts();
     }
 
     /**
      * Add a play to the pile
      */
     public void addPlay(Play play) {
+        // Make room if the array is full
+        if (playCount == plays.length) {
+            Play[] bigger = new Play[plays.length * 2];
+            System.arraycopy(plays, 0, bigger, 0, playCount);
+            plays = bigger;
+        }
+
         plays[playCount] = play;
         playCount++;
+
+        // Remember the play's cards and update the totals
+        for (int i = 0; i < play.getCardCount(); i++) {
+            Card card = play.getCard(i);
+            if (cards.add(card)) {
+                rankCounts.add(card.getRank());
+            }
+        }
     }
 
     /**
@@ -40,39 +63,75 @@ public class Pile {
 
     /**
      * Get all cards in the pile
-     * @return Array of all cards from all plays
+     * @return Array of all cards from all plays, ordered by suit then rank
      */
     public Card[] getAllCards() {
-        // First count total number of cards
-        int totalCards = 0;
-        for (int i = 0; i < playCount; i++) {
-            totalCards += plays[i].getCardCount();
-        }
+        return cards.toArray();
+    }
 
-        // Create array to hold all cards
-        Card[] allCards = new Card[totalCards];
+    /**
+     * Get a read-only view of all cards in the pile (no copy is made)
+     */
+    public CardView getCardView() {
+        return cardView;
+    }
 
-        // Fill array with cards from all plays
-        int cardIndex = 0;
-        for (int i = 0; i < playCount; i++) {
-            Play play = plays[i];
-            Card[] playCards = play.getCards();
+    /**
+     * Visit each card in the pile, ordered by suit then rank
+     */
+    public void forEachCard(CardVisitor visitor) {
+        cards.forEach(visitor);
+    }
 
-            for (int j = 0; j < playCards.length; j++) {
-                allCards[cardIndex] = playCards[j];
-                cardIndex++;
-            }
-        }
+    /**
+     * Get a play by its position in the pile
+     * @param index Position of the play (0 is the oldest)
+     */
+    public Play getPlay(int index) {
+        return plays[index];
+    }
+
+    /**
+     * Get the number of cards in the pile
+     */
+    public int getCardCount() {
+        return rankCounts.getTotal();
+    }
 
-        return allCards;
+    /**
+     * Get the number of cards of a rank in the pile
+     */
+    public int getRankCount(Card.Rank rank) {
+        return rankCounts.get(rank);
+    }
+
+    /**
+     * Check if a card is in the pile
+     */
+    public boolean contains(Card card) {
+        return cards.contains(card);
     }
 
     /**
      * Clear all plays from the pile
      */
     public void clearPile() {
-        // Just reset the play count (no need to clear array)
+        // Drop the plays so they can be garbage collected, then forget the cards
+        for (int i = 0; i < playCount; i++) {
+            plays[i] = null;
+        }
         playCount = 0;
+        cards.clear();
+        rankCounts.clear();
+    }
+
+    /**
+     * Give every card in the pile to a player in one step and clear the pile
+     * @param player The player who takes the pile
+     */
+    public void transferTo(Player player) {
+        player.receiveCards(cards);
+        clearPile();
     }
 
     /**
@@ -88,16 +147,14 @@ public class Pile {
             return null;
         }
 
-        // Get cards from the last play
-        Card[] cards = lastPlay.getCards();
-
         // If there are no cards, return null
-        if (cards.length == 0) {
+        int count = lastPlay.getCardCount();
+        if (count == 0) {
             return null;
         }
 
         // Return the last card from the last play
-        return cards[cards.length - 1];
+        return lastPlay.getCard(count - 1);
     }
 
     /**
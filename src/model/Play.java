@@ -8,6 +8,7 @@ public class Play {
     private Card[] cards;          // Cards that were played
     private Card.Rank declaredRank; // The rank that was declared
     private int cardCount;         // Number of cards played
+    private int cardMask;          // Mask of the cards played (bit i is card index i)
 
     /**
      * Create a new play
@@ -23,10 +24,10 @@ public class Play {
         this.cardCount = cards.length;
         this.cards = new Card[cardCount];
 
-        // Add each card and make it face up
+        // Add each card
         for (int i = 0; i < cardCount; i++) {
-            cards[i].revealCard();  // Make card visible
             this.cards[i] = cards[i];
+            this.cardMask |= 1 << cards[i].getIndex();
         }
     }
 
@@ -53,6 +54,23 @@ public class Play {
         return result;
     }
 
+    /**
+     * Get one of the cards that were played (no copy is made)
+     * @param index Position of the card in the play (0 to card count - 1)
+     */
+    public Card getCard(int index) {
+        return cards[index];
+    }
+
+    /**
+     * Visit each card in the play, in the order they were played
+     */
+    public void forEachCard(CardVisitor visitor) {
+        for (int i = 0; i < cardCount; i++) {
+            visitor.visit(cards[i]);
+        }
+    }
+
     /**
      * Get number of cards in this play
      */
@@ -60,6 +78,13 @@ public class Play {
         return cardCount;
     }
 
+    /**
+     * Get the mask of the cards that were played
+     */
+    public int getCardMask() {
+        return cardMask;
+    }
+
     /**
      * Get the rank that was declared
      */
@@ -72,15 +97,7 @@ public class Play {
      * @return true if all cards have the declared rank, false otherwise
      */
     public boolean matchesDeclaration() {
-        // Check each card
-        for (int i = 0; i < cardCount; i++) {
-            // If any card doesn't match the declared rank, return false
-            if (cards[i].getRank() != declaredRank) {
-                return false;
-            }
-        }
-
-        // All cards matched the declared rank
-        return true;
+        // No played card may fall outside the cards of the declared rank
+        return (cardMask & ~CardSet.rankMask(declaredRank)) == 0;
     }
 }
\ No newline at end of file
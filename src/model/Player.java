@@ -5,18 +5,19 @@ package model;
  */
 public class Player {
 
-	private String name;        // Player name
-	private Card[] hand;        // Player's hand of cards
-	private int cardCount;      // Number of cards in hand
+	private String name;          // Player name
+	private CardSet hand;         // Player's hand of cards
+	private CardView handView;    // Read-only view of hand, handed out by getHandView()
+	private RankCounts rankCounts; // Number of cards of each rank in hand
 
 	/**
 	 * Create a new player with given name
 	 */
 	public Player(String name) {
 		this.name = name;
-		// A player can have at most 24 cards (entire deck)
-		this.hand = new Card[24];
-		this.cardCount = 0;
+		this.hand = new CardSet();
+		this.handView = hand.readOnlyView();
+		this.rankCounts = new RankCounts();
 	}
 
 	/**
@@ -28,65 +29,60 @@ public class Player {
 
 	/**
 	 * Get player's hand of cards
-	 * @return Array of cards in player's hand
+	 * @return Array of cards in player's hand, ordered by suit then rank
 	 */
 	public Card[] getHand() {
-		// Create a new array with exact size needed
-		Card[] result = new Card[cardCount];
+		return hand.toArray();
+	}
 
-		// Copy cards from hand to result
-		for (int i = 0; i < cardCount; i++) {
-			result[i] = hand[i];
-		}
+	/**
+	 * Get a read-only view of player's hand (no copy is made)
+	 */
+	public CardView getHandView() {
+		return handView;
+	}
 
-		return result;
+	/**
+	 * Visit each card in player's hand, ordered by suit then rank
+	 */
+	public void forEachCard(CardVisitor visitor) {
+		hand.forEach(visitor);
 	}
 
 	/**
 	 * Get the number of cards in hand
 	 */
 	public int getCardCount() {
-		return cardCount;
+		return rankCounts.getTotal();
+	}
+
+	/**
+	 * Get the number of cards of a rank in hand
+	 */
+	public int getRankCount(Card.Rank rank) {
+		return rankCounts.get(rank);
 	}
 
 	/**
 	 * Add a card to player's hand
 	 */
 	public void receiveCard(Card card) {
-		// Make the card visible to the player
-		card.revealCard();
-
-		// Add the card to player's hand
-		hand[cardCount] = card;
-		cardCount++;
+		// Ignore a card that is already in hand
+		if (hand.add(card)) {
+			rankCounts.add(card.getRank());
+		}
 	}
 
 	/**
 	 * Remove specific cards from player's hand
 	 */
 	public void playCard(Card[] cardsToPlay) {
-		// Find and remove each card
 		for (int i = 0; i < cardsToPlay.length; i++) {
 			Card cardToRemove = cardsToPlay[i];
 
-			// Find this card in the hand
-			boolean found = false;
-			int foundAt = -1;
-
-			for (int j = 0; j < cardCount; j++) {
-				if (hand[j].equals(cardToRemove)) {
-					found = true;
-					foundAt = j;
-					break;
-				}
-			}
-
-			// If found, remove it by shifting all cards after it
-			if (found) {
-				for (int j = foundAt; j < cardCount - 1; j++) {
-					hand[j] = hand[j + 1];
-				}
-				cardCount--;
+			// Only count cards that were in hand
+			if (hand.remove(cardToRemove)) {
+				rankCounts.remove(cardToRemove.getRank());
 			}
 		}
 	}
@@ -101,34 +97,46 @@ public class Player {
 		}
 	}
 
+	/**
+	 * Add a group of cards to player's hand in one step (as penalty)
+	 */
+	public void receiveCards(CardView cards) {
+		// Only count cards that are not already in hand
+		int added = cards.getMask() & ~hand.getMask();
+		hand.addAll(added);
+		rankCounts.addMask(added);
+	}
+
+	/**
+	 * Replace player's hand with the cards of a mask (used when restoring a saved game)
+	 */
+	void setHand(int mask) {
+		hand.clear();
+		hand.addAll(mask);
+		rankCounts.clear();
+		rankCounts.addMask(mask);
+	}
+
 	/**
 	 * Check if player has a specific card
 	 */
 	public boolean hasCard(Card card) {
-		for (int i = 0; i < cardCount; i++) {
-			if (hand[i].equals(card)) {
-				return true;
-			}
-		}
-		return false;
+		return hand.contains(card);
 	}
 
 	/**
 	 * Check if player has all the specified cards
+	 * The same card listed twice is rejected, since it can only be played once
 	 */
 	public boolean hasAllCards(Card[] cards) {
-		for (int i = 0; i < cards.length; i++) {
-			if (!hasCard(cards[i])) {
-				return false;
-			}
-		}
-		return true;
+		int wanted = CardSet.maskOf(cards);
+		return wanted >= 0 && hand.containsAll(wanted);
 	}
 
 	/**
 	 * Check if player has no cards left
 	 */
 	public boolean hasNoCards() {
-		return cardCount == 0;
+		return hand.isEmpty();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+package model;
+
+/**
+ * Number of cards of each rank in a group of cards
+ */
+public class RankCounts {
+
+    private int[] counts; // Count for each rank, by ordinal
+    private int total;    // Sum of all counts
+
+    /**
+     * Create counts with every rank at zero
+     */
+    public RankCounts() {
+        this.counts = new int[Card.Rank.values().length];
+        this.total = 0;
+    }
+
+    /**
+     * Get the number of cards of a rank
+     */
+    public int get(Card.Rank rank) {
+        return counts[rank.ordinal()];
+    }
+
+    /**
+     * Get the number of cards of a rank by its ordinal
+     */
+    public int get(int rankOrdinal) {
+        return counts[rankOrdinal];
+    }
+
+    /**
+     * Get the number of cards counted
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Count one more card of a rank
+     */
+    public void add(Card.Rank rank) {
+        counts[rank.ordinal()]++;
+        total++;
+    }
+
+    /**
+     * Count one less card of a rank
+     */
+    public void remove(Card.Rank rank) {
+        counts[rank.ordinal()]--;
+        total--;
+    }
+
+    /**
+     * Count every card of a mask
+     */
+    public void addMask(int mask) {
+        Card.Rank[] allRanks = Card.Rank.values();
+        for (int r = 0; r < allRanks.length; r++) {
+            int n = Integer.bitCount(mask & CardSet.rankMask(allRanks[r]));
+            counts[r] += n;
+            total += n;
+        }
+    }
+
+    /**
+     * Stop counting every card of a mask
+     */
+    public void removeMask(int mask) {
+        Card.Rank[] allRanks = Card.Rank.values();
+        for (int r = 0; r < allRanks.length; r++) {
+            int n = Integer.bitCount(mask & CardSet.rankMask(allRanks[r]));
+            counts[r] -= n;
+            total -= n;
+        }
+    }
+
+    /**
+     * Set every count back to zero
+     */
+    public void clear() {
+        for (int r = 0; r < counts.length; r++) {
+            counts[r] = 0;
+        }
+        total = 0;
+    }
+}
@@ -0,0 +1,183 @@
+package model;
+
+/**
+ * Maps game states that differ only by suits to one representative
+ * Suits never affect whether a move is allowed or how a challenge ends (only
+ * ranks are compared with the declared rank), so states that differ only by
+ * suits play out the same way. There are two forms:
+ *   canonical()    renames the suits of the whole state, the same way for every
+ *                  card, so that the state is the greatest of its (up to 24)
+ *                  renamings; suitOrder() and permute() map moves to and from it
+ *   byRankCounts() keeps only how many cards of each rank are in each hand, in
+ *                  the pile and in the last play, by handing out the suits of
+ *                  each rank in seat order; states with the same counts give
+ *                  equal results, which makes it the smaller key of the two
+ * Both results are ordinary GameStates, so they can be played on and used as
+ * keys of caches and tables
+ */
+public class SuitSymmetry {
+
+    private static final int SUITS = Card.Suit.values().length;
+    private static final int RANKS = Card.Rank.values().length;
+    private static final int SUIT_BITS = (1 << RANKS) - 1;
+
+    // Card mask of count suits in a row from a first suit, at rank 0, by [first][count]
+    private static final int[][] RUNS = new int[SUITS + 1][SUITS + 1];
+
+    static {
+        for (int first = 0; first <= SUITS; first++) {
+            for (int count = 0; first + count <= SUITS; count++) {
+                for (int suit = first; suit < first + count; suit++) {
+                    RUNS[first][count] |= 1 << (suit * RANKS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the state with its suits renamed into the canonical order
+     */
+    public static GameState canonical(GameState state) {
+        int[] order = suitOrder(state);
+        int[] hands = new int[state.getPlayerCount()];
+        for (int seat = 0; seat < hands.length; seat++) {
+            hands[seat] = permute(state.getHand(seat), order);
+        }
+        return new GameState(hands, permute(state.getPileMask(), order), state.getPilePlayCount(),
+                permute(state.getLastPlayMask(), order), state.getLastPlaySeat(), state.getLastDeclaredRank(),
+                state.getCurrentSeat(), state.getRoundNumber());
+    }
+
+    /**
+     * Get the order of the suits in the canonical form of a state
+     * @return For each canonical suit, the suit of the state it is taken from
+     */
+    public static int[] suitOrder(GameState state) {
+        int[] places = placesOf(state);
+
+        // Greatest suit first, comparing the cards each suit has in each place in turn
+        int[] order = new int[SUITS];
+        for (int suit = 0; suit < SUITS; suit++) {
+            int i = suit;
+            while (i > 0 && compareSuits(places, suit, order[i - 1]) > 0) {
+                order[i] = order[i - 1];
+                i--;
+            }
+            order[i] = suit;
+        }
+        return order;
+    }
+
+    /**
+     * Rename the suits of a card mask into a suit order
+     * @param order For each new suit, the suit it is taken from (from suitOrder())
+     */
+    public static int permute(int mask, int[] order) {
+        int result = 0;
+        for (int suit = 0; suit < SUITS; suit++) {
+            result |= ((mask >>> (order[suit] * RANKS)) & SUIT_BITS) << (suit * RANKS);
+        }
+        return result;
+    }
+
+    /**
+     * Undo permute(), for example to play a move found in a canonical state
+     */
+    public static int unpermute(int mask, int[] order) {
+        int result = 0;
+        for (int suit = 0; suit < SUITS; suit++) {
+            result |= ((mask >>> (suit * RANKS)) & SUIT_BITS) << (order[suit] * RANKS);
+        }
+        return result;
+    }
+
+    /**
+     * Get the state that stands for every state with the same number of cards of
+     * each rank in each hand, in the pile and in the last play
+     */
+    public static GameState byRankCounts(GameState state) {
+        int[] places = placesOf(state);
+        canonicalizeByRank(places);
+
+        int seats = state.getPlayerCount();
+        int[] hands = new int[seats];
+        for (int seat = 0; seat < seats; seat++) {
+            hands[seat] = places[seat];
+        }
+        return new GameState(hands, places[seats] | places[seats + 1], state.getPilePlayCount(),
+                places[seats + 1], state.getLastPlaySeat(), state.getLastDeclaredRank(),
+                state.getCurrentSeat(), state.getRoundNumber());
+    }
+
+    /**
+     * Replace card masks that share no cards with the masks that have the same
+     * number of cards of each rank, giving out the suits of each rank from the
+     * first suit in the order of the masks
+     * @param masks The masks, changed in place
+     */
+    public static void canonicalizeByRank(int[] masks) {
+        int rankBits = RUNS[0][SUITS];
+        for (int rank = 0; rank < RANKS; rank++) {
+            // Each rank has its own bits, so the ranks can be redone one at a time
+            int bits = rankBits << rank;
+            int next = 0;
+            for (int i = 0; i < masks.length; i++) {
+                int count = Integer.bitCount(masks[i] & bits);
+                masks[i] = (masks[i] & ~bits) | (RUNS[next][count] << rank);
+                next += count;
+            }
+        }
+    }
+
+    /**
+     * Get the cards of a hand with the same number of each rank as a group, for
+     * example to play a move found in another state with the same rank counts
+     * @param group Cards whose rank counts to match
+     * @param hand Hand to take the cards from (lowest suits first)
+     */
+    public static int regroup(int group, int hand) {
+        int rankBits = RUNS[0][SUITS];
+        int result = 0;
+        for (int rank = 0; rank < RANKS; rank++) {
+            int wanted = Integer.bitCount(group & (rankBits << rank));
+            int cards = hand & (rankBits << rank);
+            if (Integer.bitCount(cards) < wanted) {
+                throw new IllegalArgumentException("Hand does not hold these ranks!");
+            }
+            for (int i = 0; i < wanted; i++) {
+                result |= Integer.lowestOneBit(cards);
+                cards &= cards - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the masks of each place a card can be: each hand, the pile before the last play, and the last play
+     */
+    private static int[] placesOf(GameState state) {
+        int seats = state.getPlayerCount();
+        int[] places = new int[seats + 2];
+        for (int seat = 0; seat < seats; seat++) {
+            places[seat] = state.getHand(seat);
+        }
+        places[seats] = state.getPileMask() & ~state.getLastPlayMask();
+        places[seats + 1] = state.getLastPlayMask();
+        return places;
+    }
+
+    /**
+     * Compare the cards two suits have in each place, place by place
+     * @return Positive if the first suit is greater, negative if it is less, 0 if they hold the same ranks everywhere
+     */
+    private static int compareSuits(int[] places, int first, int second) {
+        for (int i = 0; i < places.length; i++) {
+            int firstRanks = (places[i] >>> (first * RANKS)) & SUIT_BITS;
+            int secondRanks = (places[i] >>> (second * RANKS)) & SUIT_BITS;
+            if (firstRanks != secondRanks) {
+                return firstRanks - secondRanks;
+            }
+        }
+        return 0;
+    }
+}
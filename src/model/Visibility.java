@@ -0,0 +1,103 @@
+package model;
+
+/**
+ * Tracks which cards each viewer is allowed to see
+ * Cards are shared by every game, so whether a card is face up is stored here
+ * per viewer instead of on the card itself
+ * Manager keeps, for each seat, the cards it knows the place of: its own hand
+ * and the cards it played, the cards it picked up from the pile, and the cards
+ * a challenge turned over. Plays are face down, so once a seat plays, the
+ * others no longer know which of its cards it still holds
+ */
+public class Visibility {
+
+    private int[] visibleMasks; // Bit i of entry v is set when viewer v can see card i
+
+    /**
+     * Create visibility for a number of viewers, with every card face down
+     * @param viewerCount Number of viewers (usually one per seat)
+     */
+    public Visibility(int viewerCount) {
+        this.visibleMasks = new int[viewerCount];
+    }
+
+    /**
+     * Get the number of viewers
+     */
+    public int getViewerCount() {
+        return visibleMasks.length;
+    }
+
+    /**
+     * Let one viewer see a card
+     */
+    public void reveal(int viewer, Card card) {
+        visibleMasks[viewer] |= 1 << card.getIndex();
+    }
+
+    /**
+     * Let every viewer see a card
+     */
+    public void revealToAll(Card card) {
+        int bit = 1 << card.getIndex();
+        for (int i = 0; i < visibleMasks.length; i++) {
+            visibleMasks[i] |= bit;
+        }
+    }
+
+    /**
+     * Turn a card face down for one viewer
+     */
+    public void hide(int viewer, Card card) {
+        visibleMasks[viewer] &= ~(1 << card.getIndex());
+    }
+
+    /**
+     * Turn every card face down for every viewer
+     */
+    public void clear() {
+        for (int i = 0; i < visibleMasks.length; i++) {
+            visibleMasks[i] = 0;
+        }
+    }
+
+    /**
+     * Let a viewer see every card of a mask
+     */
+    public void revealMask(int viewer, int mask) {
+        visibleMasks[viewer] |= mask;
+    }
+
+    /**
+     * Turn every card of a mask face down for one viewer
+     */
+    public void hideMask(int viewer, int mask) {
+        visibleMasks[viewer] &= ~mask;
+    }
+
+    /**
+     * Check if a viewer can see a card
+     */
+    public boolean isVisibleTo(int viewer, Card card) {
+        return (visibleMasks[viewer] & (1 << card.getIndex())) != 0;
+    }
+
+    /**
+     * Get the mask of cards a viewer can see (bit i is card index i)
+     */
+    public int getVisibleMask(int viewer) {
+        return visibleMasks[viewer];
+    }
+
+    /**
+     * Describe a card the way a viewer sees it
+     * @return The card name, or "Facedown Card" if the viewer cannot see it
+     */
+    public String describe(int viewer, Card card) {
+        if (isVisibleTo(viewer, card)) {
+            return card.toString();
+        } else {
+            return "Facedown Card";
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package server;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+import model.Manager;
+import model.Play;
+import model.Player;
+import storage.GameLog;
+
+/**
+ * Carries out one request frame and fills in the reply frame
+ * (see Frame for the request and reply types)
+ */
+public class CommandHandler {
+
+    // Returned when the reply was filled in straight away
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    private TableRegistry registry; // Tables hosted by the server
+    private ServerStats stats;      // Load counters
+
+    /**
+     * Create a handler for a set of tables
+     */
+    public CommandHandler(TableRegistry registry, ServerStats stats) {
+        this.registry = registry;
+        this.stats = stats;
+    }
+
+    /**
+     * Handle one request and time it
+     * Requests that touch a table are queued on the table's actor, so the reply
+     * may be filled in later on another thread; the caller must not touch either
+     * frame until the returned future completes
+     * @param session The client sending the request
+     * @param request The request
+     * @param reply Frame to fill with the reply
+     * @return Future completed once the reply has been filled in
+     */
+    public CompletableFuture<Void> handle(Session session, Frame request, Frame reply) {
+        long start = System.nanoTime();
+        try {
+            CompletableFuture<Void> pending = dispatch(session, request, reply, start);
+            if (pending != null) {
+                return pending;
+            }
+        } catch (IllegalArgumentException e) {
+            error(reply, e);
+        } catch (IllegalStateException e) {
+            error(reply, e);
+        }
+        stats.recordCommand(System.nanoTime() - start);
+        return DONE;
+    }
+
+    /**
+     * Carry out a request that needs no table, or queue it on the right table's actor
+     * @return The actor's future, or null if the reply has already been filled in
+     */
+    private CompletableFuture<Void> dispatch(final Session session, final Frame request, final Frame reply,
+                                             final long start) {
+        int type = request.getType();
+
+        if (type == Frame.NEW) {
+            TableActor table = registry.createTable(request.getInt(0));
+            reply.reset(Frame.TABLE).add(table.getId());
+            return null;
+        }
+
+        if (type == Frame.STATS) {
+            reply.reset(Frame.SERVER_STATS).add(registry.size()).add(stats.getConnections()).add(stats.getCommands())
+                    .add(Math.round(stats.getCommandsPerSecond())).add(Math.round(stats.getAverageLatencyNanos()));
+            return null;
+        }
+
+        if (type == Frame.JOIN) {
+            if (session.getTable() != null) {
+                throw new IllegalStateException("Already at a table!");
+            }
+            final TableActor actor = registry.getTable(request.getInt(0));
+            if (actor == null) {
+                throw new IllegalArgumentException("No such table!");
+            }
+            final String name = request.getText();
+            return durable(reply, actor.submit(new TableCommand<Void>() {
+                public Void apply(Table table) {
+                    try {
+                        int seat = table.join(name);
+                        session.joined(actor, seat);
+                        table.getBroadcaster().addViewer(seat, session.getSink());
+                        reply.reset(Frame.SEAT).add(seat);
+                    } catch (IllegalStateException e) {
+                        error(reply, e);
+                    }
+                    stats.recordCommand(System.nanoTime() - start);
+                    return null;
+                }
+            }));
+        }
+
+        if (type == Frame.WATCH) {
+            TableActor actor = registry.getTable(request.getInt(0));
+            if (actor == null) {
+                throw new IllegalArgumentException("No such table!");
+            }
+            return actor.submit(new TableCommand<Void>() {
+                public Void apply(Table table) {
+                    table.getBroadcaster().addViewer(DeltaBroadcaster.SPECTATOR, session.getSink());
+                    reply.reset(Frame.OK);
+                    stats.recordCommand(System.nanoTime() - start);
+                    return null;
+                }
+            });
+        }
+
+        if (type != Frame.HAND && type != Frame.MOVE && type != Frame.STATE) {
+            throw new IllegalArgumentException("Unexpected request " + type + "!");
+        }
+
+        // Every other request needs a seat at a table
+        if (session.getTable() == null) {
+            throw new IllegalStateException("Join a table first!");
+        }
+        final int seat = session.getSeat();
+        CompletableFuture<Void> done = session.getTable().submit(new TableCommand<Void>() {
+            public Void apply(Table table) {
+                try {
+                    executeAtTable(table, seat, request, reply);
+                } catch (IllegalArgumentException e) {
+                    error(reply, e);
+                } catch (IllegalStateException e) {
+                    error(reply, e);
+                }
+
+                // Latency includes any time spent waiting in the table's mailbox
+                stats.recordCommand(System.nanoTime() - start);
+                return null;
+            }
+        });
+        return type == Frame.MOVE ? durable(reply, done) : done;
+    }
+
+    /**
+     * Hold back the reply to a request that changed a game until the change
+     * is safe in the log (with a write-ahead log, until its group of moves
+     * has been forced to disk)
+     * If the log cannot be written the reply becomes an error
+     */
+    private CompletableFuture<Void> durable(final Frame reply, CompletableFuture<Void> done) {
+        final GameLog log = registry.getLog();
+        if (log == null) {
+            return done;
+        }
+        return done.thenCompose(new Function<Void, CompletionStage<Void>>() {
+            public CompletionStage<Void> apply(Void ignored) {
+                return log.sync();
+            }
+        }).exceptionally(new Function<Throwable, Void>() {
+            public Void apply(Throwable e) {
+                reply.reset(Frame.ERROR).setText("Move could not be saved!");
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Carry out a request for a seat (called on the table's actor)
+     */
+    private void executeAtTable(Table table, int seat, Frame request, Frame reply) {
+        int type = request.getType();
+
+        if (type == Frame.HAND) {
+            checkStarted(table);
+            Player self = table.getManager().getPlayers()[seat];
+            reply.reset(Frame.CARDS).add(self.getHandView().getMask());
+            return;
+        }
+
+        if (type == Frame.MOVE) {
+            int move = request.getInt(0);
+            if (WireCodec.isChallenge(move)) {
+                reply.reset(Frame.CHALLENGE_RESULT).add(table.challenge(seat) ? 1 : 0);
+            } else {
+                table.play(seat, WireCodec.cardMask(move), WireCodec.declaredRank(move));
+                reply.reset(Frame.OK);
+            }
+            return;
+        }
+
+        // STATE
+        checkStarted(table);
+        describe(table, reply);
+    }
+
+    /**
+     * Fill a TABLE_STATE reply with the public state of a table
+     */
+    private void describe(Table table, Frame reply) {
+        Manager manager = table.getManager();
+        Play lastPlay = manager.getPile().getLastPlay();
+
+        reply.reset(Frame.TABLE_STATE);
+        reply.add(manager.getCurrentPlayerIndex());
+        reply.add(manager.getRoundNumber());
+        reply.add(manager.getPile().getCardCount());
+        reply.add(lastPlay == null ? 0 : lastPlay.getCardCount());
+        reply.add(lastPlay == null ? -1 : lastPlay.getDeclaredRank().ordinal());
+        reply.add(table.getWinnerSeat());
+        reply.add(manager.getPlayerCount());
+
+        // Always four counts, with 0 for seats the table does not have
+        Player[] players = manager.getPlayers();
+        for (int i = 0; i < 4; i++) {
+            reply.add(i < players.length ? players[i].getCardCount() : 0);
+        }
+    }
+
+    /**
+     * Fill an ERROR reply
+     */
+    private static void error(Frame reply, RuntimeException e) {
+        reply.reset(Frame.ERROR).setText(e.getMessage());
+    }
+
+    /**
+     * Make sure a table's game has been dealt
+     */
+    private static void checkStarted(Table table) {
+        if (!table.isStarted()) {
+            throw new IllegalStateException("Waiting for players!");
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import model.Card;
+import model.GameAdapter;
+import model.Manager;
+import model.Pile;
+import model.Play;
+import model.Player;
+
+/**
+ * Sends each change to a table to the table's players and spectators
+ * Every change is encoded at most twice (once as its owner sees it, once as
+ * everyone else does) and the same bytes go to every viewer, so the cost of a
+ * change does not depend on how long the game has run; viewers only see the
+ * cards of their own seat
+ */
+public class DeltaBroadcaster extends GameAdapter {
+
+    // Seat given to viewers who are not playing
+    public static final int SPECTATOR = -1;
+
+    private ArrayList<DeltaSink> sinks;  // Where each viewer's changes go
+    private ArrayList<Integer> seats;    // Seat of each viewer (SPECTATOR if none)
+    private Manager manager;             // The game (null until it is dealt)
+    private Frame frame;                 // Reused to build each change
+    private ByteBuffer ownerBytes;       // The change as its owner sees it
+    private ByteBuffer publicBytes;      // The change as everyone else sees it
+
+    /**
+     * Create a broadcaster with no viewers
+     */
+    public DeltaBroadcaster() {
+        this.sinks = new ArrayList<DeltaSink>();
+        this.seats = new ArrayList<Integer>();
+        this.frame = new Frame();
+        this.ownerBytes = ByteBuffer.allocate(WireCodec.MAX_FRAME);
+        this.publicBytes = ByteBuffer.allocate(WireCodec.MAX_FRAME);
+    }
+
+    /**
+     * Start following a game and send every viewer a snapshot of it
+     */
+    public void attach(Manager manager) {
+        this.manager = manager;
+        manager.addListener(this);
+        for (int i = sinks.size() - 1; i >= 0; i--) {
+            sendSnapshot(i);
+        }
+    }
+
+    /**
+     * Follow a rebuilt copy of the same game without sending anything, since
+     * the viewers already have its state
+     * @param copy The copy, or null to let go of the game while it is not in memory
+     */
+    public void follow(Manager copy) {
+        if (manager != null) {
+            manager.removeListener(this);
+        }
+        manager = copy;
+        if (copy != null) {
+            copy.addListener(this);
+        }
+    }
+
+    /**
+     * Add a viewer, sending a snapshot at once if the game has been dealt
+     * @param seat The viewer's seat, or SPECTATOR
+     * @param sink Where the viewer's changes go
+     */
+    public void addViewer(int seat, DeltaSink sink) {
+        sinks.add(sink);
+        seats.add(seat);
+        if (manager != null) {
+            sendSnapshot(sinks.size() - 1);
+        }
+    }
+
+    /**
+     * Remove a viewer
+     */
+    public void removeViewer(DeltaSink sink) {
+        int index = sinks.indexOf(sink);
+        if (index >= 0) {
+            removeAt(index);
+        }
+    }
+
+    /**
+     * Get the number of viewers
+     */
+    public int getViewerCount() {
+        return sinks.size();
+    }
+
+    public void cardsRemoved(int seat, int cardMask) {
+        broadcastHand(seat, false, cardMask);
+    }
+
+    public void cardsAdded(int seat, int cardMask) {
+        broadcastHand(seat, true, cardMask);
+    }
+
+    public void playAppended(int seat, int cardMask, Card.Rank declaredRank) {
+        frame.reset(Frame.PLAY_DELTA).add(seat).add(Integer.bitCount(cardMask)).add(declaredRank.ordinal());
+        encode(ownerBytes, frame.add(cardMask));
+        frame.reset(Frame.PLAY_DELTA).add(seat).add(Integer.bitCount(cardMask)).add(declaredRank.ordinal());
+        encode(publicBytes, frame.add(0));
+        broadcast(seat);
+    }
+
+    public void pileCleared() {
+        encode(publicBytes, frame.reset(Frame.PILE_CLEARED));
+        broadcast(SPECTATOR);
+    }
+
+    public void turnMoved(int seat, int roundNumber) {
+        encode(publicBytes, frame.reset(Frame.TURN).add(seat).add(roundNumber));
+        broadcast(SPECTATOR);
+    }
+
+    public void stateReplaced() {
+        for (int i = sinks.size() - 1; i >= 0; i--) {
+            sendSnapshot(i);
+        }
+    }
+
+    /**
+     * Send a change to a seat's hand
+     */
+    private void broadcastHand(int seat, boolean added, int cardMask) {
+        int count = Integer.bitCount(cardMask);
+        encode(ownerBytes, frame.reset(Frame.HAND_DELTA).add(seat).add(added ? 1 : 0).add(count).add(cardMask));
+        encode(publicBytes, frame.reset(Frame.HAND_DELTA).add(seat).add(added ? 1 : 0).add(count).add(0));
+        broadcast(seat);
+    }
+
+    /**
+     * Send the current change to every viewer
+     * @param ownerSeat Seat that gets ownerBytes instead of publicBytes (SPECTATOR if none)
+     */
+    private void broadcast(int ownerSeat) {
+        for (int i = sinks.size() - 1; i >= 0; i--) {
+            ByteBuffer bytes = ownerSeat != SPECTATOR && seats.get(i) == ownerSeat ? ownerBytes : publicBytes;
+            bytes.position(0);
+            if (!sinks.get(i).send(bytes)) {
+                removeAt(i);
+            }
+        }
+    }
+
+    /**
+     * Send one viewer the whole game as a reset followed by changes from an empty table
+     */
+    private void sendSnapshot(int index) {
+        DeltaSink sink = sinks.get(index);
+        int viewerSeat = seats.get(index);
+        Player[] players = manager.getPlayers();
+
+        boolean open = sendTo(sink, frame.reset(Frame.TABLE_RESET).add(players.length).add(viewerSeat));
+        for (int seat = 0; seat < players.length && open; seat++) {
+            int hand = players[seat].getHandView().getMask();
+            int shown = seat == viewerSeat ? hand : 0;
+            open = sendTo(sink, frame.reset(Frame.HAND_DELTA).add(seat).add(1).add(Integer.bitCount(hand)).add(shown));
+        }
+
+        Pile pile = manager.getPile();
+        for (int i = 0; i < pile.getPlayCount() && open; i++) {
+            Play play = pile.getPlay(i);
+            int seat = manager.getPlayerIndex(play.getPlayer());
+            int shown = seat == viewerSeat ? play.getCardMask() : 0;
+            open = sendTo(sink, frame.reset(Frame.PLAY_DELTA).add(seat).add(play.getCardCount())
+                    .add(play.getDeclaredRank().ordinal()).add(shown));
+        }
+
+        if (open) {
+            open = sendTo(sink, frame.reset(Frame.TURN).add(manager.getCurrentPlayerIndex()).add(manager.getRoundNumber()));
+        }
+        if (!open) {
+            removeAt(index);
+        }
+    }
+
+    /**
+     * Encode a frame and send it to one viewer
+     */
+    private boolean sendTo(DeltaSink sink, Frame toSend) {
+        encode(publicBytes, toSend);
+        return sink.send(publicBytes);
+    }
+
+    /**
+     * Encode a frame into a reused buffer, ready to be read
+     */
+    private static void encode(ByteBuffer bytes, Frame toEncode) {
+        bytes.clear();
+        WireCodec.encode(toEncode, bytes);
+        bytes.flip();
+    }
+
+    /**
+     * Forget a viewer
+     */
+    private void removeAt(int index) {
+        sinks.remove(index);
+        seats.remove(index);
+    }
+}
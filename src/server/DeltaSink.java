@@ -0,0 +1,16 @@
+package server;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Somewhere a viewer's changes are sent
+ */
+public interface DeltaSink {
+
+    /**
+     * Send one encoded frame
+     * @param frame The frame's bytes, between position and limit (copy them; the buffer is reused)
+     * @return false if the viewer is gone and should get nothing more
+     */
+    boolean send(ByteBuffer frame);
+}
@@ -0,0 +1,210 @@
+package server;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One message of the binary protocol, reused from message to message
+ * A frame has a type, a fixed list of number values for that type and, for some
+ * types, a short ASCII text; WireCodec writes and reads frames to and from buffers
+ *
+ * Client to server:
+ *   NEW      seats
+ *   JOIN     table, text = name
+ *   HAND
+ *   MOVE     move code (see WireCodec.moveCode)
+ *   STATE
+ *   STATS
+ *   WATCH    table (follow a table's changes as a spectator)
+ * Server to client:
+ *   TABLE            table
+ *   SEAT             seat
+ *   CARDS            card mask
+ *   OK
+ *   CHALLENGE_RESULT 1 if the challenge succeeded, 0 if not
+ *   TABLE_STATE      current seat, round, pile cards, last play cards, last rank (-1 if none),
+ *                    winner (-1 if none), seats, card count of seats 0-3
+ *   SERVER_STATS     tables, connections, commands, commands per second, average latency (ns)
+ *   ERROR            text = message
+ * Pushed to players and spectators of a table (see DeltaBroadcaster):
+ *   TABLE_RESET      seats, viewer's seat (-1 for a spectator); forget the table, a snapshot follows
+ *   HAND_DELTA       seat, 1 if added or 0 if removed, card count, card mask (0 if hidden)
+ *   PLAY_DELTA       seat, card count, declared rank, card mask (0 if hidden)
+ *   PILE_CLEARED
+ *   TURN             seat to move, round
+ */
+public class Frame {
+
+    // Client to server
+    public static final int NEW = 1;
+    public static final int JOIN = 2;
+    public static final int HAND = 3;
+    public static final int MOVE = 4;
+    public static final int STATE = 5;
+    public static final int STATS = 6;
+    public static final int WATCH = 7;
+
+    // Server to client
+    public static final int TABLE = 16;
+    public static final int SEAT = 17;
+    public static final int CARDS = 18;
+    public static final int OK = 19;
+    public static final int CHALLENGE_RESULT = 20;
+    public static final int TABLE_STATE = 21;
+    public static final int SERVER_STATS = 22;
+    public static final int ERROR = 23;
+
+    // Pushed changes
+    public static final int TABLE_RESET = 24;
+    public static final int HAND_DELTA = 25;
+    public static final int PLAY_DELTA = 26;
+    public static final int PILE_CLEARED = 27;
+    public static final int TURN = 28;
+
+    // Positions of the values of a TABLE_STATE frame
+    public static final int STATE_CURRENT = 0;
+    public static final int STATE_ROUND = 1;
+    public static final int STATE_PILE_CARDS = 2;
+    public static final int STATE_LAST_COUNT = 3;
+    public static final int STATE_LAST_RANK = 4;
+    public static final int STATE_WINNER = 5;
+    public static final int STATE_SEATS = 6;
+    public static final int STATE_CARD_COUNTS = 7;
+
+    // Most values and text bytes a frame can hold
+    public static final int MAX_VALUES = 11;
+    public static final int MAX_TEXT = 200;
+
+    private int type;         // Frame type (one of the constants above)
+    private long[] values;    // Number values
+    private int valueCount;   // Number of values set
+    private byte[] text;      // ASCII text
+    private int textLength;   // Number of text bytes set
+
+    /**
+     * Create an empty frame
+     */
+    public Frame() {
+        this.values = new long[MAX_VALUES];
+        this.text = new byte[MAX_TEXT];
+    }
+
+    /**
+     * Start a new message, dropping the old values and text
+     * @param type The frame type
+     * @return This frame, so values can be added in the same statement
+     */
+    public Frame reset(int type) {
+        this.type = type;
+        this.valueCount = 0;
+        this.textLength = 0;
+        return this;
+    }
+
+    /**
+     * Add the next value
+     * @return This frame
+     */
+    public Frame add(long value) {
+        if (valueCount == MAX_VALUES) {
+            throw new IllegalStateException("Frame is full!");
+        }
+        values[valueCount] = value;
+        valueCount++;
+        return this;
+    }
+
+    /**
+     * Set the text (non-ASCII characters become '?', long text is cut short)
+     */
+    public void setText(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        textLength = Math.min(bytes.length, MAX_TEXT);
+        System.arraycopy(bytes, 0, text, 0, textLength);
+    }
+
+    /**
+     * Check if this frame is a pushed change rather than a reply
+     */
+    public boolean isDelta() {
+        return type >= TABLE_RESET && type <= TURN;
+    }
+
+    /**
+     * Get the frame type
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * Get the number of values set
+     */
+    public int getValueCount() {
+        return valueCount;
+    }
+
+    /**
+     * Get a value
+     */
+    public long getLong(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    /**
+     * Get a value that fits in an int
+     */
+    public int getInt(int index) {
+        checkIndex(index);
+        return (int) values[index];
+    }
+
+    /**
+     * Get the text
+     */
+    public String getText() {
+        return new String(text, 0, textLength, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Get the text buffer (used by WireCodec)
+     */
+    byte[] getTextBytes() {
+        return text;
+    }
+
+    /**
+     * Get the number of text bytes (used by WireCodec)
+     */
+    int getTextLength() {
+        return textLength;
+    }
+
+    /**
+     * Set the number of text bytes after filling the text buffer (used by WireCodec)
+     */
+    void setTextLength(int length) {
+        this.textLength = length;
+    }
+
+    /**
+     * Make sure a value has been set
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= valueCount) {
+            throw new IllegalArgumentException("Frame has no value " + index + "!");
+        }
+    }
+
+    // Get a string representation of the frame
+    public String toString() {
+        StringBuilder result = new StringBuilder("Frame ").append(type);
+        for (int i = 0; i < valueCount; i++) {
+            result.append(' ').append(values[i]);
+        }
+        if (textLength > 0) {
+            result.append(" \"").append(getText()).append('"');
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,121 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import model.Card;
+import model.CardSet;
+import model.GameState;
+import model.Manager;
+import model.Pile;
+import model.Play;
+import model.Player;
+import model.Visibility;
+import storage.StateCodec;
+
+/**
+ * Turns a whole game into a few dozen bytes and back, for tables that are
+ * hibernating; unlike StateCodec nothing is lost, so the rebuilt game cannot
+ * be told apart from the original:
+ *   seats (1), seed (8), round (4), current seat (1),
+ *   for each seat: name as length (2) and UTF-8 bytes, hand mask (3), visible mask (3),
+ *   play count (2), for each play: seat and declared rank (1, seat * 8 + rank), card mask (3)
+ */
+public class GameImage {
+
+    // Ranks by ordinal, kept to avoid copying Card.Rank.values() for every play
+    private static final Card.Rank[] RANKS = Card.Rank.values();
+
+    /**
+     * Write a game
+     * @return The image (exactly as long as it needs to be)
+     */
+    public static byte[] write(Manager manager) {
+        Player[] players = manager.getPlayers();
+        Pile pile = manager.getPile();
+        Visibility visibility = manager.getVisibility();
+
+        byte[][] names = new byte[players.length][];
+        int size = 16 + 8 * players.length + 4 * pile.getPlayCount();
+        for (int i = 0; i < players.length; i++) {
+            names[i] = players[i].getName().getBytes(StandardCharsets.UTF_8);
+            size += names[i].length;
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.put((byte) players.length);
+        out.putLong(manager.getSeed());
+        out.putInt(manager.getRoundNumber());
+        out.put((byte) manager.getCurrentPlayerIndex());
+        for (int i = 0; i < players.length; i++) {
+            out.putShort((short) names[i].length);
+            out.put(names[i]);
+            StateCodec.putMask(out, players[i].getHandView().getMask());
+            StateCodec.putMask(out, visibility.getVisibleMask(i));
+        }
+
+        out.putShort((short) pile.getPlayCount());
+        for (int i = 0; i < pile.getPlayCount(); i++) {
+            Play play = pile.getPlay(i);
+            out.put((byte) (manager.getPlayerIndex(play.getPlayer()) * 8 + play.getDeclaredRank().ordinal()));
+            StateCodec.putMask(out, play.getCardMask());
+        }
+        return out.array();
+    }
+
+    /**
+     * Rebuild a game from its image
+     * @param tableId Number of the table hosting the game
+     * @return A new game, with no listeners
+     */
+    public static Manager read(byte[] image, int tableId) {
+        ByteBuffer in = ByteBuffer.wrap(image);
+        int seats = in.get();
+        long seed = in.getLong();
+        int roundNumber = in.getInt();
+        int currentSeat = in.get();
+
+        Player[] players = new Player[seats];
+        int[] hands = new int[seats];
+        int[] visible = new int[seats];
+        for (int i = 0; i < seats; i++) {
+            byte[] name = new byte[in.getShort() & 0xFFFF];
+            in.get(name);
+            players[i] = new Player(new String(name, StandardCharsets.UTF_8));
+            hands[i] = StateCodec.getMask(in);
+            visible[i] = StateCodec.getMask(in);
+        }
+
+        int playCount = in.getShort() & 0xFFFF;
+        int[] playSeats = new int[playCount];
+        Card.Rank[] playRanks = new Card.Rank[playCount];
+        int[] playMasks = new int[playCount];
+        int pileMask = 0;
+        for (int i = 0; i < playCount; i++) {
+            int seatAndRank = in.get();
+            playSeats[i] = seatAndRank / 8;
+            playRanks[i] = RANKS[seatAndRank % 8];
+            playMasks[i] = StateCodec.getMask(in);
+            pileMask |= playMasks[i];
+        }
+
+        // Hands, turn and round go through importState(); the pile and what
+        // each seat has seen are then put back exactly
+        int last = playCount - 1;
+        Manager manager = Manager.restore(players, seed, tableId, new GameState(hands, pileMask, playCount,
+                last < 0 ? 0 : playMasks[last], last < 0 ? -1 : playSeats[last], last < 0 ? null : playRanks[last],
+                currentSeat, roundNumber));
+
+        Pile pile = manager.getPile();
+        pile.clearPile();
+        for (int i = 0; i < playCount; i++) {
+            pile.addPlay(new Play(players[playSeats[i]], CardSet.toArray(playMasks[i]), playRanks[i]));
+        }
+        Visibility visibility = manager.getVisibility();
+        visibility.clear();
+        for (int i = 0; i < seats; i++) {
+            visibility.revealMask(i, visible[i]);
+        }
+        return manager;
+    }
+}
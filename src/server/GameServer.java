@@ -0,0 +1,533 @@
+package server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import logging.EngineLog;
+import storage.BlobStore;
+import storage.WriteAheadLog;
+
+/**
+ * TCP server hosting many tables at once
+ * A single thread waits on a selector for every connection, so an idle client
+ * only costs its socket and two small buffers; each frame received is handed to a
+ * CommandHandler, which runs table requests on the table's actor, and the reply
+ * is written back by the selector thread when it is ready
+ * Each connection has at most one request in flight, so replies keep their order;
+ * changes pushed by a table's DeltaBroadcaster are sent between replies
+ */
+public class GameServer implements Runnable {
+
+    // Size of each connection's input and output buffers (room for two whole frames)
+    private static final int BUFFER_SIZE = 2 * WireCodec.MAX_FRAME;
+
+    // Most pushed bytes kept for a client that is not reading (more closes the connection)
+    private static final int MAX_PUSHED = 64 * 1024;
+
+    // Time between checkpoints of the write-ahead log
+    private static final int CHECKPOINT_SECONDS = 60;
+
+    // Time without a command after which a table hibernates, and between sweeps for such tables
+    private static final int IDLE_SECONDS = 30;
+    private static final int SWEEP_SECONDS = 1;
+
+    // Most tables kept awake, and most bytes of hibernating tables' images kept on the heap
+    private static final int MAX_AWAKE = 10000;
+    private static final long MAX_HEAP_IMAGE_BYTES = 16L * 1024 * 1024;
+
+    private CommandHandler handler;        // Runs the commands
+    private ServerStats stats;             // Load counters
+    private Selector selector;             // Waits on every connection
+    private ServerSocketChannel listener;  // Accepts new connections
+    private volatile boolean running;      // Cleared by stop()
+    private ConcurrentLinkedQueue<SelectionKey> finished; // Connections with a reply ready
+    private ConcurrentLinkedQueue<SelectionKey> pushed;   // Connections with changes to send
+
+    /**
+     * Create a server for a set of tables
+     */
+    public GameServer(TableRegistry registry, ServerStats stats) {
+        this.handler = new CommandHandler(registry, stats);
+        this.stats = stats;
+        this.finished = new ConcurrentLinkedQueue<SelectionKey>();
+        this.pushed = new ConcurrentLinkedQueue<SelectionKey>();
+    }
+
+    /**
+     * Start listening on a local port
+     * @param port The port (0 picks a free one)
+     * @return The port actually bound
+     */
+    public int bind(int port) throws IOException {
+        selector = Selector.open();
+        listener = ServerSocketChannel.open();
+        listener.bind(new InetSocketAddress("127.0.0.1", port), 1024);
+        listener.configureBlocking(false);
+        listener.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        return listener.socket().getLocalPort();
+    }
+
+    /**
+     * Serve connections until stop() is called
+     */
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                sendFinishedReplies();
+                sendPushedChanges();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            if (key.isReadable()) {
+                                read(key);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                write(key);
+                            }
+                        }
+                    } catch (IOException e) {
+                        close(key);
+                    } catch (IllegalArgumentException e) {
+                        // Badly formed request
+                        close(key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Server stopped: " + e.getMessage());
+        } finally {
+            closeAll();
+        }
+    }
+
+    /**
+     * Ask the server thread to stop
+     */
+    public void stop() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Accept every waiting connection
+     */
+    private void accept() throws IOException {
+        SocketChannel channel = listener.accept();
+        while (channel != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection connection = new Connection();
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ, connection);
+            connection.sink = new ConnectionSink(key);
+            connection.session = new Session(connection.sink);
+            stats.recordConnection();
+            channel = listener.accept();
+        }
+    }
+
+    /**
+     * Read what a client sent and answer every complete request
+     */
+    private void read(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+
+        if (channel.read(connection.in) < 0) {
+            close(key);
+            return;
+        }
+
+        dispatch(key);
+        write(key);
+    }
+
+    /**
+     * Start the connection's next requests, one at a time
+     * A request stays in the input buffer until the one before it has been
+     * answered and its reply fits in the output buffer, so a client that sends
+     * faster than it reads simply stops being read
+     */
+    private void dispatch(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        ByteBuffer in = connection.in;
+
+        while (!connection.busy && connection.out.remaining() >= WireCodec.MAX_FRAME) {
+            in.flip();
+            boolean complete;
+            try {
+                complete = WireCodec.decode(in, connection.request);
+            } finally {
+                in.compact();
+            }
+            if (!complete) {
+                return;
+            }
+
+            CompletableFuture<Void> done = handler.handle(connection.session, connection.request, connection.reply);
+            if (done.isDone()) {
+                if (done.isCompletedExceptionally()) {
+                    failed(connection.reply, done);
+                }
+                WireCodec.encode(connection.reply, connection.out);
+            } else {
+                connection.busy = true;
+                done.whenComplete(new ReplyCallback(key));
+            }
+        }
+    }
+
+    /**
+     * Fill an ERROR reply for a request whose future failed
+     */
+    private static void failed(Frame reply, CompletableFuture<Void> done) {
+        try {
+            done.join();
+        } catch (CompletionException e) {
+            failed(reply, e);
+        } catch (RuntimeException e) {
+            failed(reply, e);
+        }
+    }
+
+    /**
+     * Fill an ERROR reply from the cause of a failure
+     */
+    private static void failed(Frame reply, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        String message = cause.getMessage();
+        reply.reset(Frame.ERROR).setText(message != null ? message : "Request failed!");
+    }
+
+    /**
+     * Write the replies finished by table actors and start each connection's next request
+     */
+    private void sendFinishedReplies() {
+        SelectionKey key = finished.poll();
+        while (key != null) {
+            if (key.isValid()) {
+                Connection connection = (Connection) key.attachment();
+
+                // Changes made by the request usually go out ahead of its reply
+                connection.sink.moveTo(connection.out);
+                WireCodec.encode(connection.reply, connection.out);
+                connection.busy = false;
+                try {
+                    dispatch(key);
+                    write(key);
+                } catch (IOException e) {
+                    close(key);
+                } catch (IllegalArgumentException e) {
+                    // Badly formed request
+                    close(key);
+                }
+            }
+            key = finished.poll();
+        }
+    }
+
+    /**
+     * Move changes pushed by table actors into the output buffers and write them
+     */
+    private void sendPushedChanges() {
+        SelectionKey key = pushed.poll();
+        while (key != null) {
+            if (key.isValid()) {
+                try {
+                    write(key);
+                } catch (IOException e) {
+                    close(key);
+                } catch (IllegalArgumentException e) {
+                    // Badly formed request
+                    close(key);
+                }
+            }
+            key = pushed.poll();
+        }
+    }
+
+    /**
+     * Write as much of the queued replies and changes as the socket takes
+     */
+    private void write(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        ByteBuffer out = connection.out;
+
+        if (!connection.sink.moveTo(out)) {
+            // Client stopped reading and fell too far behind
+            close(key);
+            return;
+        }
+
+        // Once everything has been written, requests already in the input buffer
+        // may start, so keep going until the socket is full or nothing is left
+        while (true) {
+            out.flip();
+            channel.write(out);
+            out.compact();
+            if (out.position() > 0) {
+                break;
+            }
+            dispatch(key);
+            connection.sink.moveTo(out);
+            if (out.position() == 0) {
+                break;
+            }
+        }
+
+        // Only ask to be told about free socket space while something is waiting,
+        // and stop reading while the input buffer is full
+        int interest = 0;
+        if (connection.in.hasRemaining()) {
+            interest |= SelectionKey.OP_READ;
+        }
+        if (out.position() > 0) {
+            interest |= SelectionKey.OP_WRITE;
+        }
+        key.interestOps(interest);
+    }
+
+    /**
+     * Close one connection
+     */
+    private void close(SelectionKey key) {
+        key.cancel();
+        Connection connection = (Connection) key.attachment();
+        if (connection != null) {
+            connection.sink.close();
+        }
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    /**
+     * Close the listener and every connection
+     */
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            close(key);
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            // Nothing left to release
+        }
+    }
+
+    /**
+     * Hands a connection whose reply is ready back to the selector thread
+     * Runs however the request's future completes: if it failed, the reply
+     * becomes an error, so the connection is never left waiting
+     */
+    private class ReplyCallback implements BiConsumer<Void, Throwable> {
+        private SelectionKey key;
+
+        ReplyCallback(SelectionKey key) {
+            this.key = key;
+        }
+
+        public void accept(Void ignored, Throwable error) {
+            if (error != null) {
+                failed(((Connection) key.attachment()).reply, error);
+            }
+            finished.add(key);
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Collects changes pushed to one connection by table actors until the
+     * selector thread has room to write them
+     */
+    private class ConnectionSink implements DeltaSink {
+        private SelectionKey key;         // The connection
+        private ByteBuffer pending;       // Changes not yet moved to the output buffer
+        private boolean closed;           // Set once the connection is closed or too far behind
+
+        ConnectionSink(SelectionKey key) {
+            this.key = key;
+            this.pending = ByteBuffer.allocate(BUFFER_SIZE);
+        }
+
+        public synchronized boolean send(ByteBuffer frame) {
+            if (closed) {
+                return false;
+            }
+
+            // Grow the buffer up to the limit, then give up on the client
+            if (pending.remaining() < frame.remaining()) {
+                if (pending.capacity() >= MAX_PUSHED) {
+                    closed = true;
+                    pushed.add(key);
+                    selector.wakeup();
+                    return false;
+                }
+                ByteBuffer bigger = ByteBuffer.allocate(pending.capacity() * 2);
+                pending.flip();
+                bigger.put(pending);
+                pending = bigger;
+            }
+
+            boolean wasEmpty = pending.position() == 0;
+            pending.put(frame);
+            if (wasEmpty) {
+                pushed.add(key);
+                selector.wakeup();
+            }
+            return true;
+        }
+
+        /**
+         * Move whole frames into an output buffer while they fit, always leaving
+         * room for the reply to a request in flight
+         * @return false if the client fell too far behind and must be closed
+         */
+        synchronized boolean moveTo(ByteBuffer out) {
+            pending.flip();
+            while (pending.hasRemaining()) {
+                int size = 1 + (pending.get(pending.position()) & 0xFF);
+                if (size > out.remaining() - WireCodec.MAX_FRAME) {
+                    break;
+                }
+                int limit = pending.limit();
+                pending.limit(pending.position() + size);
+                out.put(pending);
+                pending.limit(limit);
+            }
+            pending.compact();
+            return !closed;
+        }
+
+        synchronized void close() {
+            closed = true;
+        }
+    }
+
+    /**
+     * Buffers, frames and session of one connection
+     * Only touched by the selector thread, except that the request and reply frames
+     * belong to the table's actor while a request is in flight
+     */
+    private static class Connection {
+        private ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+        private ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+        private Frame request = new Frame();
+        private Frame reply = new Frame();
+        private Session session;
+        private ConnectionSink sink;
+        private boolean busy; // Whether a request is in flight
+    }
+
+    /**
+     * Get the message of an exception thrown by a scheduled task, looking through
+     * the CompletionException that join() wraps failures in
+     */
+    private static String messageOf(RuntimeException e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause.getMessage() != null ? cause.getMessage() : cause.toString();
+    }
+
+    /**
+     * Command line entry point
+     * Usage: GameServer [port] [threads] [write-ahead log directory]
+     * With a log directory, games in progress when the server last stopped are
+     * recovered from it, every move is on disk before it is answered, and a
+     * checkpoint runs every minute
+     * Tables left idle hibernate, and their images go to a scratch file once
+     * they pass their heap budget
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7720;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final WriteAheadLog wal = args.length > 2 ? new WriteAheadLog(Paths.get(args[2])) : null;
+
+        BlobStore store = new BlobStore(Files.createTempFile("tables", ".img"));
+        IdleTables idleTables = new IdleTables(IDLE_SECONDS * 1000L, MAX_AWAKE, MAX_HEAP_IMAGE_BYTES, store);
+
+        ExecutorService actors = Executors.newFixedThreadPool(threads);
+        final TableRegistry registry = new TableRegistry(actors, wal, idleTables);
+        // Sweeps and checkpoints each have their own thread, so a slow checkpoint
+        // does not hold up hibernation
+        ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor();
+        ScheduledExecutorService checkpointer = Executors.newSingleThreadScheduledExecutor();
+        sweeper.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                try {
+                    registry.sweepIdleTables().join();
+                } catch (RuntimeException e) {
+                    // A table that failed to sleep stays awake; anything thrown here
+                    // would cancel the schedule, so log it and keep sweeping
+                    EngineLog.log(EngineLog.WARN, "Sweep failed: {}", messageOf(e));
+                }
+            }
+        }, SWEEP_SECONDS, SWEEP_SECONDS, TimeUnit.SECONDS);
+        if (wal != null) {
+            int restored = registry.restore(wal.getRecoveredGames());
+            wal.endCheckpoint();
+            EngineLog.log(EngineLog.INFO, "Recovered {} games from {} events", restored,
+                    wal.getRecoveredEventCount());
+
+            checkpointer.scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    try {
+                        registry.checkpoint(wal).join();
+                    } catch (IOException e) {
+                        EngineLog.log(EngineLog.WARN, "Checkpoint failed: {}", e.getMessage());
+                    } catch (RuntimeException e) {
+                        // The old segments stay until the next checkpoint succeeds; anything
+                        // thrown here would cancel the schedule, so log it and carry on
+                        EngineLog.log(EngineLog.WARN, "Checkpoint failed: {}", messageOf(e));
+                    }
+                }
+            }, CHECKPOINT_SECONDS, CHECKPOINT_SECONDS, TimeUnit.SECONDS);
+        }
+
+        GameServer server = new GameServer(registry, new ServerStats());
+        int bound = server.bind(port);
+        EngineLog.log(EngineLog.INFO, "Listening on port {}", bound);
+        try {
+            server.run();
+        } finally {
+            sweeper.shutdown();
+            checkpointer.shutdown();
+            actors.shutdown();
+            if (wal != null) {
+                wal.close();
+            }
+            store.close();
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import storage.BlobStore;
+
+/**
+ * Puts idle tables to sleep so that only tables in use keep their games on
+ * the heap
+ * Each sweep turns the games of tables that have been idle too long, or that
+ * are the least recently used beyond the number allowed awake, into images of
+ * a few dozen bytes (see GameImage); if the images on the heap pass their
+ * budget, the least recently used are moved to a file. A sleeping table is
+ * rebuilt by its actor before its next command runs
+ */
+public class IdleTables {
+
+    // Heap taken by the objects of one running game (Manager, Deck, Pile, Players,
+    // Visibility and their arrays), measured on a 64-bit JVM with compressed
+    // pointers: about 1400 bytes with two seats and 1700 with four
+    public static final int GAME_HEAP_BYTES = 1600;
+
+    private long idleNanos;          // Time without a command after which a table sleeps
+    private int maxAwake;            // Most tables kept awake
+    private long maxHeapImageBytes;  // Most bytes of images kept on the heap
+    private BlobStore store;         // Where images beyond the budget go (null to keep them all on the heap)
+
+    private AtomicLong onHeap;       // Tables asleep on the heap
+    private AtomicLong onDisk;       // Tables asleep on disk
+    private AtomicLong heapImageBytes; // Bytes of the images on the heap
+    private AtomicLong diskImageBytes; // Bytes of the images on disk
+    private LongAdder hibernations;  // Times a table went to sleep
+    private LongAdder spills;        // Times an image was moved to disk
+    private LongAdder wakes;         // Times a table was rebuilt
+    private LongAdder diskWakes;     // Times a table was rebuilt from disk
+    private LongAdder wakeNanos;     // Total time spent rebuilding tables
+    private AtomicLong maxWakeNanos; // Longest time spent rebuilding a table
+
+    /**
+     * Create a policy for putting tables to sleep
+     * @param idleMillis Time without a command after which a table sleeps
+     * @param maxAwake Most tables kept awake (the least recently used beyond it sleep)
+     * @param maxHeapImageBytes Most bytes of sleeping tables' images kept on the heap
+     * @param store Where images beyond that go (null to keep them all on the heap)
+     */
+    public IdleTables(long idleMillis, int maxAwake, long maxHeapImageBytes, BlobStore store) {
+        this.idleNanos = idleMillis * 1000000L;
+        this.maxAwake = maxAwake;
+        this.maxHeapImageBytes = maxHeapImageBytes;
+        this.store = store;
+        this.onHeap = new AtomicLong();
+        this.onDisk = new AtomicLong();
+        this.heapImageBytes = new AtomicLong();
+        this.diskImageBytes = new AtomicLong();
+        this.hibernations = new LongAdder();
+        this.spills = new LongAdder();
+        this.wakes = new LongAdder();
+        this.diskWakes = new LongAdder();
+        this.wakeNanos = new LongAdder();
+        this.maxWakeNanos = new AtomicLong();
+    }
+
+    /**
+     * Put tables to sleep as the policy says
+     * The work is queued on each table's actor, in order with its commands
+     * @param tables Every table
+     * @return Future completed once every table asked has gone to sleep or been skipped
+     */
+    public CompletableFuture<Void> sweep(Collection<TableActor> tables) {
+        ArrayList<TableActor> awake = new ArrayList<TableActor>();
+        ArrayList<TableActor> sleeping = new ArrayList<TableActor>();
+        for (TableActor actor : tables) {
+            int state = actor.getSleepState();
+            if (state == TableActor.AWAKE) {
+                awake.add(actor);
+            } else if (state == TableActor.ON_HEAP) {
+                sleeping.add(actor);
+            }
+        }
+        ArrayList<CompletableFuture<Boolean>> queued = new ArrayList<CompletableFuture<Boolean>>();
+
+        // Tables idle too long, and the least recently used beyond the limit
+        long[] lastUsed = new long[awake.size()];
+        Integer[] order = leastRecentFirst(awake, lastUsed);
+        long idleSince = System.nanoTime() - idleNanos;
+        int excess = awake.size() - maxAwake;
+        for (int i = 0; i < order.length; i++) {
+            int index = order[i];
+            if (i < excess || lastUsed[index] - idleSince <= 0) {
+                queued.add(awake.get(index).hibernate(lastUsed[index]));
+            }
+        }
+
+        // Images beyond the heap budget, least recently used first
+        if (store != null) {
+            long over = heapImageBytes.get() - maxHeapImageBytes;
+            order = leastRecentFirst(sleeping, new long[sleeping.size()]);
+            for (int i = 0; i < order.length && over > 0; i++) {
+                TableActor actor = sleeping.get(order[i]);
+                over -= actor.getImageSize();
+                queued.add(actor.spill(store));
+            }
+        }
+
+        return CompletableFuture.allOf(queued.toArray(new CompletableFuture<?>[queued.size()]));
+    }
+
+    /**
+     * Sort tables by when they were last used
+     * @param tables The tables
+     * @param lastUsed Filled with each table's last use, read once so the sort sees fixed values
+     * @return Indexes into tables, least recently used first
+     */
+    private static Integer[] leastRecentFirst(ArrayList<TableActor> tables, final long[] lastUsed) {
+        Integer[] order = new Integer[tables.size()];
+        for (int i = 0; i < order.length; i++) {
+            lastUsed[i] = tables.get(i).getLastUsed();
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                return Long.compare(lastUsed[a] - lastUsed[b], 0);
+            }
+        });
+        return order;
+    }
+
+    /**
+     * Count a table that went to sleep (called by its actor)
+     */
+    void hibernated(int imageSize) {
+        hibernations.increment();
+        onHeap.incrementAndGet();
+        heapImageBytes.addAndGet(imageSize);
+    }
+
+    /**
+     * Count an image moved to disk (called by its table's actor)
+     */
+    void spilled(int imageSize) {
+        spills.increment();
+        onHeap.decrementAndGet();
+        heapImageBytes.addAndGet(-imageSize);
+        onDisk.incrementAndGet();
+        diskImageBytes.addAndGet(imageSize);
+    }
+
+    /**
+     * Count a table that was rebuilt (called by its actor)
+     */
+    void woke(int imageSize, boolean fromDisk, long nanos) {
+        wakes.increment();
+        wakeNanos.add(nanos);
+        if (fromDisk) {
+            diskWakes.increment();
+            onDisk.decrementAndGet();
+            diskImageBytes.addAndGet(-imageSize);
+        } else {
+            onHeap.decrementAndGet();
+            heapImageBytes.addAndGet(-imageSize);
+        }
+
+        long max = maxWakeNanos.get();
+        while (nanos > max && !maxWakeNanos.compareAndSet(max, nanos)) {
+            max = maxWakeNanos.get();
+        }
+    }
+
+    /**
+     * Get the number of tables asleep
+     */
+    public long getSleepingCount() {
+        return onHeap.get() + onDisk.get();
+    }
+
+    /**
+     * Get the number of tables asleep on disk
+     */
+    public long getSpilledCount() {
+        return onDisk.get();
+    }
+
+    /**
+     * Get the bytes of the images kept on the heap
+     */
+    public long getHeapImageBytes() {
+        return heapImageBytes.get();
+    }
+
+    /**
+     * Get the bytes of the images kept on disk
+     */
+    public long getDiskImageBytes() {
+        return diskImageBytes.get();
+    }
+
+    /**
+     * Get an estimate of the heap freed by the tables asleep
+     */
+    public long getHeapSavedBytes() {
+        return getSleepingCount() * GAME_HEAP_BYTES - heapImageBytes.get();
+    }
+
+    /**
+     * Get the number of times a table went to sleep
+     */
+    public long getHibernations() {
+        return hibernations.sum();
+    }
+
+    /**
+     * Get the number of times an image was moved to disk
+     */
+    public long getSpills() {
+        return spills.sum();
+    }
+
+    /**
+     * Get the number of times a table was rebuilt
+     */
+    public long getWakes() {
+        return wakes.sum();
+    }
+
+    /**
+     * Get the number of times a table was rebuilt from disk
+     */
+    public long getDiskWakes() {
+        return diskWakes.sum();
+    }
+
+    /**
+     * Get the average time taken to rebuild a table
+     */
+    public double getAverageWakeNanos() {
+        long count = wakes.sum();
+        return count == 0 ? 0 : wakeNanos.sum() / (double) count;
+    }
+
+    /**
+     * Get the longest time taken to rebuild a table
+     */
+    public long getMaxWakeNanos() {
+        return maxWakeNanos.get();
+    }
+}
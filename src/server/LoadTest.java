@@ -0,0 +1,281 @@
+package server;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import model.Card;
+import storage.ArchivedGame;
+import storage.BlobStore;
+import storage.EventLog;
+import storage.EventReplayer;
+import storage.GameArchive;
+import storage.GameArchiveWriter;
+import storage.WriteAheadLog;
+
+/**
+ * Starts a server in this process, fills it with tables and idle connections,
+ * plays a game at every table and prints the load counters
+ */
+public class LoadTest {
+
+    // Turns after which a game is abandoned
+    private static final int MAX_TURNS = 2000;
+
+    // Time between checkpoints of a write-ahead log during the run
+    private static final int CHECKPOINT_MILLIS = 500;
+
+    // Time without a command after which a table hibernates during the run
+    private static final int IDLE_MILLIS = 200;
+
+    // Most tables kept awake, and most bytes of hibernating tables' images kept on the heap
+    // (small, so the run also moves images to disk)
+    private static final int MAX_AWAKE = 1000;
+    private static final long MAX_HEAP_IMAGE_BYTES = 64 * 1024;
+
+    // Changes pushed to the players of every table
+    private static final LongAdder deltas = new LongAdder();
+
+    /**
+     * Play one two-seat game through the server
+     */
+    static void playTable(int port, SplittableRandom random) throws IOException {
+        LocalClient[] clients = {new LocalClient(port), new LocalClient(port)};
+        try {
+            int table = clients[0].newTable(2);
+            clients[0].join(table, "North");
+            clients[1].join(table, "South");
+
+            for (int turn = 0; turn < MAX_TURNS; turn++) {
+                Frame state = clients[0].getState();
+                if (state.getInt(Frame.STATE_WINNER) >= 0) {
+                    break;
+                }
+                LocalClient current = clients[state.getInt(Frame.STATE_CURRENT)];
+
+                if (state.getInt(Frame.STATE_LAST_COUNT) > 0 && random.nextDouble() < 0.2) {
+                    current.challenge();
+                } else {
+                    // Play the lowest card, mostly declaring its real rank
+                    int index = Integer.numberOfTrailingZeros(current.getHand());
+                    Card.Rank rank = Card.get(index).getRank();
+                    if (random.nextDouble() < 0.3) {
+                        rank = Card.Rank.values()[random.nextInt(Card.Rank.values().length)];
+                    }
+                    current.play(1 << index, rank);
+                }
+            }
+        } finally {
+            deltas.add(clients[0].getDeltaCount() + clients[1].getDeltaCount());
+            clients[0].close();
+            clients[1].close();
+        }
+    }
+
+    /**
+     * Read every game of an archive in file order, then look each one up by number
+     */
+    private static void scanArchive(Path file) throws IOException {
+        GameArchive archive = new GameArchive(file);
+        System.out.println("Archived:           " + archive.getGameCount() + " games (" + archive.getSize() + " bytes)");
+
+        long start = System.nanoTime();
+        ArchivedGame game = archive.cursor();
+        int games = 0;
+        long moves = 0;
+        long challenges = 0;
+        while (game.next()) {
+            games++;
+            while (game.nextMove()) {
+                moves++;
+                if (game.getMoveType() == EventLog.CHALLENGE) {
+                    challenges++;
+                }
+            }
+        }
+        System.out.printf("Scanned:            %d games, %d moves (%d challenges) in %.1f ms%n", games, moves,
+                challenges, (System.nanoTime() - start) / 1e6);
+
+        // Table numbers start at 1
+        start = System.nanoTime();
+        int found = 0;
+        for (int id = 1; id <= games; id++) {
+            if (game.seek(id)) {
+                found++;
+            }
+        }
+        System.out.printf("Looked up:          %d games by number in %.1f ms%n", found,
+                (System.nanoTime() - start) / 1e6);
+    }
+
+    /**
+     * Heap in use after a full collection
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Put every table to sleep, then wake them all, and print what it cost and saved
+     */
+    private static void hibernateAll(TableRegistry registry, IdleTables idleTables, BlobStore store)
+            throws InterruptedException {
+        Thread.sleep(IDLE_MILLIS);
+        registry.sweepIdleTables().join();
+        registry.sweepIdleTables().join();
+        long asleepHeap = usedHeap();
+        long sleeping = idleTables.getSleepingCount();
+        long spilled = idleTables.getSpilledCount();
+        long heapImages = idleTables.getHeapImageBytes();
+        long diskImages = idleTables.getDiskImageBytes();
+        long saved = idleTables.getHeapSavedBytes();
+        long fileSize = store.getFileSize();
+
+        // Any command wakes a table
+        long wakesBefore = idleTables.getWakes();
+        long start = System.nanoTime();
+        CompletableFuture<?>[] woken = new CompletableFuture<?>[registry.size()];
+        for (int id = 1; id <= woken.length; id++) {
+            TableActor actor = registry.getTable(id);
+            woken[id - 1] = actor == null ? CompletableFuture.completedFuture(null) : actor.submit(
+                    new TableCommand<Integer>() {
+                        public Integer apply(Table table) {
+                            return table.getWinnerSeat();
+                        }
+                    });
+        }
+        CompletableFuture.allOf(woken).join();
+        double wakeMillis = (System.nanoTime() - start) / 1e6;
+        long awakeHeap = usedHeap();
+
+        System.out.printf("Hibernated:         %d tables (%d on disk), %d bytes of images on the heap, "
+                + "%d on disk (file %d bytes)%n", sleeping, spilled, heapImages, diskImages, fileSize);
+        System.out.printf("Heap:               %.1f MB asleep, %.1f MB awake (estimated saving %.1f MB)%n",
+                asleepHeap / 1048576.0, awakeHeap / 1048576.0, saved / 1048576.0);
+        System.out.printf("Woke:               %d tables in %.1f ms, average %.1f us, max %.1f us%n",
+                idleTables.getWakes() - wakesBefore, wakeMillis, idleTables.getAverageWakeNanos() / 1000.0,
+                idleTables.getMaxWakeNanos() / 1000.0);
+        System.out.println("Sleeps over run:    " + idleTables.getHibernations() + " hibernations, "
+                + idleTables.getSpills() + " spills, " + idleTables.getWakes() + " wakes ("
+                + idleTables.getDiskWakes() + " from disk)");
+    }
+
+    /**
+     * Command line entry point
+     * Usage: LoadTest [tables] [idleConnections] [threads] [actorThreads] [log] [wal]
+     * The log is an event log file, or with "wal" a write-ahead log directory
+     * that is checkpointed during the run and recovered from afterwards
+     * Idle tables hibernate during the run; at the end every table is put to
+     * sleep and woken again
+     */
+    public static void main(String[] args) throws Exception {
+        final int tables = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int idle = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int actorThreads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        ExecutorService actors = Executors.newFixedThreadPool(actorThreads);
+        boolean durable = args.length > 5 && args[5].equals("wal");
+        EventLog log = args.length > 4 && !durable ? new EventLog(Paths.get(args[4])) : null;
+        final WriteAheadLog wal = durable ? new WriteAheadLog(Paths.get(args[4])) : null;
+        BlobStore store = new BlobStore(Files.createTempFile("tables", ".img"));
+        IdleTables idleTables = new IdleTables(IDLE_MILLIS, MAX_AWAKE, MAX_HEAP_IMAGE_BYTES, store);
+        final TableRegistry registry = new TableRegistry(actors, durable ? wal : log, idleTables);
+        ServerStats stats = new ServerStats();
+        GameServer server = new GameServer(registry, stats);
+        final int port = server.bind(0);
+        Thread serverThread = new Thread(server, "game-server");
+        serverThread.start();
+
+        // Connections that never send anything
+        LocalClient[] idleClients = new LocalClient[idle];
+        for (int i = 0; i < idle; i++) {
+            idleClients[i] = new LocalClient(port);
+        }
+
+        // Play every table from a pool of driver threads
+        long start = System.nanoTime();
+        ExecutorService drivers = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < tables; i++) {
+            final long seed = i;
+            drivers.execute(new Runnable() {
+                public void run() {
+                    try {
+                        playTable(port, new SplittableRandom(seed));
+                    } catch (IOException e) {
+                        System.out.println("Table failed: " + e.getMessage());
+                    }
+                }
+            });
+        }
+        drivers.shutdown();
+
+        // Put idle tables to sleep and checkpoint while the tables are being played
+        int checkpoints = 0;
+        while (!drivers.awaitTermination(CHECKPOINT_MILLIS, TimeUnit.MILLISECONDS)) {
+            registry.sweepIdleTables().join();
+            if (wal != null) {
+                registry.checkpoint(wal).join();
+                checkpoints++;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("Tables hosted:      " + registry.size());
+        System.out.println("Connections:        " + stats.getConnections() + " (" + idle + " idle)");
+        System.out.println("Commands:           " + stats.getCommands());
+        System.out.printf("Commands/sec:       %.0f%n", stats.getCommands() / seconds);
+        System.out.println("Changes pushed:     " + deltas.sum());
+        System.out.printf("Average latency:    %.1f us%n", stats.getAverageLatencyNanos() / 1000.0);
+        System.out.printf("Max latency:        %.1f us%n", stats.getMaxLatencyNanos() / 1000.0);
+
+        for (int i = 0; i < idle; i++) {
+            idleClients[i].close();
+        }
+        server.stop();
+        serverThread.join();
+        hibernateAll(registry, idleTables, store);
+        actors.shutdown();
+        store.close();
+
+        // Recover every logged game from the directory
+        if (wal != null) {
+            System.out.printf("Log syncs:          %d in %d forces (%.1f per force), %d checkpoints%n",
+                    wal.getSyncCount(), wal.getForceCount(), wal.getSyncCount() / (double) wal.getForceCount(),
+                    checkpoints);
+            wal.close();
+            long recoverStart = System.nanoTime();
+            WriteAheadLog reopened = new WriteAheadLog(Paths.get(args[4]));
+            System.out.printf("Recovered:          %d games from %d events in %.1f ms%n",
+                    reopened.getRecoveredGames().size(), reopened.getRecoveredEventCount(),
+                    (System.nanoTime() - recoverStart) / 1e6);
+            reopened.close();
+        }
+
+        // Rebuild every logged game from the file
+        if (log != null) {
+            log.close();
+            long replayStart = System.nanoTime();
+            Path archiveFile = Paths.get(args[4] + ".archive");
+            GameArchiveWriter archiveWriter = new GameArchiveWriter(archiveFile);
+            EventReplayer replayer = new EventReplayer(archiveWriter);
+            int games = replayer.replay(Paths.get(args[4])).size();
+            archiveWriter.close();
+            System.out.println("Events logged:      " + log.getEventCount() + " (" + log.getBytesWritten() + " bytes)");
+            System.out.printf("Replayed:           %d games from %d events in %.1f ms%n", games,
+                    replayer.getEventCount(), (System.nanoTime() - replayStart) / 1e6);
+            scanArchive(archiveFile);
+        }
+    }
+}
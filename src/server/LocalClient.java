@@ -0,0 +1,210 @@
+package server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import model.Card;
+
+/**
+ * Simple blocking client for the binary protocol, for tests and load runs
+ */
+public class LocalClient {
+
+    private SocketChannel channel; // Connection to the server
+    private ByteBuffer out;        // Request being sent
+    private ByteBuffer in;         // Bytes received and not read yet
+    private Frame request;         // Reused request frame
+    private Frame reply;           // Reused reply frame
+    private DeltaHandler deltaHandler; // Told about pushed changes (null to skip them)
+    private long deltaCount;       // Number of pushed changes received
+
+    /**
+     * Receives the changes the server pushes to this client
+     */
+    public interface DeltaHandler {
+
+        /**
+         * Called for each pushed change, while the client is waiting for a reply
+         * or in awaitDelta()
+         * @param delta The change (reused once this method returns)
+         */
+        void delta(Frame delta);
+    }
+
+    /**
+     * Connect to a server on this machine
+     * @param port The server's port
+     */
+    public LocalClient(int port) throws IOException {
+        this.channel = SocketChannel.open(new InetSocketAddress("127.0.0.1", port));
+        this.channel.socket().setTcpNoDelay(true);
+        this.out = ByteBuffer.allocate(WireCodec.MAX_FRAME);
+        this.in = ByteBuffer.allocate(2 * WireCodec.MAX_FRAME);
+        this.request = new Frame();
+        this.reply = new Frame();
+    }
+
+    /**
+     * Create a table
+     * @return The table number
+     */
+    public int newTable(int seats) throws IOException {
+        request.reset(Frame.NEW).add(seats);
+        return call(Frame.TABLE).getInt(0);
+    }
+
+    /**
+     * Join a table
+     * @return The seat taken
+     */
+    public int join(int table, String name) throws IOException {
+        request.reset(Frame.JOIN).add(table).setText(name);
+        return call(Frame.SEAT).getInt(0);
+    }
+
+    /**
+     * Follow a table's changes as a spectator
+     */
+    public void watch(int table) throws IOException {
+        request.reset(Frame.WATCH).add(table);
+        call(Frame.OK);
+    }
+
+    /**
+     * Set what is told about pushed changes
+     * @param handler The handler, or null to skip the changes
+     */
+    public void setDeltaHandler(DeltaHandler handler) {
+        this.deltaHandler = handler;
+    }
+
+    /**
+     * Get the number of pushed changes received
+     */
+    public long getDeltaCount() {
+        return deltaCount;
+    }
+
+    /**
+     * Wait for the next pushed change
+     * @return The change (reused by the next request)
+     */
+    public Frame awaitDelta() throws IOException {
+        readFrame();
+        if (!reply.isDelta()) {
+            throw new IllegalStateException("Unexpected reply " + reply);
+        }
+        countDelta();
+        return reply;
+    }
+
+    /**
+     * Get the mask of the cards in this client's hand
+     */
+    public int getHand() throws IOException {
+        request.reset(Frame.HAND);
+        return call(Frame.CARDS).getInt(0);
+    }
+
+    /**
+     * Play cards
+     * @param cardMask Mask of the cards to play
+     * @param declaredRank The rank declared
+     */
+    public void play(int cardMask, Card.Rank declaredRank) throws IOException {
+        request.reset(Frame.MOVE).add(WireCodec.moveCode(cardMask, declaredRank));
+        call(Frame.OK);
+    }
+
+    /**
+     * Challenge the last play
+     * @return true if the challenge succeeded
+     */
+    public boolean challenge() throws IOException {
+        request.reset(Frame.MOVE).add(WireCodec.CHALLENGE_MOVE);
+        return call(Frame.CHALLENGE_RESULT).getInt(0) == 1;
+    }
+
+    /**
+     * Get the public state of this client's table
+     * @return A TABLE_STATE frame (reused by the next request)
+     */
+    public Frame getState() throws IOException {
+        request.reset(Frame.STATE);
+        return call(Frame.TABLE_STATE);
+    }
+
+    /**
+     * Get the server's load counters
+     * @return A SERVER_STATS frame (reused by the next request)
+     */
+    public Frame getStats() throws IOException {
+        request.reset(Frame.STATS);
+        return call(Frame.SERVER_STATS);
+    }
+
+    /**
+     * Send the request frame and wait for its reply
+     * @param expectedType The reply type that means success
+     * @return The reply frame
+     */
+    private Frame call(int expectedType) throws IOException {
+        out.clear();
+        WireCodec.encode(request, out);
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+
+        // Read until the reply arrives, passing on any changes that come first
+        readFrame();
+        while (reply.isDelta()) {
+            countDelta();
+            readFrame();
+        }
+
+        if (reply.getType() == Frame.ERROR) {
+            throw new IllegalStateException(reply.getText());
+        }
+        if (reply.getType() != expectedType) {
+            throw new IllegalStateException("Unexpected reply " + reply);
+        }
+        return reply;
+    }
+
+    /**
+     * Read the next whole frame into the reply frame
+     */
+    private void readFrame() throws IOException {
+        in.flip();
+        boolean complete = WireCodec.decode(in, reply);
+        in.compact();
+        while (!complete) {
+            if (channel.read(in) < 0) {
+                throw new IOException("Server closed the connection");
+            }
+            in.flip();
+            complete = WireCodec.decode(in, reply);
+            in.compact();
+        }
+    }
+
+    /**
+     * Count a pushed change and pass it on
+     */
+    private void countDelta() {
+        deltaCount++;
+        if (deltaHandler != null) {
+            deltaHandler.delta(reply);
+        }
+    }
+
+    /**
+     * Close the connection
+     */
+    public void close() throws IOException {
+        channel.close();
+    }
+}
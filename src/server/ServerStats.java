@@ -0,0 +1,86 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters describing the load on a server
+ * Updated by the server thread and read from any thread
+ */
+public class ServerStats {
+
+    private LongAdder commands;       // Commands handled
+    private LongAdder latencyNanos;   // Total time spent handling commands
+    private AtomicLong maxLatency;    // Longest time spent on one command
+    private LongAdder connections;    // Connections accepted
+    private long startNanos;          // When counting started
+
+    /**
+     * Create counters starting now
+     */
+    public ServerStats() {
+        this.commands = new LongAdder();
+        this.latencyNanos = new LongAdder();
+        this.maxLatency = new AtomicLong();
+        this.connections = new LongAdder();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Record one handled command
+     * @param nanos Time spent handling it
+     */
+    public void recordCommand(long nanos) {
+        commands.increment();
+        latencyNanos.add(nanos);
+
+        // Keep the largest value seen
+        long max = maxLatency.get();
+        while (nanos > max && !maxLatency.compareAndSet(max, nanos)) {
+            max = maxLatency.get();
+        }
+    }
+
+    /**
+     * Record one accepted connection
+     */
+    public void recordConnection() {
+        connections.increment();
+    }
+
+    /**
+     * Get the number of commands handled
+     */
+    public long getCommands() {
+        return commands.sum();
+    }
+
+    /**
+     * Get the number of connections accepted
+     */
+    public long getConnections() {
+        return connections.sum();
+    }
+
+    /**
+     * Get commands handled per second since counting started
+     */
+    public double getCommandsPerSecond() {
+        return getCommands() / ((System.nanoTime() - startNanos) / 1e9);
+    }
+
+    /**
+     * Get the average time spent on one command in nanoseconds
+     */
+    public double getAverageLatencyNanos() {
+        long count = getCommands();
+        return count == 0 ? 0 : (double) latencyNanos.sum() / count;
+    }
+
+    /**
+     * Get the longest time spent on one command in nanoseconds
+     */
+    public long getMaxLatencyNanos() {
+        return maxLatency.get();
+    }
+}
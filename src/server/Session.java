@@ -0,0 +1,52 @@
+package server;
+
+/**
+ * What the server remembers about one client
+ */
+public class Session {
+
+    private TableActor table; // Table the client has joined (null if none)
+    private int seat;         // Seat taken at that table (-1 if none)
+    private DeltaSink sink;   // Where changes to the client's table are sent
+
+    /**
+     * Create a session that has not joined a table
+     * @param sink Where changes to the client's table will be sent
+     */
+    public Session(DeltaSink sink) {
+        this.table = null;
+        this.seat = -1;
+        this.sink = sink;
+    }
+
+    /**
+     * Get where changes to the client's table are sent
+     */
+    public DeltaSink getSink() {
+        return sink;
+    }
+
+    /**
+     * Remember the table and seat the client joined
+     */
+    public void joined(TableActor table, int seat) {
+        this.table = table;
+        this.seat = seat;
+    }
+
+    /**
+     * Get the table the client has joined
+     * @return The table, or null if none
+     */
+    public TableActor getTable() {
+        return table;
+    }
+
+    /**
+     * Get the seat the client has taken
+     * @return The seat, or -1 if none
+     */
+    public int getSeat() {
+        return seat;
+    }
+}
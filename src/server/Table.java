@@ -0,0 +1,288 @@
+package server;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import model.Card;
+import model.CardSet;
+import model.Manager;
+import model.Play;
+import model.Player;
+import storage.BlobStore;
+import storage.GameLog;
+import storage.GameRecorder;
+
+/**
+ * One game hosted by the server
+ * Players join seats until the table is full, then the game is dealt
+ */
+public class Table {
+
+    private int id;            // Table number
+    private Player[] players;  // Player in each seat (null until joined)
+    private int joinedCount;   // Number of seats taken
+    private Manager manager;   // The game (null until every seat is taken)
+    private DeltaBroadcaster broadcaster; // Sends changes to players and spectators
+    private GameLog log;       // Where the game is logged (null if it is not)
+    private GameRecorder recorder; // Logs the game (null until it is dealt, or if it is not logged)
+    private byte[] image;      // The game while hibernating on the heap (null otherwise)
+    private BlobStore store;   // Where the image is while hibernating on disk (null otherwise)
+    private long storedAt;     // Offset of the image in the store
+    private int imageSize;     // Size of the image while hibernating (0 if awake)
+
+    /**
+     * Create an empty table
+     * @param id Table number
+     * @param seats Number of seats (2-4)
+     */
+    public Table(int id, int seats) {
+        this(id, seats, null);
+    }
+
+    /**
+     * Create an empty table whose game is logged
+     * @param id Table number (also the game's number in the log)
+     * @param seats Number of seats (2-4)
+     * @param log Where the game is logged (null to not log it)
+     */
+    public Table(int id, int seats, GameLog log) {
+        if (seats < 2 || seats > 4) {
+            throw new IllegalArgumentException("A game needs 2-4 players!");
+        }
+
+        this.id = id;
+        this.players = new Player[seats];
+        this.joinedCount = 0;
+        this.broadcaster = new DeltaBroadcaster();
+        this.log = log;
+    }
+
+    /**
+     * Create a full table for a game recovered after a restart
+     * @param id Table number (also the game's number in the log)
+     * @param manager The recovered game
+     * @param log Where the game is logged from now on (null to not log it)
+     */
+    public Table(int id, Manager manager, GameLog log) {
+        this(id, manager.getPlayerCount(), log);
+        Player[] seated = manager.getPlayers();
+        for (int i = 0; i < seated.length; i++) {
+            players[i] = seated[i];
+        }
+        this.joinedCount = seated.length;
+        this.manager = manager;
+        manager.setTableId(id);
+        if (log != null) {
+            recorder = log.record(id, manager);
+        }
+        broadcaster.attach(manager);
+    }
+
+    /**
+     * Get the table number
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Get the number of seats
+     */
+    public int getSeatCount() {
+        return players.length;
+    }
+
+    /**
+     * Take the next free seat, dealing the game when the last seat is taken
+     * @param name The player's name
+     * @return The seat taken
+     */
+    public int join(String name) {
+        if (joinedCount == players.length) {
+            throw new IllegalStateException("Table is full!");
+        }
+
+        int seat = joinedCount;
+        players[seat] = new Player(name);
+        joinedCount++;
+
+        if (joinedCount == players.length) {
+            manager = new Manager(players, ThreadLocalRandom.current().nextLong(), id);
+            if (log != null) {
+                recorder = log.record(id, manager);
+            }
+            broadcaster.attach(manager);
+        }
+        return seat;
+    }
+
+    /**
+     * Put the game to sleep: keep only its image and drop every object of the game
+     * The table must not be used again until wake() is called
+     * @return The size of the image
+     */
+    public int hibernate() {
+        if (manager == null || imageSize > 0) {
+            throw new IllegalStateException("Only a running game can hibernate!");
+        }
+        image = GameImage.write(manager);
+        imageSize = image.length;
+
+        broadcaster.follow(null);
+        if (recorder != null) {
+            recorder.follow(null);
+        }
+        manager = null;
+        for (int i = 0; i < players.length; i++) {
+            players[i] = null;
+        }
+        return imageSize;
+    }
+
+    /**
+     * Move the image of a hibernating game from the heap to a file
+     */
+    public void spill(BlobStore to) {
+        if (image == null) {
+            throw new IllegalStateException("Only a game hibernating on the heap can be spilled!");
+        }
+        storedAt = to.write(image);
+        store = to;
+        image = null;
+    }
+
+    /**
+     * Rebuild a hibernating game, exactly as it was
+     * @return The size of the image it was rebuilt from
+     */
+    public int wake() {
+        if (imageSize == 0) {
+            throw new IllegalStateException("Game is not hibernating!");
+        }
+        if (image == null) {
+            image = store.take(storedAt, imageSize);
+            store = null;
+        }
+
+        manager = GameImage.read(image, id);
+        Player[] rebuilt = manager.getPlayers();
+        for (int i = 0; i < players.length; i++) {
+            players[i] = rebuilt[i];
+        }
+        broadcaster.follow(manager);
+        if (recorder != null) {
+            recorder.follow(manager);
+        }
+
+        int size = imageSize;
+        image = null;
+        imageSize = 0;
+        return size;
+    }
+
+    /**
+     * Rebuild a copy of a hibernating game from its image, leaving the table asleep
+     * @return The copy, which nothing listens to
+     */
+    public Manager readImage() {
+        if (imageSize == 0) {
+            throw new IllegalStateException("Game is not hibernating!");
+        }
+        return GameImage.read(image != null ? image : store.read(storedAt, imageSize), id);
+    }
+
+    /**
+     * Check if the game is hibernating
+     */
+    public boolean isHibernating() {
+        return imageSize > 0;
+    }
+
+    /**
+     * Check if the game is hibernating on disk
+     */
+    public boolean isSpilled() {
+        return store != null;
+    }
+
+    /**
+     * Get the listener that logs the game
+     * @return The recorder, or null if the game has not been dealt or is not logged
+     */
+    public GameRecorder getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * Get the broadcaster that sends this table's changes to its viewers
+     */
+    public DeltaBroadcaster getBroadcaster() {
+        return broadcaster;
+    }
+
+    /**
+     * Check if every seat is taken and the game has been dealt
+     */
+    public boolean isStarted() {
+        return manager != null;
+    }
+
+    /**
+     * Get the game
+     * @return The game, or null if the table is not full yet
+     */
+    public Manager getManager() {
+        return manager;
+    }
+
+    /**
+     * Play cards for a seat
+     * @param seat The seat playing
+     * @param cardMask Mask of the cards to play
+     * @param declaredRank The rank declared
+     */
+    public void play(int seat, int cardMask, Card.Rank declaredRank) {
+        checkPlaying();
+        manager.playCards(players[seat], CardSet.toArray(cardMask), declaredRank);
+    }
+
+    /**
+     * Challenge the last play for a seat
+     * @param seat The seat challenging (must be the seat to move)
+     * @return true if the challenge succeeded
+     */
+    public boolean challenge(int seat) {
+        checkPlaying();
+        if (seat != manager.getCurrentPlayerIndex()) {
+            throw new IllegalStateException("Not your turn!");
+        }
+        Play lastPlay = manager.getPile().getLastPlay();
+        if (lastPlay == null) {
+            throw new IllegalStateException("No cards to challenge!");
+        }
+        return manager.challengePlayer(players[seat]);
+    }
+
+    /**
+     * Get the seat of the winner
+     * @return The winning seat, or -1 if there is no winner yet
+     */
+    public int getWinnerSeat() {
+        if (manager == null) {
+            return -1;
+        }
+        Player winner = manager.checkForWinner();
+        return winner == null ? -1 : manager.getPlayerIndex(winner);
+    }
+
+    /**
+     * Make sure the game is running
+     */
+    private void checkPlaying() {
+        if (manager == null) {
+            throw new IllegalStateException("Waiting for players!");
+        }
+        if (getWinnerSeat() >= 0) {
+            throw new IllegalStateException("Game is over!");
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package server;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import storage.BlobStore;
+
+/**
+ * Owns one table and applies commands to it one at a time
+ * Any thread may submit a command; commands are queued in a mailbox and run in
+ * order by a shared executor, and at most one executor thread works on a table at
+ * a time, so Table and Manager never need locks and many tables run in parallel
+ * A table put to sleep by IdleTables is woken before the next command runs, so
+ * callers never see the difference
+ */
+public class TableActor {
+
+    // Commands run before the actor gives its thread to another table
+    private static final int BATCH_SIZE = 64;
+
+    // Where the table is (see getSleepState())
+    public static final int AWAKE = 0;
+    public static final int ON_HEAP = 1;
+    public static final int ON_DISK = 2;
+
+    private Table table;                              // The table this actor owns
+    private Executor executor;                        // Threads shared by every actor
+    private ConcurrentLinkedQueue<Runnable> mailbox;  // Commands waiting to run
+    private AtomicBoolean scheduled;                  // Whether a drain is queued or running
+    private Runnable drainTask;                       // Runs a batch of commands
+    private IdleTables idleTables;                    // Puts the table to sleep (null if it never sleeps)
+    private volatile long lastUsed;                   // Time the last command was submitted
+    private volatile int sleepState;                  // AWAKE, ON_HEAP or ON_DISK
+    private volatile int imageSize;                   // Size of the table's image while asleep
+
+    /**
+     * Create an actor for a table
+     * @param table The table (must not be used directly afterwards)
+     * @param executor Threads used to run commands
+     */
+    public TableActor(Table table, Executor executor) {
+        this(table, executor, null);
+    }
+
+    /**
+     * Create an actor for a table that may be put to sleep while idle
+     * @param table The table (must not be used directly afterwards)
+     * @param executor Threads used to run commands
+     * @param idleTables Puts idle tables to sleep (null if the table never sleeps)
+     */
+    public TableActor(Table table, Executor executor, IdleTables idleTables) {
+        this.table = table;
+        this.idleTables = idleTables;
+        this.lastUsed = System.nanoTime();
+        this.sleepState = table.isHibernating() ? (table.isSpilled() ? ON_DISK : ON_HEAP) : AWAKE;
+        this.executor = executor;
+        this.mailbox = new ConcurrentLinkedQueue<Runnable>();
+        this.scheduled = new AtomicBoolean(false);
+        this.drainTask = new Runnable() {
+            public void run() {
+                drain();
+            }
+        };
+    }
+
+    /**
+     * Get the table number
+     */
+    public int getId() {
+        return table.getId();
+    }
+
+    /**
+     * Queue a command for the table
+     * @param command The command to run
+     * @return Future completed with the command's result, or with the exception it threw
+     */
+    public <T> CompletableFuture<T> submit(final TableCommand<T> command) {
+        final CompletableFuture<T> result = new CompletableFuture<T>();
+        if (idleTables != null) {
+            lastUsed = System.nanoTime();
+        }
+        mailbox.add(new Runnable() {
+            public void run() {
+                try {
+                    if (sleepState != AWAKE) {
+                        wake();
+                    }
+                    result.complete(command.apply(table));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+        schedule();
+        return result;
+    }
+
+    /**
+     * Queue a command that looks at the table as it is, asleep or not
+     * Runs in order with the commands, but is not a use of the table and does not
+     * wake it, so the command must check table.isHibernating()
+     * @return Future completed with the command's result, or with the exception it threw
+     */
+    public <T> CompletableFuture<T> visit(final TableCommand<T> command) {
+        final CompletableFuture<T> result = new CompletableFuture<T>();
+        mailbox.add(new Runnable() {
+            public void run() {
+                try {
+                    result.complete(command.apply(table));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+        schedule();
+        return result;
+    }
+
+    /**
+     * Put the table to sleep unless a command has been submitted since a time
+     * Runs in order with the commands, but is not a use of the table
+     * @param ifUnusedSince The last use seen by the caller
+     * @return Future completed with true if the table went to sleep
+     */
+    public CompletableFuture<Boolean> hibernate(final long ifUnusedSince) {
+        final CompletableFuture<Boolean> result = new CompletableFuture<Boolean>();
+        mailbox.add(new Runnable() {
+            public void run() {
+                try {
+                    boolean asleep = false;
+                    if (sleepState == AWAKE && lastUsed == ifUnusedSince && table.isStarted()) {
+                        imageSize = table.hibernate();
+                        sleepState = ON_HEAP;
+                        idleTables.hibernated(imageSize);
+                        asleep = true;
+                    }
+                    result.complete(asleep);
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+        schedule();
+        return result;
+    }
+
+    /**
+     * Move the image of a sleeping table from the heap to a file
+     * @return Future completed with true if the image was moved
+     */
+    public CompletableFuture<Boolean> spill(final BlobStore store) {
+        final CompletableFuture<Boolean> result = new CompletableFuture<Boolean>();
+        mailbox.add(new Runnable() {
+            public void run() {
+                try {
+                    boolean spilled = false;
+                    if (sleepState == ON_HEAP) {
+                        table.spill(store);
+                        sleepState = ON_DISK;
+                        idleTables.spilled(imageSize);
+                        spilled = true;
+                    }
+                    result.complete(spilled);
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+        schedule();
+        return result;
+    }
+
+    /**
+     * Get the time the last command was submitted (System.nanoTime())
+     */
+    public long getLastUsed() {
+        return lastUsed;
+    }
+
+    /**
+     * Get where the table is
+     * @return AWAKE, ON_HEAP (asleep as an image on the heap) or ON_DISK
+     */
+    public int getSleepState() {
+        return sleepState;
+    }
+
+    /**
+     * Get the size of the table's image while it is asleep
+     */
+    public int getImageSize() {
+        return imageSize;
+    }
+
+    /**
+     * Rebuild the table before running a command
+     */
+    private void wake() {
+        long start = System.nanoTime();
+        boolean fromDisk = sleepState == ON_DISK;
+        int size = table.wake();
+        sleepState = AWAKE;
+        imageSize = 0;
+        idleTables.woke(size, fromDisk, System.nanoTime() - start);
+    }
+
+    /**
+     * Get the number of commands waiting to run
+     */
+    public int getQueuedCount() {
+        return mailbox.size();
+    }
+
+    /**
+     * Queue a drain unless one is already queued or running
+     */
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(drainTask);
+        }
+    }
+
+    /**
+     * Run a batch of queued commands
+     */
+    private void drain() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Runnable next = mailbox.poll();
+            if (next == null) {
+                break;
+            }
+            next.run();
+        }
+
+        // Let other threads schedule again, then pick up anything that arrived meanwhile
+        scheduled.set(false);
+        if (!mailbox.isEmpty()) {
+            schedule();
+        }
+    }
+}
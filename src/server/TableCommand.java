@@ -0,0 +1,15 @@
+package server;
+
+/**
+ * An action run against a table by its actor
+ * @param <T> Type of the result
+ */
+public interface TableCommand<T> {
+
+    /**
+     * Run the action (always called on the table's actor, one command at a time)
+     * @param table The table to act on
+     * @return The result passed back to the caller
+     */
+    T apply(Table table);
+}
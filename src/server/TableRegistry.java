@@ -0,0 +1,182 @@
+package server;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.Manager;
+import storage.GameLog;
+import storage.GameRecorder;
+import storage.WriteAheadLog;
+
+/**
+ * All tables hosted by one server, each owned by its own actor
+ */
+public class TableRegistry {
+
+    private ConcurrentHashMap<Integer, TableActor> tables; // Tables by number
+    private AtomicInteger nextId;                           // Number for the next table
+    private Executor executor;                              // Threads shared by the actors
+    private GameLog log;                                    // Where games are logged (null if they are not)
+    private IdleTables idleTables;                          // Puts idle tables to sleep (null if they never sleep)
+
+    /**
+     * Create an empty registry
+     * @param executor Threads used to run every table's commands
+     */
+    public TableRegistry(Executor executor) {
+        this(executor, null);
+    }
+
+    /**
+     * Create an empty registry whose games are logged
+     * @param executor Threads used to run every table's commands
+     * @param log Where games are logged (null to not log them)
+     */
+    public TableRegistry(Executor executor, GameLog log) {
+        this(executor, log, null);
+    }
+
+    /**
+     * Create an empty registry whose games are logged and whose idle tables sleep
+     * @param executor Threads used to run every table's commands
+     * @param log Where games are logged (null to not log them)
+     * @param idleTables Puts idle tables to sleep (null to keep every table awake)
+     */
+    public TableRegistry(Executor executor, GameLog log, IdleTables idleTables) {
+        this.idleTables = idleTables;
+        this.tables = new ConcurrentHashMap<Integer, TableActor>();
+        this.nextId = new AtomicInteger(1);
+        this.executor = executor;
+        this.log = log;
+    }
+
+    /**
+     * Create and register a new table
+     * @param seats Number of seats (2-4)
+     * @return The actor that owns the table
+     */
+    public TableActor createTable(int seats) {
+        TableActor actor = new TableActor(new Table(nextId.getAndIncrement(), seats, log), executor, idleTables);
+        tables.put(actor.getId(), actor);
+        return actor;
+    }
+
+    /**
+     * Host games recovered after a restart at tables with their old numbers
+     * (call before any table is created); games that had already been won are left out
+     * @param games The games by table number
+     * @return The number of tables created
+     */
+    public int restore(Map<Integer, Manager> games) {
+        int restored = 0;
+        for (Map.Entry<Integer, Manager> entry : games.entrySet()) {
+            Manager manager = entry.getValue();
+            if (manager.checkForWinner() != null) {
+                continue;
+            }
+            int id = entry.getKey();
+            TableActor actor = new TableActor(new Table(id, manager, log), executor, idleTables);
+            tables.put(id, actor);
+            restored++;
+
+            // New tables get numbers after the restored ones
+            if (nextId.get() <= id) {
+                nextId.set(id + 1);
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * Write every game in progress into a new segment of a write-ahead log and
+     * drop the older segments
+     * Each game is written by its own actor, so play carries on meanwhile;
+     * sleeping games are written from a copy read from their image, so they
+     * stay asleep and the checkpoint does not count as a use of them
+     * @return Future completed once the old segments are gone
+     */
+    public CompletableFuture<Void> checkpoint(final WriteAheadLog wal) throws IOException {
+        wal.beginCheckpoint();
+
+        ArrayList<CompletableFuture<Void>> written = new ArrayList<CompletableFuture<Void>>();
+        for (TableActor actor : tables.values()) {
+            written.add(actor.visit(new TableCommand<Void>() {
+                public Void apply(Table table) {
+                    GameRecorder recorder = table.getRecorder();
+                    if (recorder == null) {
+                        return null;
+                    }
+                    if (table.isHibernating()) {
+                        // The recorder lets go of the game while it sleeps; lend it the copy
+                        Manager copy = table.readImage();
+                        if (copy.checkForWinner() == null) {
+                            recorder.follow(copy);
+                            wal.checkpoint(recorder);
+                            recorder.follow(null);
+                        }
+                    } else if (table.getWinnerSeat() < 0) {
+                        wal.checkpoint(recorder);
+                    }
+                    return null;
+                }
+            }));
+        }
+
+        return CompletableFuture.allOf(written.toArray(new CompletableFuture<?>[written.size()]))
+                .thenRun(new Runnable() {
+                    public void run() {
+                        try {
+                            wal.endCheckpoint();
+                        } catch (IOException e) {
+                            throw new IllegalStateException("Could not finish checkpoint: " + e.getMessage());
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Put idle tables to sleep
+     * @return Future completed once the tables chosen have gone to sleep
+     */
+    public CompletableFuture<Void> sweepIdleTables() {
+        if (idleTables == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return idleTables.sweep(tables.values());
+    }
+
+    /**
+     * Get where games are logged
+     * @return The log, or null if games are not logged
+     */
+    public GameLog getLog() {
+        return log;
+    }
+
+    /**
+     * Get a table by number
+     * @return The table's actor, or null if there is none with that number
+     */
+    public TableActor getTable(int id) {
+        return tables.get(id);
+    }
+
+    /**
+     * Remove a table
+     */
+    public void removeTable(int id) {
+        tables.remove(id);
+    }
+
+    /**
+     * Get the number of tables hosted
+     */
+    public int size() {
+        return tables.size();
+    }
+}
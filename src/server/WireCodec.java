@@ -0,0 +1,239 @@
+package server;
+
+import java.nio.ByteBuffer;
+
+import model.Card;
+import storage.StateCodec;
+
+/**
+ * Writes frames to and reads frames from byte buffers
+ *
+ * On the wire a frame is:
+ *   length (1 byte, number of bytes that follow)
+ *   type   (1 byte)
+ *   values (fixed widths for each type, big-endian)
+ *   text   (length byte then ASCII bytes, only for JOIN and ERROR)
+ * so a move is 6 bytes. Nothing is allocated per frame, and a frame is only read
+ * once all of its bytes have arrived, which lets NIO reads stop anywhere
+ */
+public class WireCodec {
+
+    // Largest frame on the wire, including the length byte
+    public static final int MAX_FRAME = 256;
+
+    // Move codes: card mask in bits 0-23, declared rank in bits 24-26, challenge flag in bit 27
+    public static final int RANK_SHIFT = 24;
+    public static final int CHALLENGE_MOVE = 1 << 27;
+
+    // Byte width of each value, by frame type (null for unknown types)
+    private static final byte[][] LAYOUTS = new byte[32][];
+
+    // Whether each frame type carries text
+    private static final boolean[] HAS_TEXT = new boolean[32];
+
+    static {
+        define(Frame.NEW, false, 1);
+        define(Frame.JOIN, true, 4);
+        define(Frame.HAND, false);
+        define(Frame.MOVE, false, 4);
+        define(Frame.STATE, false);
+        define(Frame.STATS, false);
+        define(Frame.WATCH, false, 4);
+        define(Frame.TABLE, false, 4);
+        define(Frame.SEAT, false, 1);
+        define(Frame.CARDS, false, 3);
+        define(Frame.OK, false);
+        define(Frame.CHALLENGE_RESULT, false, 1);
+        define(Frame.TABLE_STATE, false, 1, 4, 1, 1, 1, 1, 1, 1, 1, 1, 1);
+        define(Frame.SERVER_STATS, false, 4, 8, 8, 8, 8);
+        define(Frame.ERROR, true);
+        define(Frame.TABLE_RESET, false, 1, 1);
+        define(Frame.HAND_DELTA, false, 1, 1, 1, 3);
+        define(Frame.PLAY_DELTA, false, 1, 1, 1, 3);
+        define(Frame.PILE_CLEARED, false);
+        define(Frame.TURN, false, 1, 4);
+    }
+
+    /**
+     * Record the layout of a frame type
+     */
+    private static void define(int type, boolean hasText, int... widths) {
+        byte[] layout = new byte[widths.length];
+        for (int i = 0; i < widths.length; i++) {
+            layout[i] = (byte) widths[i];
+        }
+        LAYOUTS[type] = layout;
+        HAS_TEXT[type] = hasText;
+    }
+
+    /**
+     * Get the move code for playing cards
+     * @param cardMask Mask of the cards to play
+     * @param declaredRank The rank declared
+     */
+    public static int moveCode(int cardMask, Card.Rank declaredRank) {
+        return (cardMask & 0xFFFFFF) | (declaredRank.ordinal() << RANK_SHIFT);
+    }
+
+    /**
+     * Check if a move code is a challenge
+     */
+    public static boolean isChallenge(int moveCode) {
+        return (moveCode & CHALLENGE_MOVE) != 0;
+    }
+
+    /**
+     * Get the card mask of a move code
+     */
+    public static int cardMask(int moveCode) {
+        return moveCode & 0xFFFFFF;
+    }
+
+    /**
+     * Get the declared rank of a move code
+     */
+    public static Card.Rank declaredRank(int moveCode) {
+        int ordinal = (moveCode >>> RANK_SHIFT) & 7;
+        if (ordinal >= Card.Rank.values().length) {
+            throw new IllegalArgumentException("Not a rank: " + ordinal);
+        }
+        return Card.Rank.values()[ordinal];
+    }
+
+    /**
+     * Get the number of bytes a frame takes on the wire
+     */
+    public static int size(Frame frame) {
+        byte[] layout = layoutOf(frame.getType());
+        int size = 2;
+        for (int i = 0; i < layout.length; i++) {
+            size += layout[i];
+        }
+        if (HAS_TEXT[frame.getType()]) {
+            size += 1 + frame.getTextLength();
+        }
+        return size;
+    }
+
+    /**
+     * Write a frame
+     * @param frame The frame (must have exactly the values its type needs)
+     * @param out Buffer to write to
+     * @return true if written, false if the buffer had no room (nothing is written)
+     */
+    public static boolean encode(Frame frame, ByteBuffer out) {
+        byte[] layout = layoutOf(frame.getType());
+        if (frame.getValueCount() != layout.length) {
+            throw new IllegalArgumentException("Frame " + frame.getType() + " needs " + layout.length + " values!");
+        }
+
+        int size = size(frame);
+        if (out.remaining() < size) {
+            return false;
+        }
+
+        out.put((byte) (size - 1));
+        out.put((byte) frame.getType());
+        for (int i = 0; i < layout.length; i++) {
+            putValue(out, layout[i], frame.getLong(i));
+        }
+        if (HAS_TEXT[frame.getType()]) {
+            out.put((byte) frame.getTextLength());
+            out.put(frame.getTextBytes(), 0, frame.getTextLength());
+        }
+        return true;
+    }
+
+    /**
+     * Read the next frame if all of its bytes have arrived
+     * @param in Buffer to read from (in read mode)
+     * @param frame Frame to fill
+     * @return true if a frame was read, false if more bytes are needed (nothing is consumed)
+     */
+    public static boolean decode(ByteBuffer in, Frame frame) {
+        if (in.remaining() < 1) {
+            return false;
+        }
+        int length = in.get(in.position()) & 0xFF;
+        if (in.remaining() < 1 + length) {
+            return false;
+        }
+        if (length < 1) {
+            throw new IllegalArgumentException("Empty frame!");
+        }
+
+        int start = in.position() + 1;
+        int type = in.get(start) & 0xFF;
+        byte[] layout = layoutOf(type);
+
+        // Check the length before reading so a bad frame cannot run into the next one
+        int fixedLength = 1;
+        for (int i = 0; i < layout.length; i++) {
+            fixedLength += layout[i];
+        }
+        int textLength = 0;
+        if (HAS_TEXT[type]) {
+            if (length < fixedLength + 1) {
+                throw new IllegalArgumentException("Frame " + type + " is too short!");
+            }
+            textLength = in.get(start + fixedLength) & 0xFF;
+            fixedLength += 1 + textLength;
+        }
+        if (length != fixedLength || textLength > Frame.MAX_TEXT) {
+            throw new IllegalArgumentException("Frame " + type + " has the wrong length!");
+        }
+
+        in.position(start + 1);
+        frame.reset(type);
+        for (int i = 0; i < layout.length; i++) {
+            frame.add(getValue(in, layout[i]));
+        }
+        if (HAS_TEXT[type]) {
+            in.get();
+            in.get(frame.getTextBytes(), 0, textLength);
+            frame.setTextLength(textLength);
+        }
+        return true;
+    }
+
+    /**
+     * Get the layout of a frame type
+     */
+    private static byte[] layoutOf(int type) {
+        if (type < 0 || type >= LAYOUTS.length || LAYOUTS[type] == null) {
+            throw new IllegalArgumentException("Unknown frame type " + type + "!");
+        }
+        return LAYOUTS[type];
+    }
+
+    /**
+     * Write a value in the given number of bytes
+     */
+    private static void putValue(ByteBuffer out, int width, long value) {
+        if (width == 8) {
+            out.putLong(value);
+        } else if (width == 4) {
+            out.putInt((int) value);
+        } else if (width == 3) {
+            StateCodec.putMask(out, (int) value);
+        } else {
+            out.put((byte) value);
+        }
+    }
+
+    /**
+     * Read a value of the given number of bytes
+     * One byte values are signed (so -1 means "none"), three byte values are card masks
+     */
+    private static long getValue(ByteBuffer in, int width) {
+        if (width == 8) {
+            return in.getLong();
+        } else if (width == 4) {
+            return in.getInt();
+        } else if (width == 3) {
+            return StateCodec.getMask(in);
+        } else {
+            return in.get();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package simulation;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs many independent headless games in parallel on a work-stealing pool
+ */
+public class BatchSimulator {
+
+    // Games played by one task before it stops splitting
+    private static final int GAMES_PER_TASK = 64;
+
+    // Spreads game indexes over the seed space
+    private static final long SEED_STEP = 0x9E3779B97F4A7C15L;
+
+    private GameRunner runner; // Plays each individual game
+    private long seed;         // Base seed for the batch
+
+    /**
+     * Create a batch simulator
+     * @param runner The runner used to play each game
+     * @param seed Base seed; game i uses a random source derived from it
+     */
+    public BatchSimulator(GameRunner runner, long seed) {
+        this.runner = runner;
+        this.seed = seed;
+    }
+
+    /**
+     * Play a batch of games
+     * @param games Number of games to play
+     * @param parallelism Number of worker threads
+     * @return Summary of the batch
+     */
+    public SimulationReport run(int games, int parallelism) {
+        // Each game writes only its own slot, so no locking is needed
+        int[] winners = new int[games];
+        int[] turns = new int[games];
+        int[] challenges = new int[games];
+        long[] latencies = new long[games];
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long start = System.nanoTime();
+        try {
+            pool.invoke(new GameRangeTask(0, games, winners, turns, challenges, latencies));
+        } finally {
+            pool.shutdown();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // Add up the results
+        int[] winsBySeat = new int[runner.getSeatCount()];
+        int unfinished = 0;
+        long totalTurns = 0;
+        long totalChallenges = 0;
+        for (int i = 0; i < games; i++) {
+            if (winners[i] >= 0) {
+                winsBySeat[winners[i]]++;
+            } else {
+                unfinished++;
+            }
+            totalTurns += turns[i];
+            totalChallenges += challenges[i];
+        }
+
+        return new SimulationReport(games, unfinished, totalTurns, totalChallenges,
+                winsBySeat, elapsed, latencies);
+    }
+
+    /**
+     * Get the random source for one game of the batch
+     */
+    private SplittableRandom randomForGame(int gameIndex) {
+        return new SplittableRandom(seed + gameIndex * SEED_STEP);
+    }
+
+    /**
+     * Task that plays a range of games, splitting itself so idle workers can steal half
+     */
+    private class GameRangeTask extends RecursiveAction {
+        private int from;
+        private int to;
+        private int[] winners;
+        private int[] turns;
+        private int[] challenges;
+        private long[] latencies;
+
+        GameRangeTask(int from, int to, int[] winners, int[] turns, int[] challenges, long[] latencies) {
+            this.from = from;
+            this.to = to;
+            this.winners = winners;
+            this.turns = turns;
+            this.challenges = challenges;
+            this.latencies = latencies;
+        }
+
+        protected void compute() {
+            // Split large ranges in half
+            if (to - from > GAMES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new GameRangeTask(from, middle, winners, turns, challenges, latencies),
+                        new GameRangeTask(middle, to, winners, turns, challenges, latencies));
+                return;
+            }
+
+            // Play each game in the range
+            for (int i = from; i < to; i++) {
+                GameResult result = runner.playGame(randomForGame(i));
+                winners[i] = result.getWinnerSeat();
+                turns[i] = result.getTurns();
+                challenges[i] = result.getChallenges();
+                latencies[i] = result.getElapsedNanos();
+            }
+        }
+    }
+
+    /**
+     * Command line entry point
+     * Usage: BatchSimulator [games] [players] [threads] [seed]
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+
+        // Alternate random and greedy players around the table
+        Strategy[] strategies = new Strategy[players];
+        for (int i = 0; i < players; i++) {
+            if (i % 2 == 0) {
+                strategies[i] = new RandomStrategy();
+            } else {
+                strategies[i] = new GreedyStrategy();
+            }
+        }
+
+        GameRunner runner = new GameRunner(strategies, 10000);
+        BatchSimulator simulator = new BatchSimulator(runner, seed);
+
+        System.out.println("Playing " + games + " games with " + players + " players on " + threads + " threads (seed " + seed + ")");
+        SimulationReport report = simulator.run(games, threads);
+        System.out.print(report);
+    }
+}
@@ -0,0 +1,57 @@
+package simulation;
+
+/**
+ * Outcome of one simulated game
+ */
+public class GameResult {
+    private int winnerSeat;   // Seat of the winner, or -1 if the turn limit was hit
+    private int turns;        // Number of moves made
+    private int challenges;   // Number of challenges made
+    private long elapsedNanos; // Wall-clock time spent playing the game
+
+    /**
+     * Create a game result
+     */
+    public GameResult(int winnerSeat, int turns, int challenges, long elapsedNanos) {
+        this.winnerSeat = winnerSeat;
+        this.turns = turns;
+        this.challenges = challenges;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Get the seat of the winner
+     * @return The winner's seat, or -1 if nobody won before the turn limit
+     */
+    public int getWinnerSeat() {
+        return winnerSeat;
+    }
+
+    /**
+     * Check if the game finished with a winner
+     */
+    public boolean isFinished() {
+        return winnerSeat >= 0;
+    }
+
+    /**
+     * Get number of moves made
+     */
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * Get number of challenges made
+     */
+    public int getChallenges() {
+        return challenges;
+    }
+
+    /**
+     * Get time spent playing the game in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
@@ -0,0 +1,94 @@
+package simulation;
+
+import model.GameView;
+import model.Manager;
+import model.Move;
+import model.Player;
+
+import java.util.SplittableRandom;
+
+/**
+ * Plays complete games between automated players without any UI
+ */
+public class GameRunner {
+
+    private Strategy[] strategies; // Strategy for each seat
+    private int maxTurns;          // Moves allowed before a game is abandoned
+
+    /**
+     * Create a game runner
+     * @param strategies The strategy used by each seat (2-4 seats)
+     * @param maxTurns Number of moves after which a game is abandoned
+     */
+    public GameRunner(Strategy[] strategies, int maxTurns) {
+        if (strategies.length < 2 || strategies.length > 4) {
+            throw new IllegalArgumentException("A game needs 2-4 players!");
+        }
+
+        this.strategies = new Strategy[strategies.length];
+        for (int i = 0; i < strategies.length; i++) {
+            this.strategies[i] = strategies[i];
+        }
+        this.maxTurns = maxTurns;
+    }
+
+    /**
+     * Play one game from the deal to the end
+     * @param random Random source for the deal and the strategies of this game
+     * @return The result of the game
+     */
+    public GameResult playGame(SplittableRandom random) {
+        long start = System.nanoTime();
+
+        // Create a player for each seat and deal from a seed drawn from this game's random source
+        Player[] players = new Player[strategies.length];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = new Player("Bot " + (i + 1));
+        }
+        Manager manager = new Manager(players, random.nextLong());
+
+        // Each seat sees the game through its own view
+        GameView[] views = new GameView[players.length];
+        for (int i = 0; i < players.length; i++) {
+            views[i] = new GameView(manager, i);
+        }
+
+        int turns = 0;
+        int challenges = 0;
+        int winnerSeat = -1;
+
+        // Let the current player move until someone wins
+        while (turns < maxTurns) {
+            int seat = manager.getCurrentPlayerIndex();
+            Move move = strategies[seat].chooseMove(views[seat], random);
+            move.applyTo(manager);
+            turns++;
+            if (move.isChallenge()) {
+                challenges++;
+            }
+
+            Player winner = manager.checkForWinner();
+            if (winner != null) {
+                winnerSeat = manager.getPlayerIndex(winner);
+                break;
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        return new GameResult(winnerSeat, turns, challenges, elapsed);
+    }
+
+    /**
+     * Get the number of seats at the table
+     */
+    public int getSeatCount() {
+        return strategies.length;
+    }
+
+    /**
+     * Get the strategy used by a seat
+     */
+    public Strategy getStrategy(int seat) {
+        return strategies[seat];
+    }
+}
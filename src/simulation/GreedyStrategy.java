@@ -0,0 +1,46 @@
+package simulation;
+
+import model.Card;
+import model.CardSet;
+import model.GameView;
+import model.Move;
+
+import java.util.SplittableRandom;
+
+/**
+ * Strategy that always plays honestly and only challenges impossible claims
+ * It plays as many cards as it can of the rank it holds most of, and challenges
+ * when the last declaration needs more cards of a rank than are left outside its hand
+ */
+public class GreedyStrategy implements Strategy {
+
+    // Number of cards of each rank in the deck (one per suit)
+    private static final int CARDS_PER_RANK = 4;
+
+    public Move chooseMove(GameView view, SplittableRandom random) {
+        // Challenge if the last play claims more cards than can exist
+        if (view.hasLastPlay()) {
+            int held = view.getRankCount(view.getLastDeclaredRank());
+            if (held + view.getLastPlayCardCount() > CARDS_PER_RANK) {
+                return Move.challenge();
+            }
+        }
+
+        // Find the rank we hold the most of
+        Card.Rank[] allRanks = Card.Rank.values();
+        Card.Rank bestRank = allRanks[0];
+        for (int r = 1; r < allRanks.length; r++) {
+            if (view.getRankCount(allRanks[r]) > view.getRankCount(bestRank)) {
+                bestRank = allRanks[r];
+            }
+        }
+
+        // Play all cards of that rank (there are at most 4) and declare it honestly
+        int rankCards = view.getHand().getMask() & CardSet.rankMask(bestRank);
+        return Move.play(CardSet.toArray(rankCards), bestRank);
+    }
+
+    public String getName() {
+        return "Greedy";
+    }
+}
@@ -0,0 +1,75 @@
+package simulation;
+
+import model.Card;
+import model.GameView;
+import model.Move;
+
+import java.util.SplittableRandom;
+
+/**
+ * Strategy that plays random cards and challenges at random
+ */
+public class RandomStrategy implements Strategy {
+
+    private double challengeChance; // Chance of challenging when there is a play to challenge
+    private double honestChance;    // Chance of declaring the real rank of the first card played
+
+    /**
+     * Create a random strategy with default chances
+     */
+    public RandomStrategy() {
+        this(0.2, 0.7);
+    }
+
+    /**
+     * Create a random strategy
+     * @param challengeChance Chance of challenging the last play
+     * @param honestChance Chance of declaring the real rank of the first card played
+     */
+    public RandomStrategy(double challengeChance, double honestChance) {
+        this.challengeChance = challengeChance;
+        this.honestChance = honestChance;
+    }
+
+    public Move chooseMove(GameView view, SplittableRandom random) {
+        // Challenge some of the time if there is something to challenge
+        if (view.hasLastPlay() && random.nextDouble() < challengeChance) {
+            return Move.challenge();
+        }
+
+        // Pick how many cards to play (1-4, but no more than we hold)
+        int remaining = view.getHand().getMask();
+        int maxCards = Math.min(4, Integer.bitCount(remaining));
+        int count = 1 + random.nextInt(maxCards);
+
+        // Take random cards out of the hand mask one at a time
+        Card[] cards = new Card[count];
+        for (int i = 0; i < count; i++) {
+            // Skip a random number of set bits, then take the next one
+            int skip = random.nextInt(Integer.bitCount(remaining));
+            int bits = remaining;
+            for (int j = 0; j < skip; j++) {
+                bits &= bits - 1;
+            }
+            int index = Integer.numberOfTrailingZeros(bits);
+
+            cards[i] = Card.get(index);
+            remaining &= ~(1 << index);
+        }
+
+        // Declare the first card's rank, or bluff with a random rank
+        Card.Rank declaredRank;
+        if (random.nextDouble() < honestChance) {
+            declaredRank = cards[0].getRank();
+        } else {
+            Card.Rank[] allRanks = Card.Rank.values();
+            declaredRank = allRanks[random.nextInt(allRanks.length)];
+        }
+
+        return Move.play(cards, declaredRank);
+    }
+
+    public String getName() {
+        return "Random(" + challengeChance + ", " + honestChance + ")";
+    }
+}
@@ -0,0 +1,111 @@
+package simulation;
+
+import java.util.Arrays;
+
+/**
+ * Summary of a batch of simulated games
+ */
+public class SimulationReport {
+    private int games;              // Number of games played
+    private int unfinishedGames;    // Games that hit the turn limit
+    private long totalTurns;        // Moves made across all games
+    private long totalChallenges;   // Challenges made across all games
+    private int[] winsBySeat;       // Games won by each seat
+    private long elapsedNanos;      // Wall-clock time for the whole batch
+    private long[] sortedLatencies; // Per-game latencies in nanoseconds, sorted
+
+    /**
+     * Create a report from the raw per-game results
+     * @param latencies Per-game latencies in nanoseconds (sorted in place)
+     */
+    public SimulationReport(int games, int unfinishedGames, long totalTurns, long totalChallenges,
+                            int[] winsBySeat, long elapsedNanos, long[] latencies) {
+        this.games = games;
+        this.unfinishedGames = unfinishedGames;
+        this.totalTurns = totalTurns;
+        this.totalChallenges = totalChallenges;
+        this.winsBySeat = winsBySeat;
+        this.elapsedNanos = elapsedNanos;
+
+        Arrays.sort(latencies);
+        this.sortedLatencies = latencies;
+    }
+
+    /**
+     * Get number of games played
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * Get number of games abandoned at the turn limit
+     */
+    public int getUnfinishedGames() {
+        return unfinishedGames;
+    }
+
+    /**
+     * Get number of moves made across all games
+     */
+    public long getTotalTurns() {
+        return totalTurns;
+    }
+
+    /**
+     * Get number of games won by a seat
+     */
+    public int getWins(int seat) {
+        return winsBySeat[seat];
+    }
+
+    /**
+     * Get games completed per second of wall-clock time
+     */
+    public double getGamesPerSecond() {
+        return games / (elapsedNanos / 1e9);
+    }
+
+    /**
+     * Get moves made per second of wall-clock time
+     */
+    public double getTurnsPerSecond() {
+        return totalTurns / (elapsedNanos / 1e9);
+    }
+
+    /**
+     * Get a per-game latency percentile
+     * @param percentile Percentile between 0 and 100
+     * @return The latency in nanoseconds
+     */
+    public long getLatencyPercentile(double percentile) {
+        if (sortedLatencies.length == 0) {
+            return 0;
+        }
+
+        // Nearest-rank percentile
+        int rank = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length);
+        int index = Math.max(0, Math.min(sortedLatencies.length - 1, rank - 1));
+        return sortedLatencies[index];
+    }
+
+    // Get a printable summary of the batch
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("Games:          %d (%d hit the turn limit)%n", games, unfinishedGames));
+        text.append(String.format("Turns:          %d (%d challenges)%n", totalTurns, totalChallenges));
+        text.append(String.format("Elapsed:        %.3f s%n", elapsedNanos / 1e9));
+        text.append(String.format("Games/sec:      %.0f%n", getGamesPerSecond()));
+        text.append(String.format("Turns/sec:      %.0f%n", getTurnsPerSecond()));
+        text.append(String.format("Latency (us):   p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                getLatencyPercentile(50) / 1e3,
+                getLatencyPercentile(90) / 1e3,
+                getLatencyPercentile(99) / 1e3,
+                getLatencyPercentile(99.9) / 1e3,
+                getLatencyPercentile(100) / 1e3));
+        for (int seat = 0; seat < winsBySeat.length; seat++) {
+            text.append(String.format("Seat %d wins:    %d%n", seat + 1, winsBySeat[seat]));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,27 @@
+package simulation;
+
+import model.GameView;
+import model.Move;
+
+import java.util.SplittableRandom;
+
+/**
+ * Decides the moves of an automated player
+ * One strategy object may be shared by many games running on different threads,
+ * so implementations should keep per-game state out of their fields
+ */
+public interface Strategy {
+
+    /**
+     * Choose the next move for a player
+     * @param view What the player whose turn it is can see of the game
+     * @param random Random source owned by the calling game
+     * @return The move to make (a challenge only when the view has a last play)
+     */
+    Move chooseMove(GameView view, SplittableRandom random);
+
+    /**
+     * Get the display name of this strategy
+     */
+    String getName();
+}
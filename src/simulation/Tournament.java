@@ -0,0 +1,259 @@
+package simulation;
+
+import ai.MctsStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Round-robin tournament between registered strategies
+ * Every ordered choice of distinct strategies for the seats (every seat permutation)
+ * plays the same number of games; all games run in parallel on a work-stealing pool
+ */
+public class Tournament {
+
+    // Games played by one task before it stops splitting
+    private static final int GAMES_PER_TASK = 16;
+
+    // Spreads game indexes over the seed space
+    private static final long SEED_STEP = 0x9E3779B97F4A7C15L;
+
+    // Rounds of the rating fit
+    private static final int RATING_ITERATIONS = 500;
+
+    private List<Strategy> entrants; // Registered strategies
+    private int seats;               // Players per table
+    private int maxTurns;            // Moves after which a game is abandoned
+
+    /**
+     * Create a tournament
+     * @param seats Players per table (2-4)
+     * @param maxTurns Moves after which a game is abandoned (counted as a draw)
+     */
+    public Tournament(int seats, int maxTurns) {
+        if (seats < 2 || seats > 4) {
+            throw new IllegalArgumentException("A game needs 2-4 players!");
+        }
+
+        this.entrants = new ArrayList<Strategy>();
+        this.seats = seats;
+        this.maxTurns = maxTurns;
+    }
+
+    /**
+     * Add a strategy to the tournament
+     */
+    public void register(Strategy strategy) {
+        entrants.add(strategy);
+    }
+
+    /**
+     * Play the tournament
+     * @param gamesPerPermutation Games played by each seat permutation
+     * @param parallelism Number of worker threads
+     * @param seed Base seed for the deals and strategies
+     * @return The results
+     */
+    public TournamentReport run(int gamesPerPermutation, int parallelism, long seed) {
+        if (entrants.size() < seats) {
+            throw new IllegalStateException("Need at least " + seats + " strategies!");
+        }
+
+        // List every seat permutation and make a runner for each
+        List<int[]> permutations = new ArrayList<int[]>();
+        addPermutations(new int[seats], 0, new boolean[entrants.size()], permutations);
+
+        GameRunner[] runners = new GameRunner[permutations.size()];
+        for (int p = 0; p < runners.length; p++) {
+            Strategy[] strategies = new Strategy[seats];
+            for (int s = 0; s < seats; s++) {
+                strategies[s] = entrants.get(permutations.get(p)[s]);
+            }
+            runners[p] = new GameRunner(strategies, maxTurns);
+        }
+
+        // Play every game; each writes only its own slot
+        int totalGames = runners.length * gamesPerPermutation;
+        int[] winners = new int[totalGames];
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long start = System.nanoTime();
+        try {
+            pool.invoke(new GameRangeTask(runners, gamesPerPermutation, seed, 0, totalGames, winners));
+        } finally {
+            pool.shutdown();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // Count wins, and pairwise scores for the ratings
+        int n = entrants.size();
+        int[] games = new int[n];
+        int[] wins = new int[n];
+        double[][] score = new double[n][n];     // Points entrant i scored against entrant j
+        double[][] meetings = new double[n][n];  // Games entrants i and j played together
+        int unfinished = 0;
+        for (int g = 0; g < totalGames; g++) {
+            int[] seating = permutations.get(g / gamesPerPermutation);
+            int winnerSeat = winners[g];
+            if (winnerSeat < 0) {
+                unfinished++;
+            }
+
+            for (int s = 0; s < seats; s++) {
+                int a = seating[s];
+                games[a]++;
+                if (s == winnerSeat) {
+                    wins[a]++;
+                }
+
+                // The winner beats everyone else; everyone else draws with each other
+                for (int t = 0; t < seats; t++) {
+                    if (t == s) {
+                        continue;
+                    }
+                    int b = seating[t];
+                    meetings[a][b]++;
+                    if (s == winnerSeat) {
+                        score[a][b] += 1;
+                    } else if (t != winnerSeat) {
+                        score[a][b] += 0.5;
+                    }
+                }
+            }
+        }
+
+        String[] names = new String[n];
+        for (int i = 0; i < n; i++) {
+            names[i] = entrants.get(i).getName();
+        }
+
+        return new TournamentReport(names, games, wins, fitElo(score, meetings),
+                totalGames, unfinished, elapsed);
+    }
+
+    /**
+     * Add every ordered choice of distinct entrants for the remaining seats
+     */
+    private void addPermutations(int[] seating, int seat, boolean[] used, List<int[]> result) {
+        if (seat == seating.length) {
+            result.add(seating.clone());
+            return;
+        }
+
+        for (int e = 0; e < used.length; e++) {
+            if (!used[e]) {
+                used[e] = true;
+                seating[seat] = e;
+                addPermutations(seating, seat + 1, used, result);
+                used[e] = false;
+            }
+        }
+    }
+
+    /**
+     * Fit Elo ratings to pairwise results (Bradley-Terry model, minorization-maximization)
+     * Every pair gets one extra drawn game so an entrant that never scores stays finite
+     * @return Ratings with an average of 1500
+     */
+    static double[] fitElo(double[][] score, double[][] meetings) {
+        int n = score.length;
+        double[] strength = new double[n];
+        for (int i = 0; i < n; i++) {
+            strength[i] = 1;
+        }
+
+        for (int round = 0; round < RATING_ITERATIONS; round++) {
+            double[] next = new double[n];
+            for (int i = 0; i < n; i++) {
+                double points = 0;
+                double denominator = 0;
+                for (int j = 0; j < n; j++) {
+                    if (i == j) {
+                        continue;
+                    }
+                    points += score[i][j] + 0.5;
+                    denominator += (meetings[i][j] + 1) / (strength[i] + strength[j]);
+                }
+                next[i] = points / denominator;
+            }
+
+            // Keep the geometric mean at 1
+            double logSum = 0;
+            for (int i = 0; i < n; i++) {
+                logSum += Math.log(next[i]);
+            }
+            double scale = Math.exp(logSum / n);
+            for (int i = 0; i < n; i++) {
+                strength[i] = next[i] / scale;
+            }
+        }
+
+        double[] elo = new double[n];
+        for (int i = 0; i < n; i++) {
+            elo[i] = 1500 + 400 * Math.log10(strength[i]);
+        }
+        return elo;
+    }
+
+    /**
+     * Task that plays a range of tournament games, splitting itself so idle workers can steal half
+     */
+    private static class GameRangeTask extends RecursiveAction {
+        private GameRunner[] runners;
+        private int gamesPerPermutation;
+        private long seed;
+        private int from;
+        private int to;
+        private int[] winners;
+
+        GameRangeTask(GameRunner[] runners, int gamesPerPermutation, long seed, int from, int to, int[] winners) {
+            this.runners = runners;
+            this.gamesPerPermutation = gamesPerPermutation;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+            this.winners = winners;
+        }
+
+        protected void compute() {
+            // Split large ranges in half
+            if (to - from > GAMES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new GameRangeTask(runners, gamesPerPermutation, seed, from, middle, winners),
+                        new GameRangeTask(runners, gamesPerPermutation, seed, middle, to, winners));
+                return;
+            }
+
+            for (int g = from; g < to; g++) {
+                // Game k of every permutation uses the same deal, so seatings are compared fairly
+                int permutation = g / gamesPerPermutation;
+                int game = g % gamesPerPermutation;
+                SplittableRandom random = new SplittableRandom(seed + game * SEED_STEP);
+                winners[g] = runners[permutation].playGame(random).getWinnerSeat();
+            }
+        }
+    }
+
+    /**
+     * Command line entry point
+     * Usage: Tournament [games per permutation] [seats] [threads] [seed]
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int seats = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+
+        Tournament tournament = new Tournament(seats, 2000);
+        tournament.register(new RandomStrategy());
+        tournament.register(new GreedyStrategy());
+        tournament.register(new RandomStrategy(0.05, 0.95));
+        // Games already run in parallel, so each search uses a single worker
+        tournament.register(new MctsStrategy(ForkJoinPool.commonPool(), 1, 500, 1000));
+
+        System.out.println("Tournament: " + games + " games per seat permutation, " + seats + " seats, " + threads + " threads");
+        System.out.print(tournament.run(games, threads, seed));
+    }
+}
@@ -0,0 +1,121 @@
+package simulation;
+
+/**
+ * Results of a round-robin tournament between strategies
+ */
+public class TournamentReport {
+
+    // z value for a 95% confidence interval
+    private static final double Z_95 = 1.959964;
+
+    private String[] names;   // Name of each entrant
+    private int[] games;      // Games each entrant played
+    private int[] wins;       // Games each entrant won
+    private double[] elo;     // Elo rating of each entrant
+    private int totalGames;   // Games played in the tournament
+    private int unfinishedGames; // Games that hit the turn limit
+    private long elapsedNanos;   // Wall-clock time for the tournament
+
+    /**
+     * Create a tournament report
+     */
+    public TournamentReport(String[] names, int[] games, int[] wins, double[] elo,
+                            int totalGames, int unfinishedGames, long elapsedNanos) {
+        this.names = names;
+        this.games = games;
+        this.wins = wins;
+        this.elo = elo;
+        this.totalGames = totalGames;
+        this.unfinishedGames = unfinishedGames;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Get number of entrants
+     */
+    public int getEntrantCount() {
+        return names.length;
+    }
+
+    /**
+     * Get the name of an entrant
+     */
+    public String getName(int entrant) {
+        return names[entrant];
+    }
+
+    /**
+     * Get the fraction of its games an entrant won
+     */
+    public double getWinRate(int entrant) {
+        if (games[entrant] == 0) {
+            return 0;
+        }
+        return (double) wins[entrant] / games[entrant];
+    }
+
+    /**
+     * Get the lower end of the 95% confidence interval of an entrant's win rate (Wilson score)
+     */
+    public double getWinRateLow(int entrant) {
+        return wilsonBound(wins[entrant], games[entrant], -1);
+    }
+
+    /**
+     * Get the upper end of the 95% confidence interval of an entrant's win rate (Wilson score)
+     */
+    public double getWinRateHigh(int entrant) {
+        return wilsonBound(wins[entrant], games[entrant], 1);
+    }
+
+    /**
+     * Get the Elo rating of an entrant (the average rating is 1500)
+     */
+    public double getElo(int entrant) {
+        return elo[entrant];
+    }
+
+    /**
+     * Get one end of the Wilson score interval
+     * @param sign -1 for the lower end, 1 for the upper end
+     */
+    private static double wilsonBound(int successes, int trials, int sign) {
+        if (trials == 0) {
+            return sign < 0 ? 0 : 1;
+        }
+
+        double p = (double) successes / trials;
+        double z2 = Z_95 * Z_95;
+        double centre = p + z2 / (2.0 * trials);
+        double spread = Z_95 * Math.sqrt(p * (1 - p) / trials + z2 / (4.0 * trials * trials));
+        return (centre + sign * spread) / (1 + z2 / trials);
+    }
+
+    // Get a printable table of the results, best rating first
+    public String toString() {
+        // Sort entrants by rating
+        Integer[] order = new Integer[names.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        for (int i = 1; i < order.length; i++) {
+            for (int j = i; j > 0 && elo[order[j]] > elo[order[j - 1]]; j--) {
+                Integer temp = order[j];
+                order[j] = order[j - 1];
+                order[j - 1] = temp;
+            }
+        }
+
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("Games: %d (%d hit the turn limit) in %.2f s%n",
+                totalGames, unfinishedGames, elapsedNanos / 1e9));
+        text.append(String.format("%-20s %8s %8s %8s %17s %8s%n", "Strategy", "Games", "Wins", "Win %", "95% CI", "Elo"));
+        for (int k = 0; k < order.length; k++) {
+            int i = order[k];
+            text.append(String.format("%-20s %8d %8d %7.1f%% %7.1f%% - %5.1f%% %8.0f%n",
+                    names[i], games[i], wins[i], 100 * getWinRate(i),
+                    100 * getWinRateLow(i), 100 * getWinRateHigh(i), elo[i]));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,152 @@
+package storage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import model.Card;
+import model.GameAdapter;
+import model.GameState;
+import model.Manager;
+import model.Player;
+
+/**
+ * Listens to one game and keeps its moves in the archive's format until the
+ * game is over, then hands the whole game to the GameArchiveWriter
+ */
+public class ArchiveRecorder extends GameAdapter {
+
+    private GameArchiveWriter writer; // Where the game is written
+    private int gameId;               // Number of the game in the archive
+    private Manager manager;          // The game
+    private GameState startState;     // State the game started from (null if it starts from its deal)
+    private ByteBuffer moves;         // Moves so far (null once written)
+    private int moveCount;            // Number of moves so far
+
+    /**
+     * Create a recorder (use GameArchiveWriter.record to start recording a game)
+     */
+    ArchiveRecorder(GameArchiveWriter writer, int gameId, Manager manager) {
+        this.writer = writer;
+        this.gameId = gameId;
+        this.manager = manager;
+        this.moves = ByteBuffer.allocate(256);
+
+        // A game already under way cannot be rebuilt from its seed
+        boolean fresh = manager.getPile().getPlayCount() == 0 && manager.getRoundNumber() == 1
+                && manager.getCurrentPlayerIndex() == 0;
+        if (!fresh) {
+            this.startState = manager.exportState();
+        }
+    }
+
+    /**
+     * Get the number of the game in the archive
+     */
+    public int getGameId() {
+        return gameId;
+    }
+
+    /**
+     * Check if the game has been written
+     */
+    public boolean isFinished() {
+        return moves == null;
+    }
+
+    public void playAppended(int seat, int cardMask, Card.Rank declaredRank) {
+        if (moves == null) {
+            return;
+        }
+        ensureRoom(4);
+        moves.put((byte) declaredRank.ordinal());
+        moves.put((byte) (cardMask >>> 16));
+        moves.put((byte) (cardMask >>> 8));
+        moves.put((byte) cardMask);
+        moveCount++;
+
+        // Only the player who just played can have run out of cards
+        if (manager.getPlayers()[seat].hasNoCards()) {
+            finish();
+        }
+    }
+
+    public void challengeResolved(int challengerSeat, int loserSeat, boolean successful) {
+        if (moves == null) {
+            return;
+        }
+        ensureRoom(1);
+        int move = GameArchiveWriter.CHALLENGE_MOVE | challengerSeat;
+        if (successful) {
+            move |= GameArchiveWriter.SUCCESSFUL;
+        }
+        moves.put((byte) move);
+        moveCount++;
+    }
+
+    public void stateReplaced() {
+        if (moves == null) {
+            return;
+        }
+        ensureRoom(1 + StateCodec.size(manager.getPlayerCount()));
+        moves.put((byte) GameArchiveWriter.SNAPSHOT_MOVE);
+        StateCodec.write(manager.exportState(), moves);
+        moveCount++;
+    }
+
+    /**
+     * Write the game to the archive now, whether or not it is over
+     * Nothing more is recorded afterwards
+     */
+    public void finish() {
+        if (moves == null) {
+            return;
+        }
+
+        // Names and seats
+        Player[] players = manager.getPlayers();
+        byte[][] names = new byte[players.length][];
+        int size = GameArchiveWriter.varintSize(gameId) + 3
+                + (startState == null ? 8 : StateCodec.size(players.length));
+        for (int i = 0; i < players.length; i++) {
+            names[i] = players[i].getName().getBytes(StandardCharsets.UTF_8);
+            size += GameArchiveWriter.varintSize(names[i].length) + names[i].length;
+        }
+        size += GameArchiveWriter.varintSize(moveCount) + moves.position();
+
+        Player winner = manager.checkForWinner();
+        ByteBuffer game = ByteBuffer.allocate(size);
+        GameArchiveWriter.putVarint(game, gameId);
+        game.put((byte) players.length);
+        game.put((byte) (winner == null ? -1 : manager.getPlayerIndex(winner)));
+        if (startState == null) {
+            game.put((byte) 0);
+            game.putLong(manager.getSeed());
+        } else {
+            game.put((byte) 1);
+            StateCodec.write(startState, game);
+        }
+        for (int i = 0; i < names.length; i++) {
+            GameArchiveWriter.putVarint(game, names[i].length);
+            game.put(names[i]);
+        }
+        GameArchiveWriter.putVarint(game, moveCount);
+        moves.flip();
+        game.put(moves);
+        game.flip();
+
+        moves = null;
+        writer.append(gameId, game);
+    }
+
+    /**
+     * Grow the move buffer if the given number of bytes would not fit
+     */
+    private void ensureRoom(int size) {
+        if (moves.remaining() < size) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(moves.capacity() * 2, moves.position() + size));
+            moves.flip();
+            bigger.put(moves);
+            moves = bigger;
+        }
+    }
+}
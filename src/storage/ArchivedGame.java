@@ -0,0 +1,351 @@
+package storage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import model.Card;
+import model.CardSet;
+import model.GameState;
+import model.Manager;
+import model.Player;
+
+/**
+ * Cursor over the games of a GameArchive
+ * The cursor reads the mapped file in place and is reused from game to game,
+ * so scanning an archive allocates nothing; only names, states and replay()
+ * build new objects
+ *
+ * Typical use:
+ *   ArchivedGame game = archive.cursor();
+ *   while (game.next()) {
+ *       while (game.nextMove()) {
+ *           ... game.getMoveType(), game.getSeat(), game.getCardMask() ...
+ *       }
+ *   }
+ */
+public class ArchivedGame {
+
+    // Ranks by ordinal, kept to avoid copying Card.Rank.values() for every play
+    private static final Card.Rank[] RANKS = Card.Rank.values();
+
+    private GameArchive archive; // The archive being read
+    private ByteBuffer data;     // The mapped file, positioned at the next move
+
+    // Current game
+    private int nextOffset;      // Offset of the game after it
+    private int gameId;          // Number of the game
+    private int seatCount;       // Number of seats
+    private int winnerSeat;      // Winning seat (-1 if none)
+    private long seed;           // Seed of the deal (0 if it starts from a state)
+    private int stateOffset;     // Offset of the state it starts from (-1 if it starts from its deal)
+    private int namesOffset;     // Offset of the players' names
+    private int moveCount;       // Number of moves
+    private int movesOffset;     // Offset of the first move
+    private int movesLeft;       // Moves not read yet
+
+    // Turn order, followed so plays do not need their seat stored
+    private int seatToMove;      // Seat that makes the next play
+    private int lastPlaySeat;    // Seat that made the last play (-1 if the pile is empty)
+
+    // Current move
+    private int moveType;        // EventLog.PLAY, CHALLENGE or SNAPSHOT (0 before the first move)
+    private int moveSeat;        // Seat that made the move (-1 for a snapshot)
+    private int cardMask;        // Cards played (0 if not a play)
+    private Card.Rank declaredRank; // Rank declared (null if not a play)
+    private boolean successful;  // Whether a challenge succeeded
+    private int moveStateOffset; // Offset of a snapshot's state
+
+    /**
+     * Create a cursor (use GameArchive.cursor)
+     */
+    ArchivedGame(GameArchive archive, ByteBuffer data) {
+        this.archive = archive;
+        this.data = data;
+        this.nextOffset = GameArchiveWriter.HEADER_SIZE;
+    }
+
+    /**
+     * Move to the next game in the file
+     * @return false if there are no more games
+     */
+    public boolean next() {
+        if (nextOffset >= archive.getIndexOffset()) {
+            return false;
+        }
+        load(nextOffset);
+        return true;
+    }
+
+    /**
+     * Move to a game by number; next() then carries on from the game after it
+     * @return false if there is no such game (the cursor does not move)
+     */
+    public boolean seek(int gameId) {
+        int offset = archive.offsetOf(gameId);
+        if (offset == 0) {
+            return false;
+        }
+        load(offset);
+        return true;
+    }
+
+    /**
+     * Read the fixed part of the game record at an offset
+     */
+    private void load(int offset) {
+        data.position(offset);
+        int size = GameArchive.getVarint(data);
+        nextOffset = data.position() + size;
+
+        gameId = GameArchive.getVarint(data);
+        seatCount = data.get();
+        winnerSeat = data.get();
+        if (data.get() == 0) {
+            seed = data.getLong();
+            stateOffset = -1;
+        } else {
+            seed = 0;
+            stateOffset = data.position();
+            data.position(stateOffset + StateCodec.size(seatCount));
+        }
+
+        namesOffset = data.position();
+        for (int i = 0; i < seatCount; i++) {
+            int length = GameArchive.getVarint(data);
+            data.position(data.position() + length);
+        }
+
+        moveCount = GameArchive.getVarint(data);
+        movesOffset = data.position();
+        rewind();
+    }
+
+    /**
+     * Go back to before the current game's first move
+     */
+    public void rewind() {
+        data.position(movesOffset);
+        movesLeft = moveCount;
+        moveType = 0;
+        if (stateOffset < 0) {
+            seatToMove = 0;
+            lastPlaySeat = -1;
+        } else {
+            GameState state = stateAt(stateOffset);
+            seatToMove = state.getCurrentSeat();
+            lastPlaySeat = state.getLastPlaySeat();
+        }
+    }
+
+    /**
+     * Move to the current game's next move
+     * @return false if there are no more moves
+     */
+    public boolean nextMove() {
+        if (movesLeft == 0) {
+            return false;
+        }
+        movesLeft--;
+
+        int move = data.get() & 0xFF;
+        if ((move & GameArchiveWriter.CHALLENGE_MOVE) != 0) {
+            moveType = EventLog.CHALLENGE;
+            moveSeat = move & 0x0F;
+            successful = (move & GameArchiveWriter.SUCCESSFUL) != 0;
+            cardMask = 0;
+            declaredRank = null;
+
+            // Whoever lost the challenge takes the pile and the next turn
+            seatToMove = successful ? lastPlaySeat : moveSeat;
+            lastPlaySeat = -1;
+        } else if (move == GameArchiveWriter.SNAPSHOT_MOVE) {
+            moveType = EventLog.SNAPSHOT;
+            moveSeat = -1;
+            successful = false;
+            cardMask = 0;
+            declaredRank = null;
+            moveStateOffset = data.position();
+            data.position(moveStateOffset + StateCodec.size(seatCount));
+
+            GameState state = stateAt(moveStateOffset);
+            seatToMove = state.getCurrentSeat();
+            lastPlaySeat = state.getLastPlaySeat();
+        } else {
+            if (move >= RANKS.length) {
+                throw new IllegalArgumentException("Game archive is damaged!");
+            }
+            moveType = EventLog.PLAY;
+            moveSeat = seatToMove;
+            successful = false;
+            declaredRank = RANKS[move];
+            int high = data.get() & 0xFF;
+            int middle = data.get() & 0xFF;
+            int low = data.get() & 0xFF;
+            cardMask = (high << 16) | (middle << 8) | low;
+
+            lastPlaySeat = moveSeat;
+            seatToMove = (seatToMove + 1) % seatCount;
+        }
+        return true;
+    }
+
+    /**
+     * Get the game's number
+     */
+    public int getGameId() {
+        return gameId;
+    }
+
+    /**
+     * Get the number of seats
+     */
+    public int getSeatCount() {
+        return seatCount;
+    }
+
+    /**
+     * Get the winning seat
+     * @return The seat, or -1 if the game was not finished
+     */
+    public int getWinnerSeat() {
+        return winnerSeat;
+    }
+
+    /**
+     * Check if the game starts from its deal (otherwise it starts from a saved state)
+     */
+    public boolean isDealt() {
+        return stateOffset < 0;
+    }
+
+    /**
+     * Get the seed of the deal (0 if the game starts from a saved state)
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Get the state the game starts from
+     * @return The state, or null if the game starts from its deal
+     */
+    public GameState getStartState() {
+        return stateOffset < 0 ? null : stateAt(stateOffset);
+    }
+
+    /**
+     * Get the name of the player in a seat
+     */
+    public String getPlayerName(int seat) {
+        if (seat < 0 || seat >= seatCount) {
+            throw new IllegalArgumentException("No such seat!");
+        }
+        int position = data.position();
+        data.position(namesOffset);
+        for (int i = 0; i < seat; i++) {
+            int length = GameArchive.getVarint(data);
+            data.position(data.position() + length);
+        }
+        byte[] name = new byte[GameArchive.getVarint(data)];
+        data.get(name);
+        data.position(position);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the number of moves
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Get the type of the current move
+     * @return EventLog.PLAY, EventLog.CHALLENGE or EventLog.SNAPSHOT
+     */
+    public int getMoveType() {
+        return moveType;
+    }
+
+    /**
+     * Get the seat that made the current move (-1 for a snapshot)
+     */
+    public int getSeat() {
+        return moveSeat;
+    }
+
+    /**
+     * Get the mask of the cards played (0 if the move is not a play)
+     */
+    public int getCardMask() {
+        return cardMask;
+    }
+
+    /**
+     * Get the rank declared (null if the move is not a play)
+     */
+    public Card.Rank getDeclaredRank() {
+        return declaredRank;
+    }
+
+    /**
+     * Check if the current move is a challenge that succeeded
+     */
+    public boolean isSuccessful() {
+        return successful;
+    }
+
+    /**
+     * Get the state a snapshot move replaced the game with
+     * @return The state, or null if the move is not a snapshot
+     */
+    public GameState getState() {
+        return moveType == EventLog.SNAPSHOT ? stateAt(moveStateOffset) : null;
+    }
+
+    /**
+     * Rebuild the current game by making every move again
+     * Leaves the cursor after the game's last move
+     * @return The game as it was when it was archived
+     */
+    public Manager replay() {
+        Player[] players = new Player[seatCount];
+        for (int i = 0; i < seatCount; i++) {
+            players[i] = new Player(getPlayerName(i));
+        }
+        Manager manager;
+        if (stateOffset >= 0) {
+            manager = Manager.restore(players, seed, 0, stateAt(stateOffset));
+        } else {
+            manager = new Manager(players, seed);
+        }
+
+        rewind();
+        while (nextMove()) {
+            if (moveType == EventLog.PLAY) {
+                manager.playCards(players[moveSeat], CardSet.toArray(cardMask), declaredRank);
+            } else if (moveType == EventLog.CHALLENGE) {
+                if (manager.challengePlayer(players[moveSeat]) != successful) {
+                    throw new IllegalStateException("Game " + gameId + " does not match its archive!");
+                }
+            } else {
+                manager.importState(stateAt(moveStateOffset));
+            }
+        }
+        return manager;
+    }
+
+    /**
+     * Read a state stored at an offset
+     */
+    private GameState stateAt(int offset) {
+        int position = data.position();
+        data.position(offset);
+        GameState state = StateCodec.read(data);
+        data.position(position);
+        if (state == null) {
+            throw new IllegalArgumentException("Game archive is damaged!");
+        }
+        return state;
+    }
+}
@@ -0,0 +1,141 @@
+package storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+
+/**
+ * Scratch file that holds byte arrays taken off the heap, such as the images of
+ * hibernating tables
+ * Arrays are read back by offset; the space of an array read back is reused
+ * for the next array of the same length (images of tables mostly differ only by
+ * a few plays, so lengths repeat), and the file is emptied whenever nothing in
+ * it is in use. The file is not meant to survive the process and is deleted by close()
+ */
+public class BlobStore {
+
+    private Path file;          // The scratch file
+    private FileChannel channel; // Open for positional reads and writes
+    private long end;           // Offset of the next array written
+    private long liveBytes;     // Bytes of the arrays still in use
+    private int liveCount;      // Number of arrays still in use
+    private HashMap<Integer, ArrayDeque<Long>> free; // Offsets of space no longer in use, by length
+
+    /**
+     * Create a scratch file, replacing any file already there
+     */
+    public BlobStore(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.free = new HashMap<Integer, ArrayDeque<Long>>();
+    }
+
+    /**
+     * Store an array
+     * @return The offset to read it back from
+     */
+    public synchronized long write(byte[] bytes) {
+        ArrayDeque<Long> reusable = free.get(bytes.length);
+        boolean reused = reusable != null && !reusable.isEmpty();
+        long offset = reused ? reusable.poll() : end;
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, offset + buffer.position());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write " + file + ": " + e.getMessage());
+        }
+        if (!reused) {
+            end += bytes.length;
+        }
+        liveBytes += bytes.length;
+        liveCount++;
+        return offset;
+    }
+
+    /**
+     * Read back an array and stop keeping it
+     * @param offset Offset returned by write()
+     * @param length Length of the array
+     */
+    public byte[] take(long offset, int length) {
+        byte[] bytes = read(offset, length);
+        release(offset, length);
+        return bytes;
+    }
+
+    /**
+     * Read back an array and keep it
+     * @param offset Offset returned by write()
+     * @param length Length of the array
+     */
+    public byte[] read(long offset, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IllegalStateException(file + " is shorter than expected!");
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read " + file + ": " + e.getMessage());
+        }
+        return bytes;
+    }
+
+    /**
+     * Get the number of bytes still in use
+     */
+    public synchronized long getLiveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * Get the size of the file, including space no longer in use
+     */
+    public synchronized long getFileSize() {
+        return end;
+    }
+
+    /**
+     * Close and delete the file
+     */
+    public synchronized void close() throws IOException {
+        channel.close();
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Stop keeping an array, emptying the file once nothing in it is in use
+     */
+    private synchronized void release(long offset, int length) {
+        liveBytes -= length;
+        liveCount--;
+
+        ArrayDeque<Long> reusable = free.get(length);
+        if (reusable == null) {
+            reusable = new ArrayDeque<Long>();
+            free.put(length, reusable);
+        }
+        reusable.add(offset);
+
+        if (liveCount == 0) {
+            free.clear();
+            try {
+                channel.truncate(0);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not empty " + file + ": " + e.getMessage());
+            }
+            end = 0;
+        }
+    }
+}
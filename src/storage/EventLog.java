@@ -0,0 +1,214 @@
+package storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+
+import model.Card;
+import model.GameState;
+import model.Manager;
+import model.Player;
+
+/**
+ * Append-only binary log of every deal, play and challenge of any number of games
+ * Events are packed into a memory buffer and written to the file in large
+ * blocks, so logging an action costs a few buffer puts and no formatting;
+ * EventReplayer rebuilds the games from the file
+ *
+ * File layout: MAGIC (4 bytes), VERSION (1 byte), then records of
+ *   DEAL      type, game (4), seed (8), seats (1), then each name as length (1) and UTF-8 bytes
+ *   PLAY      type, game (4), seat (1), card mask (3), declared rank (1)
+ *   CHALLENGE type, game (4), seat (1), 1 if successful or 0
+ *   SNAPSHOT  type, game (4), state (see StateCodec)
+ */
+public class EventLog implements GameLog {
+
+    // First bytes of every log file ("MDLG")
+    public static final int MAGIC = 0x4D444C47;
+    public static final int VERSION = 1;
+
+    // Record types
+    public static final int DEAL = 1;
+    public static final int PLAY = 2;
+    public static final int CHALLENGE = 3;
+    public static final int SNAPSHOT = 4;
+
+    // Size of the memory buffer written to the file in one go
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Longest name kept in a DEAL record, in bytes
+    private static final int MAX_NAME = 255;
+
+    // Returned by sync(), since an EventLog does not wait for the disk
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    private FileChannel channel;  // The log file, opened for appending
+    private ByteBuffer buffer;    // Records not written to the file yet
+    private long eventCount;      // Records logged
+    private long bytesWritten;    // Bytes written to the file
+
+    /**
+     * Open a log file, creating it if needed; new records go after the existing ones
+     */
+    public EventLog(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        if (channel.size() == 0) {
+            buffer.putInt(MAGIC);
+            buffer.put((byte) VERSION);
+        }
+    }
+
+    /**
+     * Start logging a game
+     * A game that has not started is logged as its deal (seed and names), which
+     * replays exactly; one already under way is logged as its deal followed by
+     * a snapshot, which keeps the names
+     * @param gameId Number that tells this game apart from the others in the log
+     * @param manager The game
+     * @return The listener that logs the game (remove it from the manager to stop)
+     */
+    public GameRecorder record(int gameId, Manager manager) {
+        writeGame(gameId, manager);
+        GameRecorder recorder = new GameRecorder(this, gameId, manager);
+        manager.addListener(recorder);
+        return recorder;
+    }
+
+    /**
+     * Get a future that is already complete
+     * Records only reach the file when the buffer fills or flush() is called,
+     * and the disk only when force() is called; see WriteAheadLog for a log
+     * that waits for the disk
+     */
+    public CompletableFuture<Void> sync() {
+        return DONE;
+    }
+
+    /**
+     * Log everything needed to rebuild a game as it is now
+     */
+    synchronized void writeGame(int gameId, Manager manager) {
+        writeDeal(gameId, manager.getSeed(), manager.getPlayers());
+        boolean fresh = manager.getPile().getPlayCount() == 0 && manager.getRoundNumber() == 1
+                && manager.getCurrentPlayerIndex() == 0;
+        if (!fresh) {
+            writeSnapshot(gameId, manager.exportState());
+        }
+    }
+
+    /**
+     * Log a deal
+     */
+    synchronized void writeDeal(int gameId, long seed, Player[] players) {
+        ensureRoom(14 + players.length * (1 + MAX_NAME));
+        buffer.put((byte) DEAL);
+        buffer.putInt(gameId);
+        buffer.putLong(seed);
+        buffer.put((byte) players.length);
+        for (int i = 0; i < players.length; i++) {
+            byte[] name = players[i].getName().getBytes(StandardCharsets.UTF_8);
+            int length = Math.min(name.length, MAX_NAME);
+            buffer.put((byte) length);
+            buffer.put(name, 0, length);
+        }
+        eventCount++;
+    }
+
+    /**
+     * Log a play
+     */
+    synchronized void writePlay(int gameId, int seat, int cardMask, Card.Rank declaredRank) {
+        ensureRoom(10);
+        buffer.put((byte) PLAY);
+        buffer.putInt(gameId);
+        buffer.put((byte) seat);
+        buffer.put((byte) (cardMask >>> 16));
+        buffer.put((byte) (cardMask >>> 8));
+        buffer.put((byte) cardMask);
+        buffer.put((byte) declaredRank.ordinal());
+        eventCount++;
+    }
+
+    /**
+     * Log a challenge
+     */
+    synchronized void writeChallenge(int gameId, int seat, boolean successful) {
+        ensureRoom(7);
+        buffer.put((byte) CHALLENGE);
+        buffer.putInt(gameId);
+        buffer.put((byte) seat);
+        buffer.put((byte) (successful ? 1 : 0));
+        eventCount++;
+    }
+
+    /**
+     * Log a whole game state
+     */
+    synchronized void writeSnapshot(int gameId, GameState state) {
+        ensureRoom(5 + StateCodec.size(state.getPlayerCount()));
+        buffer.put((byte) SNAPSHOT);
+        buffer.putInt(gameId);
+        StateCodec.write(state, buffer);
+        eventCount++;
+    }
+
+    /**
+     * Write buffered records to the file
+     */
+    public synchronized void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Make sure the file holds everything flushed so far, even after a crash
+     */
+    public synchronized void force() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Flush and close the file
+     */
+    public synchronized void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    /**
+     * Get the number of records logged
+     */
+    public synchronized long getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Get the number of bytes written to the file by this log
+     */
+    public synchronized long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Write the buffer out if a record of the given size would not fit
+     */
+    private void ensureRoom(int size) {
+        if (buffer.remaining() < size) {
+            try {
+                flush();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not write event log: " + e.getMessage());
+            }
+        }
+    }
+}
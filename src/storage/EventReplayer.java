@@ -0,0 +1,273 @@
+package storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import model.Card;
+import model.CardSet;
+import model.GameState;
+import model.Manager;
+import model.Player;
+
+/**
+ * Rebuilds games from an EventLog file by dealing with the logged seed and
+ * making every logged play and challenge again
+ * Given a GameArchiveWriter, it also archives every game it rebuilds
+ */
+public class EventReplayer {
+
+    // Bytes read from the file at a time
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private HashMap<Integer, Manager> games; // Rebuilt games by number
+    private long eventCount;                 // Records replayed
+    private GameArchiveWriter archive;       // Where rebuilt games are archived (null if they are not)
+
+    /**
+     * Create a replayer with no games
+     */
+    public EventReplayer() {
+        this(null);
+    }
+
+    /**
+     * Create a replayer with no games that archives the games it rebuilds
+     * @param archive Where games are archived (null to not archive them);
+     *                close it once the replay is done
+     */
+    public EventReplayer(GameArchiveWriter archive) {
+        this.games = new HashMap<Integer, Manager>();
+        this.archive = archive;
+    }
+
+    /**
+     * Replay every record of a log file
+     * @return The rebuilt games by number
+     */
+    public Map<Integer, Manager> replay(Path file) throws IOException {
+        replay(file, false);
+        return games;
+    }
+
+    /**
+     * Replay every whole record of a log file that may have been cut short by a
+     * crash; replay stops at the first record the crash left half written or
+     * damaged
+     * @return The rebuilt games by number
+     */
+    public Map<Integer, Manager> recover(Path file) throws IOException {
+        replay(file, true);
+        return games;
+    }
+
+    /**
+     * Replay a log file
+     * @param cutShort Whether the file may end in the middle of a record
+     */
+    private void replay(Path file, boolean cutShort) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            readFully(channel, buffer);
+            buffer.flip();
+            if (cutShort && buffer.remaining() < 5) {
+                // Crashed before the header was written
+                return;
+            }
+            if (buffer.remaining() < 5 || buffer.getInt() != EventLog.MAGIC) {
+                throw new IllegalArgumentException("Not an event log!");
+            }
+            if (buffer.get() != EventLog.VERSION) {
+                throw new IllegalArgumentException("Unknown event log version!");
+            }
+
+            while (true) {
+                // Replay every whole record in the buffer, then read more
+                try {
+                    while (replayNext(buffer)) {
+                        eventCount++;
+                    }
+                } catch (RuntimeException e) {
+                    if (!cutShort) {
+                        throw e;
+                    }
+                    // Bytes after the last write that reached the disk can be garbage,
+                    // and garbage can fail in the game as well as in the checks below
+                    return;
+                }
+                buffer.compact();
+                if (!readFully(channel, buffer)) {
+                    buffer.flip();
+                    if (buffer.hasRemaining() && !cutShort) {
+                        throw new IllegalArgumentException("Event log ends in the middle of a record!");
+                    }
+                    break;
+                }
+                buffer.flip();
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Get the rebuilt games by number
+     */
+    public Map<Integer, Manager> getGames() {
+        return games;
+    }
+
+    /**
+     * Get the number of records replayed
+     */
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Replay the next record if all of it is in the buffer
+     * @return false if more bytes are needed (nothing is consumed)
+     */
+    private boolean replayNext(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < 5) {
+            return false;
+        }
+        int type = buffer.get();
+        int gameId = buffer.getInt();
+
+        if (type == EventLog.DEAL) {
+            if (buffer.remaining() < 9) {
+                buffer.position(start);
+                return false;
+            }
+            long seed = buffer.getLong();
+            int seats = buffer.get();
+            if (seats < 2 || seats > 4) {
+                throw new IllegalArgumentException("Game " + gameId + " is dealt to " + seats + " players!");
+            }
+            Player[] players = new Player[seats];
+            for (int i = 0; i < seats; i++) {
+                if (buffer.remaining() < 1 || buffer.remaining() < 1 + (buffer.get(buffer.position()) & 0xFF)) {
+                    buffer.position(start);
+                    return false;
+                }
+                byte[] name = new byte[buffer.get() & 0xFF];
+                buffer.get(name);
+                players[i] = new Player(new String(name, StandardCharsets.UTF_8));
+            }
+            Manager manager = new Manager(players, seed);
+            games.put(gameId, manager);
+            if (archive != null) {
+                archive.record(gameId, manager);
+            }
+            return true;
+        }
+
+        if (type == EventLog.PLAY) {
+            if (buffer.remaining() < 5) {
+                buffer.position(start);
+                return false;
+            }
+            int seat = buffer.get();
+            int high = buffer.get() & 0xFF;
+            int middle = buffer.get() & 0xFF;
+            int low = buffer.get() & 0xFF;
+            int cardMask = (high << 16) | (middle << 8) | low;
+            int rank = buffer.get();
+            if (rank < 0 || rank >= Card.Rank.values().length) {
+                throw new IllegalArgumentException("Not a rank: " + rank);
+            }
+
+            Manager manager = gameOf(gameId);
+            manager.playCards(playerOf(manager, seat), CardSet.toArray(cardMask), Card.Rank.values()[rank]);
+            return true;
+        }
+
+        if (type == EventLog.CHALLENGE) {
+            if (buffer.remaining() < 2) {
+                buffer.position(start);
+                return false;
+            }
+            int seat = buffer.get();
+            boolean successful = buffer.get() == 1;
+
+            Manager manager = gameOf(gameId);
+            if (manager.challengePlayer(playerOf(manager, seat)) != successful) {
+                throw new IllegalStateException("Game " + gameId + " does not match its log!");
+            }
+            return true;
+        }
+
+        if (type == EventLog.SNAPSHOT) {
+            GameState state = StateCodec.read(buffer);
+            if (state == null) {
+                buffer.position(start);
+                return false;
+            }
+
+            Manager manager = games.get(gameId);
+            if (manager == null || manager.getPlayerCount() != state.getPlayerCount()) {
+                Player[] players = new Player[state.getPlayerCount()];
+                for (int i = 0; i < players.length; i++) {
+                    players[i] = new Player("Player " + (i + 1));
+                }
+                manager = Manager.restore(players, 0, 0, state);
+                games.put(gameId, manager);
+                if (archive != null) {
+                    archive.record(gameId, manager);
+                }
+                return true;
+            }
+            manager.importState(state);
+            return true;
+        }
+
+        throw new IllegalArgumentException("Unknown event type " + type + "!");
+    }
+
+    /**
+     * Get a game that has been dealt
+     */
+    private Manager gameOf(int gameId) {
+        Manager manager = games.get(gameId);
+        if (manager == null) {
+            throw new IllegalArgumentException("Game " + gameId + " was never dealt!");
+        }
+        return manager;
+    }
+
+    /**
+     * Get the player at a logged seat of a game
+     */
+    private static Player playerOf(Manager manager, int seat) {
+        if (seat < 0 || seat >= manager.getPlayerCount()) {
+            throw new IllegalArgumentException("Game has no seat " + seat + "!");
+        }
+        return manager.getPlayers()[seat];
+    }
+
+    /**
+     * Fill the buffer from the file
+     * @return false if the file had nothing more
+     */
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        boolean readAny = false;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                break;
+            }
+            if (read > 0) {
+                readAny = true;
+            }
+        }
+        return readAny;
+    }
+}
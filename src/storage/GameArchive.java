@@ -0,0 +1,136 @@
+package storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only view of an archive written by GameArchiveWriter
+ * The whole file is memory mapped, so games are read straight from the page
+ * cache without copying: an ArchivedGame cursor walks every game in file
+ * order, or jumps to one game by number with a single index lookup
+ */
+public class GameArchive {
+
+    private ByteBuffer data;  // The mapped file (each cursor reads through its own duplicate)
+    private int indexOffset;  // Where the game records end
+    private int firstId;      // Game number of the first index slot
+    private int slotCount;    // Number of index slots
+    private int gameCount;    // Number of games
+
+    /**
+     * Map an archive file
+     * The mapping stays valid after this returns, so nothing needs closing
+     */
+    public GameArchive(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Archive is too large to map!");
+            }
+            if (size < GameArchiveWriter.HEADER_SIZE + 8 + GameArchiveWriter.TRAILER_SIZE) {
+                throw new IllegalArgumentException("Not a game archive!");
+            }
+            this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } finally {
+            channel.close();
+        }
+
+        // Check both ends of the file, then find the index from the trailer
+        int trailer = data.limit() - GameArchiveWriter.TRAILER_SIZE;
+        if (data.getInt(0) != GameArchiveWriter.MAGIC || data.getInt(trailer + 8) != GameArchiveWriter.MAGIC) {
+            throw new IllegalArgumentException("Not a game archive!");
+        }
+        if (data.get(4) != GameArchiveWriter.VERSION) {
+            throw new IllegalArgumentException("Unknown game archive version!");
+        }
+        this.gameCount = data.getInt(trailer);
+        this.indexOffset = data.getInt(trailer + 4);
+        if (indexOffset < GameArchiveWriter.HEADER_SIZE || indexOffset > trailer - 8) {
+            throw new IllegalArgumentException("Game archive is damaged!");
+        }
+        this.firstId = data.getInt(indexOffset);
+        this.slotCount = data.getInt(indexOffset + 4);
+        if ((long) indexOffset + 8 + 4L * slotCount != trailer) {
+            throw new IllegalArgumentException("Game archive is damaged!");
+        }
+    }
+
+    /**
+     * Get the number of games
+     */
+    public int getGameCount() {
+        return gameCount;
+    }
+
+    /**
+     * Get the size of the file
+     */
+    public int getSize() {
+        return data.limit();
+    }
+
+    /**
+     * Check if a game is in the archive
+     */
+    public boolean contains(int gameId) {
+        return offsetOf(gameId) != 0;
+    }
+
+    /**
+     * Create a cursor placed before the first game
+     * Cursors are cheap and independent, so each thread should use its own
+     */
+    public ArchivedGame cursor() {
+        return new ArchivedGame(this, data.duplicate());
+    }
+
+    /**
+     * Find a game by number
+     * @return A new cursor on the game, or null if there is no such game
+     */
+    public ArchivedGame get(int gameId) {
+        ArchivedGame game = cursor();
+        return game.seek(gameId) ? game : null;
+    }
+
+    /**
+     * Get the offset of a game's record
+     * @return The offset, or 0 if there is no such game
+     */
+    int offsetOf(int gameId) {
+        long slot = (long) gameId - firstId;
+        if (slot < 0 || slot >= slotCount) {
+            return 0;
+        }
+        return data.getInt(indexOffset + 8 + 4 * (int) slot);
+    }
+
+    /**
+     * Get the offset just past the last game's record
+     */
+    int getIndexOffset() {
+        return indexOffset;
+    }
+
+    /**
+     * Read a number written by GameArchiveWriter.putVarint()
+     */
+    static int getVarint(ByteBuffer in) {
+        int value = 0;
+        int shift = 0;
+        int next = in.get();
+        while ((next & 0x80) != 0) {
+            value |= (next & 0x7F) << shift;
+            shift += 7;
+            if (shift > 28) {
+                throw new IllegalArgumentException("Game archive is damaged!");
+            }
+            next = in.get();
+        }
+        return value | (next << shift);
+    }
+}
@@ -0,0 +1,284 @@
+package storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import model.Manager;
+
+/**
+ * Writes whole games to an archive file that GameArchive reads back through a
+ * memory mapping
+ * Each game is kept in memory by its ArchiveRecorder until it is won (or the
+ * writer is closed), then written in one piece, so a game's bytes are never
+ * mixed with another's
+ *
+ * File layout: MAGIC (4 bytes), VERSION (1 byte), then one record per game,
+ * then the index and the trailer
+ *   game     size of the rest of the record (varint), game number (varint), seats (1),
+ *            winner seat (1, -1 if none), 1 if it starts from a state or 0 (1),
+ *            then the seed (8) or the state (see StateCodec),
+ *            each name as length (varint) and UTF-8 bytes, move count (varint), moves
+ *   move     PLAY       declared rank (1), card mask (3); the seat is not stored,
+ *                       since it is always the seat to move
+ *            CHALLENGE  CHALLENGE_MOVE, plus SUCCESSFUL if it succeeded, plus the challenger's seat (1)
+ *            SNAPSHOT   SNAPSHOT_MOVE (1), state (see StateCodec)
+ *   index    first game number (4), slot count (4), then the offset of each game
+ *            number from the first on (4 each, 0 if there is no such game)
+ *   trailer  game count (4), offset of the index (4), MAGIC (4)
+ */
+public class GameArchiveWriter {
+
+    // First and last bytes of every archive file ("MDLA")
+    public static final int MAGIC = 0x4D444C41;
+    public static final int VERSION = 1;
+
+    // Size of the MAGIC and VERSION at the start of the file
+    static final int HEADER_SIZE = 5;
+
+    // Size of the trailer at the end of the file
+    static final int TRAILER_SIZE = 12;
+
+    // First byte of a move that is not a play (plays start with the declared rank)
+    static final int CHALLENGE_MOVE = 0x80;
+    static final int SUCCESSFUL = 0x40;
+    static final int SNAPSHOT_MOVE = 0x20;
+
+    // Size of the memory buffer written to the file in one go
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private FileChannel channel;  // The archive file
+    private ByteBuffer buffer;    // Bytes not written to the file yet
+    private long position;        // Offset in the file of the next byte
+    private int[] gameIds;        // Number of each game written, in file order
+    private int[] offsets;        // Offset of each game written
+    private int gameCount;        // Games written
+    private HashMap<Integer, ArchiveRecorder> recording; // Games not written yet, by number
+    private boolean closed;       // Set once the index has been written
+
+    /**
+     * Create an archive file, replacing any file already there
+     */
+    public GameArchiveWriter(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.gameIds = new int[1024];
+        this.offsets = new int[1024];
+        this.recording = new HashMap<Integer, ArchiveRecorder>();
+
+        buffer.putInt(MAGIC);
+        buffer.put((byte) VERSION);
+        position = HEADER_SIZE;
+    }
+
+    /**
+     * Start recording a game; it is written once a player runs out of cards,
+     * or when the writer is closed
+     * @param gameId Number the game is found by (not negative)
+     * @param manager The game
+     * @return The listener that records the game
+     */
+    public synchronized ArchiveRecorder record(int gameId, Manager manager) {
+        if (closed) {
+            throw new IllegalStateException("Archive is closed!");
+        }
+        if (gameId < 0) {
+            throw new IllegalArgumentException("Game numbers must not be negative!");
+        }
+        if (recording.containsKey(gameId)) {
+            throw new IllegalArgumentException("Game " + gameId + " is already being recorded!");
+        }
+
+        ArchiveRecorder recorder = new ArchiveRecorder(this, gameId, manager);
+        recording.put(gameId, recorder);
+        manager.addListener(recorder);
+        return recorder;
+    }
+
+    /**
+     * Write a finished game
+     * @param gameId The game's number
+     * @param game The game's record without its size (in read mode)
+     */
+    synchronized void append(int gameId, ByteBuffer game) {
+        recording.remove(gameId);
+        if (position + 5 + game.remaining() > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Archive is full!");
+        }
+
+        if (gameCount == gameIds.length) {
+            int[] biggerIds = new int[gameCount * 2];
+            int[] biggerOffsets = new int[gameCount * 2];
+            System.arraycopy(gameIds, 0, biggerIds, 0, gameCount);
+            System.arraycopy(offsets, 0, biggerOffsets, 0, gameCount);
+            gameIds = biggerIds;
+            offsets = biggerOffsets;
+        }
+        gameIds[gameCount] = gameId;
+        offsets[gameCount] = (int) position;
+        gameCount++;
+
+        int size = game.remaining();
+        ensureRoom(varintSize(size));
+        putVarint(buffer, size);
+        position += varintSize(size);
+
+        // Games bigger than the buffer go straight to the file
+        ensureRoom(size);
+        if (size > buffer.remaining()) {
+            try {
+                while (game.hasRemaining()) {
+                    channel.write(game);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not write archive: " + e.getMessage());
+            }
+        } else {
+            buffer.put(game);
+        }
+        position += size;
+    }
+
+    /**
+     * Write every game still being recorded, then the index, and close the file
+     * Call this once no game is being played any more
+     */
+    public void close() throws IOException {
+        // Finishing a game calls append(), which takes the lock again
+        ArrayList<ArchiveRecorder> unfinished;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            unfinished = new ArrayList<ArchiveRecorder>(recording.values());
+        }
+        for (int i = 0; i < unfinished.size(); i++) {
+            unfinished.get(i).finish();
+        }
+
+        synchronized (this) {
+            closed = true;
+            writeIndex();
+            flush();
+            channel.close();
+        }
+    }
+
+    /**
+     * Get the number of games written
+     */
+    public synchronized int getGameCount() {
+        return gameCount;
+    }
+
+    /**
+     * Get the size of the file so far
+     */
+    public synchronized long getSize() {
+        return position;
+    }
+
+    /**
+     * Write the index of game offsets and the trailer
+     * The index has a slot for every number from the lowest game number to the
+     * highest, so a game is found with one read; numbers handed out one after
+     * another (like table numbers) keep it small
+     */
+    private void writeIndex() {
+        int firstId = 0;
+        int lastId = -1;
+        for (int i = 0; i < gameCount; i++) {
+            if (i == 0 || gameIds[i] < firstId) {
+                firstId = gameIds[i];
+            }
+            if (gameIds[i] > lastId) {
+                lastId = gameIds[i];
+            }
+        }
+        long slotCount = (long) lastId - firstId + 1;
+        if (position + 8 + 4 * slotCount + TRAILER_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Archive is full!");
+        }
+
+        int[] slots = new int[(int) slotCount];
+        for (int i = 0; i < gameCount; i++) {
+            int slot = gameIds[i] - firstId;
+            if (slots[slot] != 0) {
+                throw new IllegalStateException("Game " + gameIds[i] + " was archived twice!");
+            }
+            slots[slot] = offsets[i];
+        }
+
+        int indexOffset = (int) position;
+        putInt(firstId);
+        putInt(slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            putInt(slots[i]);
+        }
+        putInt(gameCount);
+        putInt(indexOffset);
+        putInt(MAGIC);
+    }
+
+    /**
+     * Add an int to the file
+     */
+    private void putInt(int value) {
+        ensureRoom(4);
+        buffer.putInt(value);
+        position += 4;
+    }
+
+    /**
+     * Write the buffer out if the given number of bytes would not fit
+     */
+    private void ensureRoom(int size) {
+        if (buffer.remaining() < size) {
+            try {
+                flush();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not write archive: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Write buffered bytes to the file
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Write a number that is not negative in as few bytes as it needs,
+     * 7 bits per byte with the top bit set on every byte but the last
+     */
+    static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    /**
+     * Get the number of bytes putVarint() writes for a number
+     */
+    static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,25 @@
+package storage;
+
+import java.util.concurrent.CompletableFuture;
+
+import model.Manager;
+
+/**
+ * Somewhere games can be logged as they are played
+ */
+public interface GameLog {
+
+    /**
+     * Start logging a game
+     * @param gameId Number that tells this game apart from the others in the log
+     * @param manager The game
+     * @return The listener that logs the game
+     */
+    GameRecorder record(int gameId, Manager manager);
+
+    /**
+     * Wait until everything logged so far is safe from a crash
+     * @return Future completed once it is
+     */
+    CompletableFuture<Void> sync();
+}
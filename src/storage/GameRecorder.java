@@ -0,0 +1,75 @@
+package storage;
+
+import model.Card;
+import model.GameAdapter;
+import model.Manager;
+
+/**
+ * Listens to one game and logs its plays and challenges to an EventLog
+ * Only the game's own thread may use a recorder
+ */
+public class GameRecorder extends GameAdapter {
+
+    private EventLog log;     // Where events are written
+    private int gameId;       // Number of the game in the log
+    private Manager manager;  // The game
+
+    /**
+     * Create a recorder (use EventLog.record to start logging a game)
+     */
+    GameRecorder(EventLog log, int gameId, Manager manager) {
+        this.log = log;
+        this.gameId = gameId;
+        this.manager = manager;
+    }
+
+    /**
+     * Get the number of the game in the log
+     */
+    public int getGameId() {
+        return gameId;
+    }
+
+    /**
+     * Log the whole game to another log and log its later moves there
+     * (used by WriteAheadLog when it starts a new file)
+     */
+    void moveTo(EventLog newLog) {
+        newLog.writeGame(gameId, manager);
+        this.log = newLog;
+    }
+
+    /**
+     * Listen to a rebuilt copy of the same game from now on (nothing is logged,
+     * since the game has not changed)
+     * @param copy The copy, or null to let go of the game while it is not in memory
+     */
+    public void follow(Manager copy) {
+        if (manager != null) {
+            manager.removeListener(this);
+        }
+        manager = copy;
+        if (copy != null) {
+            copy.addListener(this);
+        }
+    }
+
+    /**
+     * Get the game
+     */
+    public Manager getManager() {
+        return manager;
+    }
+
+    public void playAppended(int seat, int cardMask, Card.Rank declaredRank) {
+        log.writePlay(gameId, seat, cardMask, declaredRank);
+    }
+
+    public void challengeResolved(int challengerSeat, int loserSeat, boolean successful) {
+        log.writeChallenge(gameId, challengerSeat, successful);
+    }
+
+    public void stateReplaced() {
+        log.writeSnapshot(gameId, manager.exportState());
+    }
+}
@@ -0,0 +1,108 @@
+package storage;
+
+import java.nio.ByteBuffer;
+
+import model.Card;
+import model.GameState;
+
+/**
+ * Writes a whole GameState in a fixed binary layout and reads it back, for
+ * saving and sending snapshots of a table:
+ *   seats (1), hand masks (3 each), pile mask (3), pile plays (2), last play mask (3),
+ *   last play seat (1), last declared rank (1), current seat (1), round (4)
+ * -1 in a one byte field means "none"
+ */
+public class StateCodec {
+
+    /**
+     * Get the number of bytes a state takes
+     * @param seats Number of seats
+     */
+    public static int size(int seats) {
+        return 16 + 3 * seats;
+    }
+
+    /**
+     * Write a state
+     * @param state The state to write
+     * @param out Buffer to write to
+     * @return true if written, false if the buffer had no room (nothing is written)
+     */
+    public static boolean write(GameState state, ByteBuffer out) {
+        int seats = state.getPlayerCount();
+        if (out.remaining() < size(seats)) {
+            return false;
+        }
+
+        out.put((byte) seats);
+        for (int seat = 0; seat < seats; seat++) {
+            putMask(out, state.getHand(seat));
+        }
+        putMask(out, state.getPileMask());
+        out.putShort((short) state.getPilePlayCount());
+        putMask(out, state.getLastPlayMask());
+        out.put((byte) state.getLastPlaySeat());
+        Card.Rank lastRank = state.getLastDeclaredRank();
+        out.put((byte) (lastRank == null ? -1 : lastRank.ordinal()));
+        out.put((byte) state.getCurrentSeat());
+        out.putInt(state.getRoundNumber());
+        return true;
+    }
+
+    /**
+     * Read a state if all of its bytes are there
+     * @param in Buffer to read from (in read mode)
+     * @return The state, or null if more bytes are needed (nothing is consumed)
+     */
+    public static GameState read(ByteBuffer in) {
+        if (in.remaining() < 1) {
+            return null;
+        }
+        int seats = in.get(in.position());
+        if (seats < 2 || seats > 4) {
+            throw new IllegalArgumentException("Saved game has " + seats + " players!");
+        }
+        if (in.remaining() < size(seats)) {
+            return null;
+        }
+
+        in.get();
+        int[] hands = new int[seats];
+        for (int seat = 0; seat < seats; seat++) {
+            hands[seat] = getMask(in);
+        }
+        int pileMask = getMask(in);
+        int pilePlayCount = in.getShort() & 0xFFFF;
+        int lastPlayMask = getMask(in);
+        int lastPlaySeat = in.get();
+        int lastRank = in.get();
+        int currentSeat = in.get();
+        int roundNumber = in.getInt();
+
+        if (lastRank >= Card.Rank.values().length || currentSeat < 0 || currentSeat >= seats
+                || lastPlaySeat >= seats) {
+            throw new IllegalArgumentException("Saved game is damaged!");
+        }
+        return new GameState(hands, pileMask, pilePlayCount, lastPlayMask, lastPlaySeat,
+                lastRank < 0 ? null : Card.Rank.values()[lastRank], currentSeat, roundNumber);
+    }
+
+    /**
+     * Write a 24-bit card mask
+     */
+    public static void putMask(ByteBuffer out, int mask) {
+        out.put((byte) (mask >>> 16));
+        out.put((byte) (mask >>> 8));
+        out.put((byte) mask);
+    }
+
+    /**
+     * Read a 24-bit card mask
+     */
+    public static int getMask(ByteBuffer in) {
+        int high = in.get() & 0xFF;
+        int middle = in.get() & 0xFF;
+        int low = in.get() & 0xFF;
+        return (high << 16) | (middle << 8) | low;
+    }
+}
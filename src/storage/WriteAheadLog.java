@@ -0,0 +1,310 @@
+package storage;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import model.Manager;
+
+/**
+ * Log of every game in progress that survives a crash of the process
+ * Records are written to a directory of EventLog files ("segments"). A move is
+ * only safe once sync() completes; a single thread forces the files to disk for
+ * every sync requested while the previous force was running, so one fsync
+ * covers many tables' moves (group commit) and a busy server does not pay one
+ * fsync per move
+ *
+ * A checkpoint starts a new segment and writes every game in progress into it
+ * as a compact snapshot, after which the older segments are deleted, so
+ * recovery only reads what was logged since the last checkpoint:
+ *   beginCheckpoint(), then checkpoint(recorder) on each game's own thread,
+ *   then endCheckpoint()
+ *
+ * Opening a log recovers the games of the segments already in the directory
+ * (see getRecoveredGames()); they are kept until the next endCheckpoint()
+ */
+public class WriteAheadLog implements GameLog {
+
+    // Segment file names are "wal-" and an 8 digit number, so they sort in order
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+
+    private Path directory;                   // Where the segments are
+    private EventLog current;                 // Segment new records go to
+    private ArrayList<EventLog> open;         // Segments still written to, the current one last
+    private ArrayList<Path> openFiles;        // File of each open segment
+    private ArrayList<Path> oldFiles;         // Segments left by an earlier run
+    private int nextSegment;                  // Number of the next segment
+    private Map<Integer, Manager> recovered;  // Games rebuilt from the old segments
+    private long recoveredEvents;             // Records replayed to rebuild them
+
+    private ArrayList<CompletableFuture<Void>> waiting; // Syncs waiting for the next force
+    private Object forceLock;                 // Held while segments are forced or closed
+    private Thread committer;                 // Forces the segments to disk
+    private boolean running;                  // Cleared by close()
+    private long syncCount;                   // Syncs requested
+    private long forceCount;                  // Forces done
+
+    /**
+     * Open a log directory, recovering the games in any segments already there
+     * @param directory The directory (created if needed)
+     */
+    public WriteAheadLog(Path directory) throws IOException {
+        this.directory = directory;
+        this.open = new ArrayList<EventLog>();
+        this.openFiles = new ArrayList<Path>();
+        this.oldFiles = new ArrayList<Path>();
+        this.waiting = new ArrayList<CompletableFuture<Void>>();
+        this.forceLock = new Object();
+        Files.createDirectories(directory);
+
+        // Replay the old segments in the order they were written
+        DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX);
+        try {
+            for (Path file : files) {
+                oldFiles.add(file);
+            }
+        } finally {
+            files.close();
+        }
+        Collections.sort(oldFiles);
+
+        EventReplayer replayer = new EventReplayer();
+        for (int i = 0; i < oldFiles.size(); i++) {
+            replayer.recover(oldFiles.get(i));
+            nextSegment = Math.max(nextSegment, segmentNumber(oldFiles.get(i)) + 1);
+        }
+        this.recovered = replayer.getGames();
+        this.recoveredEvents = replayer.getEventCount();
+
+        startSegment();
+        this.running = true;
+        this.committer = new Thread(new Committer(), "wal-committer");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    /**
+     * Get the games rebuilt from the segments that were in the directory when
+     * it was opened, including games that had already been won
+     * Record the ones to keep again, then call endCheckpoint()
+     */
+    public Map<Integer, Manager> getRecoveredGames() {
+        return recovered;
+    }
+
+    /**
+     * Get the number of records replayed to rebuild the recovered games
+     */
+    public long getRecoveredEventCount() {
+        return recoveredEvents;
+    }
+
+    /**
+     * Start logging a game to the current segment
+     */
+    public synchronized GameRecorder record(int gameId, Manager manager) {
+        return current.record(gameId, manager);
+    }
+
+    /**
+     * Wait until everything logged so far is on disk
+     * @return Future completed once it is (by the committer thread)
+     */
+    public CompletableFuture<Void> sync() {
+        CompletableFuture<Void> done = new CompletableFuture<Void>();
+        synchronized (this) {
+            if (!running) {
+                throw new IllegalStateException("Write-ahead log is closed!");
+            }
+            waiting.add(done);
+            syncCount++;
+            if (waiting.size() == 1) {
+                notifyAll();
+            }
+        }
+        return done;
+    }
+
+    /**
+     * Start a checkpoint: new records go to a new segment from now on
+     */
+    public synchronized void beginCheckpoint() throws IOException {
+        startSegment();
+    }
+
+    /**
+     * Write a game into the current segment as it is now, and log its later
+     * moves there; call on the game's own thread, between beginCheckpoint()
+     * and endCheckpoint(), for every game still in progress
+     */
+    public void checkpoint(GameRecorder recorder) {
+        EventLog target;
+        synchronized (this) {
+            target = current;
+        }
+        recorder.moveTo(target);
+    }
+
+    /**
+     * Finish a checkpoint once every game in progress has been written into the
+     * current segment: force it to disk and delete the older segments
+     * Games that were not moved to the current segment are no longer logged
+     */
+    public void endCheckpoint() throws IOException {
+        sync().join();
+
+        ArrayList<Path> obsolete = new ArrayList<Path>();
+        synchronized (forceLock) {
+            synchronized (this) {
+                while (open.size() > 1) {
+                    open.remove(0).close();
+                    obsolete.add(openFiles.remove(0));
+                }
+                obsolete.addAll(oldFiles);
+                oldFiles.clear();
+                recovered = new HashMap<Integer, Manager>();
+            }
+        }
+        for (int i = 0; i < obsolete.size(); i++) {
+            Files.deleteIfExists(obsolete.get(i));
+        }
+    }
+
+    /**
+     * Get the number of syncs requested
+     */
+    public synchronized long getSyncCount() {
+        return syncCount;
+    }
+
+    /**
+     * Get the number of times the segments were forced to disk
+     * (getSyncCount() / getForceCount() is the average group commit size)
+     */
+    public synchronized long getForceCount() {
+        return forceCount;
+    }
+
+    /**
+     * Get the number of segments in the directory
+     */
+    public synchronized int getSegmentCount() {
+        return open.size() + oldFiles.size();
+    }
+
+    /**
+     * Force everything to disk and close the segments, keeping the files
+     */
+    public void close() throws IOException {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            notifyAll();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (forceLock) {
+            synchronized (this) {
+                for (int i = 0; i < open.size(); i++) {
+                    open.get(i).flush();
+                    open.get(i).force();
+                    open.get(i).close();
+                }
+                open.clear();
+            }
+        }
+    }
+
+    /**
+     * Open the next segment and make it the current one
+     */
+    private void startSegment() throws IOException {
+        Path file = directory.resolve(String.format("%s%08d%s", PREFIX, nextSegment, SUFFIX));
+        nextSegment++;
+        current = new EventLog(file);
+        open.add(current);
+        openFiles.add(file);
+    }
+
+    /**
+     * Get the number in a segment's file name
+     */
+    private static int segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unexpected file " + name + " in write-ahead log!");
+        }
+    }
+
+    /**
+     * Forces the segments to disk whenever syncs are waiting, then completes
+     * every sync that was waiting when the force started
+     */
+    private class Committer implements Runnable {
+
+        public void run() {
+            while (true) {
+                ArrayList<CompletableFuture<Void>> batch;
+                synchronized (WriteAheadLog.this) {
+                    while (waiting.isEmpty() && running) {
+                        try {
+                            WriteAheadLog.this.wait();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                    if (waiting.isEmpty()) {
+                        return;
+                    }
+                    batch = waiting;
+                    waiting = new ArrayList<CompletableFuture<Void>>();
+                    forceCount++;
+                }
+
+                // Every record logged before these syncs were requested is in a
+                // segment's buffer by now, so writing and forcing them covers it
+                IOException failure = null;
+                synchronized (forceLock) {
+                    EventLog[] segments;
+                    synchronized (WriteAheadLog.this) {
+                        segments = open.toArray(new EventLog[open.size()]);
+                    }
+                    try {
+                        for (int i = 0; i < segments.length; i++) {
+                            segments[i].flush();
+                            segments[i].force();
+                        }
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+
+                Iterator<CompletableFuture<Void>> syncs = batch.iterator();
+                while (syncs.hasNext()) {
+                    if (failure == null) {
+                        syncs.next().complete(null);
+                    } else {
+                        syncs.next().completeExceptionally(
+                                new IllegalStateException("Could not write log: " + failure.getMessage()));
+                    }
+                }
+            }
+        }
+    }
+}